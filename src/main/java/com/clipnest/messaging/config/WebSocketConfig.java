@@ -1,7 +1,16 @@
 package com.clipnest.messaging.config;
 
+import com.clipnest.messaging.entity.MessageIdGenerator;
+import com.clipnest.messaging.security.ConversationTopicOutboundInterceptor;
+import com.clipnest.messaging.security.StompAuthChannelInterceptor;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.util.StringUtils;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
@@ -10,9 +19,67 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Autowired
+    private StompAuthChannelInterceptor stompAuthChannelInterceptor;
+
+    @Autowired
+    private ConversationTopicOutboundInterceptor conversationTopicOutboundInterceptor;
+
+    @Value("${app.websocket.broker.mode}")
+    private String brokerMode;
+
+    @Value("${app.websocket.broker.relay.host}")
+    private String relayHost;
+
+    @Value("${app.websocket.broker.relay.port}")
+    private int relayPort;
+
+    @Value("${app.websocket.broker.relay.login}")
+    private String relayLogin;
+
+    @Value("${app.websocket.broker.relay.passcode}")
+    private String relayPasscode;
+
+    @Value("${app.websocket.session-registry.type}")
+    private String sessionRegistryType;
+
+    @Value("${spring.jpa.properties.clipnest.message-id-node}")
+    private String messageIdNode;
+
+    /**
+     * With the relay several nodes write messages, and two of them on the
+     * default node number would issue colliding message ids.
+     */
+    @PostConstruct
+    void requireMessageIdNode() {
+        if ("relay".equalsIgnoreCase(brokerMode) && !StringUtils.hasText(messageIdNode)) {
+            throw new IllegalStateException("app.websocket.broker.mode=relay requires MESSAGE_ID_NODE "
+                    + "(spring.jpa.properties." + MessageIdGenerator.NODE_SETTING + ") to be set on every node");
+        }
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/queue");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            // Subscriptions live in the external broker, so any node can publish to
+            // any client.
+            StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode);
+            if (!"shared".equalsIgnoreCase(sessionRegistryType)) {
+                // Without a shared session registry a node cannot tell where a user
+                // is connected, so unresolved user destinations and the user
+                // registry are broadcast to all peers instead.
+                relay.setUserDestinationBroadcast("/topic/unresolved-user")
+                        .setUserRegistryBroadcast("/topic/user-registry");
+            }
+        } else {
+            config.enableSimpleBroker("/topic", "/queue");
+        }
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
     }
@@ -23,4 +90,14 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
     }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthChannelInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(conversationTopicOutboundInterceptor);
+    }
 }
\ No newline at end of file
@@ -1,8 +1,9 @@
 package com.clipnest.messaging.controller;
 
+import com.clipnest.messaging.dto.InboxEntryDto;
 import com.clipnest.messaging.dto.MessageDto;
+import com.clipnest.messaging.dto.MessageHistoryDto;
 import com.clipnest.messaging.dto.SendMessageRequest;
-import com.clipnest.messaging.entity.User;
 import com.clipnest.messaging.service.MessageService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -57,6 +58,30 @@ public class MessageController {
         return ResponseEntity.ok(messages);
     }
 
+    @GetMapping("/conversation/{userId}/history")
+    @Operation(summary = "Get conversation history",
+               description = "Cursor-paginated history with another user; pass 'before' or 'after' from a previous nextCursor")
+    public ResponseEntity<MessageHistoryDto> getConversationHistory(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        MessageHistoryDto history = messageService.getConversationHistory(userId, before, after, limit);
+        return ResponseEntity.ok(history);
+    }
+
+    @GetMapping("/conversations/{conversationId}/history")
+    @Operation(summary = "Get conversation message history",
+               description = "Cursor-paginated history of a group conversation; pass 'before' or 'after' from a previous nextCursor")
+    public ResponseEntity<MessageHistoryDto> getConversationMessageHistory(
+            @PathVariable Long conversationId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        MessageHistoryDto history = messageService.getConversationMessageHistory(conversationId, before, after, limit);
+        return ResponseEntity.ok(history);
+    }
+
     @PostMapping("/{messageId}/read")
     @Operation(summary = "Mark message as read", description = "Mark a message as read")
     public ResponseEntity<?> markMessageAsRead(@PathVariable Long messageId) {
@@ -67,8 +92,15 @@ public class MessageController {
     @PostMapping("/conversation/{userId}/read")
     @Operation(summary = "Mark conversation as read", description = "Mark all messages in conversation as read")
     public ResponseEntity<?> markConversationAsRead(@PathVariable Long userId) {
-        messageService.markConversationAsRead(userId);
-        return ResponseEntity.ok(Map.of("message", "Conversation marked as read"));
+        int updated = messageService.markConversationAsRead(userId);
+        return ResponseEntity.ok(Map.of("message", "Conversation marked as read", "updatedCount", updated));
+    }
+
+    @PostMapping("/conversations/{conversationId}/read")
+    @Operation(summary = "Mark group conversation as read", description = "Mark all messages in a group conversation as read")
+    public ResponseEntity<?> markGroupConversationAsRead(@PathVariable Long conversationId) {
+        int updated = messageService.markGroupConversationAsRead(conversationId);
+        return ResponseEntity.ok(Map.of("message", "Conversation marked as read", "updatedCount", updated));
     }
 
     @GetMapping("/unread-count")
@@ -79,10 +111,10 @@ public class MessageController {
     }
 
     @GetMapping("/recent-conversations")
-    @Operation(summary = "Get recent conversations", description = "Get list of recent conversation partners")
-    public ResponseEntity<List<User>> getRecentConversations(Pageable pageable) {
-        List<User> users = messageService.getRecentConversations(pageable);
-        return ResponseEntity.ok(users);
+    @Operation(summary = "Get recent conversations", description = "Get the inbox: recent partners and groups with last message and unread count")
+    public ResponseEntity<List<InboxEntryDto>> getRecentConversations(Pageable pageable) {
+        List<InboxEntryDto> inbox = messageService.getRecentConversations(pageable);
+        return ResponseEntity.ok(inbox);
     }
 }
 
@@ -1,6 +1,9 @@
 package com.clipnest.messaging.controller;
 
 import com.clipnest.messaging.dto.UserDto;
+import com.clipnest.messaging.dto.UserListDto;
+import com.clipnest.messaging.dto.UserSuggestionDto;
+import com.clipnest.messaging.service.UserSearchService;
 import com.clipnest.messaging.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -13,6 +16,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -25,6 +29,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserSearchService userSearchService;
+
     @GetMapping("/me")
     @Operation(summary = "Get current user", description = "Get current authenticated user profile")
     public ResponseEntity<UserDto> getCurrentUser() {
@@ -64,6 +71,15 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping("/suggest")
+    @Operation(summary = "Suggest users", description = "Typeahead: best-ranked users whose username or name starts with the prefix")
+    public ResponseEntity<List<UserSuggestionDto>> suggestUsers(
+            @RequestParam String prefix,
+            @RequestParam(required = false) Integer limit) {
+        List<UserSuggestionDto> suggestions = userSearchService.suggest(prefix, limit);
+        return ResponseEntity.ok(suggestions);
+    }
+
     @PostMapping("/{username}/follow")
     @Operation(summary = "Follow user", description = "Follow a user or send follow request")
     public ResponseEntity<UserDto> followUser(@PathVariable String username) {
@@ -96,6 +112,28 @@ public class UserController {
         return ResponseEntity.ok(following);
     }
 
+    @GetMapping("/{username}/followers/recent")
+    @Operation(summary = "Get followers by follow time",
+               description = "Cursor-paginated followers, newest first; pass 'before' from a previous nextCursor")
+    public ResponseEntity<UserListDto> getRecentFollowers(
+            @PathVariable String username,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) Integer limit) {
+        UserListDto followers = userService.getRecentFollowers(username, before, limit);
+        return ResponseEntity.ok(followers);
+    }
+
+    @GetMapping("/{username}/following/recent")
+    @Operation(summary = "Get following by follow time",
+               description = "Cursor-paginated followed users, newest first; pass 'before' from a previous nextCursor")
+    public ResponseEntity<UserListDto> getRecentFollowing(
+            @PathVariable String username,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) Integer limit) {
+        UserListDto following = userService.getRecentFollowing(username, before, limit);
+        return ResponseEntity.ok(following);
+    }
+
     @GetMapping("/follow-requests")
     @Operation(summary = "Get follow requests", description = "Get pending follow requests")
     public ResponseEntity<Page<UserDto>> getFollowRequests(Pageable pageable) {
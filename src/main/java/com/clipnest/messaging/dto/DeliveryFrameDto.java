@@ -0,0 +1,22 @@
+package com.clipnest.messaging.dto;
+
+import java.util.List;
+
+/**
+ * Body of every frame the delivery pipeline sends: the events for one
+ * destination flushed together, oldest first, usually just one.
+ */
+public class DeliveryFrameDto {
+    private List<Object> events;
+
+    // Constructors
+    public DeliveryFrameDto() {}
+
+    public DeliveryFrameDto(List<Object> events) {
+        this.events = events;
+    }
+
+    // Getters and Setters
+    public List<Object> getEvents() { return events; }
+    public void setEvents(List<Object> events) { this.events = events; }
+}
@@ -0,0 +1,81 @@
+package com.clipnest.messaging.dto;
+
+import com.clipnest.messaging.entity.InboxEntry;
+
+import java.time.LocalDateTime;
+
+public class InboxEntryDto {
+    
+    private String type;
+    private Long peerId;
+    private String title;
+    private String username;
+    private String profilePictureUrl;
+    private Long lastMessageId;
+    private String lastMessageSnippet;
+    private Long lastSenderId;
+    private LocalDateTime lastMessageAt;
+    private long unreadCount;
+    
+    // Constructors
+    public InboxEntryDto() {}
+    
+    // Used by the JPQL constructor expression in InboxEntryRepository
+    public InboxEntryDto(InboxEntry.Kind kind, Long peerId, String username, String firstName, String lastName,
+                         String profilePictureUrl, String conversationName, Long lastMessageId,
+                         String lastMessageSnippet, Long lastSenderId, LocalDateTime lastMessageAt,
+                         long unreadCount) {
+        this.type = kind.name();
+        this.peerId = peerId;
+        this.username = username;
+        this.profilePictureUrl = profilePictureUrl;
+        this.lastMessageId = lastMessageId;
+        this.lastMessageSnippet = lastMessageSnippet;
+        this.lastSenderId = lastSenderId;
+        this.lastMessageAt = lastMessageAt;
+        this.unreadCount = unreadCount;
+        
+        if (kind == InboxEntry.Kind.GROUP) {
+            this.title = conversationName;
+        } else if (firstName != null && lastName != null) {
+            this.title = firstName + " " + lastName;
+        } else if (firstName != null) {
+            this.title = firstName;
+        } else if (lastName != null) {
+            this.title = lastName;
+        } else {
+            this.title = username;
+        }
+    }
+    
+    // Getters and Setters
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    
+    public Long getPeerId() { return peerId; }
+    public void setPeerId(Long peerId) { this.peerId = peerId; }
+    
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    
+    public String getProfilePictureUrl() { return profilePictureUrl; }
+    public void setProfilePictureUrl(String profilePictureUrl) { this.profilePictureUrl = profilePictureUrl; }
+    
+    public Long getLastMessageId() { return lastMessageId; }
+    public void setLastMessageId(Long lastMessageId) { this.lastMessageId = lastMessageId; }
+    
+    public String getLastMessageSnippet() { return lastMessageSnippet; }
+    public void setLastMessageSnippet(String lastMessageSnippet) { this.lastMessageSnippet = lastMessageSnippet; }
+    
+    public Long getLastSenderId() { return lastSenderId; }
+    public void setLastSenderId(Long lastSenderId) { this.lastSenderId = lastSenderId; }
+    
+    public LocalDateTime getLastMessageAt() { return lastMessageAt; }
+    public void setLastMessageAt(LocalDateTime lastMessageAt) { this.lastMessageAt = lastMessageAt; }
+    
+    public long getUnreadCount() { return unreadCount; }
+    public void setUnreadCount(long unreadCount) { this.unreadCount = unreadCount; }
+}
@@ -13,7 +13,7 @@ public class MessageDto {
     private LocalDateTime createdAt;
     private LocalDateTime readAt;
     private Long conversationId;
-    private MessageDto replyTo;
+    private ReplyPreviewDto replyTo;
     
     // Constructors
     public MessageDto() {}
@@ -46,8 +46,8 @@ public class MessageDto {
     public Long getConversationId() { return conversationId; }
     public void setConversationId(Long conversationId) { this.conversationId = conversationId; }
     
-    public MessageDto getReplyTo() { return replyTo; }
-    public void setReplyTo(MessageDto replyTo) { this.replyTo = replyTo; }
+    public ReplyPreviewDto getReplyTo() { return replyTo; }
+    public void setReplyTo(ReplyPreviewDto replyTo) { this.replyTo = replyTo; }
     
     // Helper methods
     public boolean isRead() {
@@ -0,0 +1,29 @@
+package com.clipnest.messaging.dto;
+
+import java.util.List;
+
+public class MessageHistoryDto {
+    
+    private List<MessageDto> messages;
+    private String nextCursor;
+    private boolean hasMore;
+    
+    // Constructors
+    public MessageHistoryDto() {}
+    
+    public MessageHistoryDto(List<MessageDto> messages, String nextCursor, boolean hasMore) {
+        this.messages = messages;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+    
+    // Getters and Setters
+    public List<MessageDto> getMessages() { return messages; }
+    public void setMessages(List<MessageDto> messages) { this.messages = messages; }
+    
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
@@ -0,0 +1,45 @@
+package com.clipnest.messaging.dto;
+
+import java.time.LocalDateTime;
+
+public class ReadReceiptDto {
+    
+    private Long readerId;
+    private String readerUsername;
+    private Long conversationId;
+    // Set when the receipt is for a single message
+    private Long messageId;
+    private int messageCount;
+    private LocalDateTime readAt;
+    
+    // Constructors
+    public ReadReceiptDto() {}
+    
+    public ReadReceiptDto(Long readerId, String readerUsername, Long conversationId,
+                          int messageCount, LocalDateTime readAt) {
+        this.readerId = readerId;
+        this.readerUsername = readerUsername;
+        this.conversationId = conversationId;
+        this.messageCount = messageCount;
+        this.readAt = readAt;
+    }
+    
+    // Getters and Setters
+    public Long getReaderId() { return readerId; }
+    public void setReaderId(Long readerId) { this.readerId = readerId; }
+    
+    public String getReaderUsername() { return readerUsername; }
+    public void setReaderUsername(String readerUsername) { this.readerUsername = readerUsername; }
+    
+    public Long getConversationId() { return conversationId; }
+    public void setConversationId(Long conversationId) { this.conversationId = conversationId; }
+    
+    public Long getMessageId() { return messageId; }
+    public void setMessageId(Long messageId) { this.messageId = messageId; }
+    
+    public int getMessageCount() { return messageCount; }
+    public void setMessageCount(int messageCount) { this.messageCount = messageCount; }
+    
+    public LocalDateTime getReadAt() { return readAt; }
+    public void setReadAt(LocalDateTime readAt) { this.readAt = readAt; }
+}
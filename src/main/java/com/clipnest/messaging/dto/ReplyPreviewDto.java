@@ -0,0 +1,27 @@
+package com.clipnest.messaging.dto;
+
+public class ReplyPreviewDto {
+    
+    private Long id;
+    private UserDto sender;
+    private String snippet;
+    
+    // Constructors
+    public ReplyPreviewDto() {}
+    
+    public ReplyPreviewDto(Long id, UserDto sender, String snippet) {
+        this.id = id;
+        this.sender = sender;
+        this.snippet = snippet;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public UserDto getSender() { return sender; }
+    public void setSender(UserDto sender) { this.sender = sender; }
+    
+    public String getSnippet() { return snippet; }
+    public void setSnippet(String snippet) { this.snippet = snippet; }
+}
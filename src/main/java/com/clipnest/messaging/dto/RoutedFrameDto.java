@@ -0,0 +1,34 @@
+package com.clipnest.messaging.dto;
+
+/**
+ * A user-destination frame forwarded to the node holding the user's session.
+ */
+public class RoutedFrameDto {
+    private String username;
+    private String destination;
+    private int batchSize;
+    private DeliveryFrameDto payload;
+
+    // Constructors
+    public RoutedFrameDto() {}
+
+    public RoutedFrameDto(String username, String destination, int batchSize, DeliveryFrameDto payload) {
+        this.username = username;
+        this.destination = destination;
+        this.batchSize = batchSize;
+        this.payload = payload;
+    }
+
+    // Getters and Setters
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getDestination() { return destination; }
+    public void setDestination(String destination) { this.destination = destination; }
+
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+    public DeliveryFrameDto getPayload() { return payload; }
+    public void setPayload(DeliveryFrameDto payload) { this.payload = payload; }
+}
@@ -0,0 +1,29 @@
+package com.clipnest.messaging.dto;
+
+import java.util.List;
+
+public class UserListDto {
+    
+    private List<UserDto> users;
+    private String nextCursor;
+    private boolean hasMore;
+    
+    // Constructors
+    public UserListDto() {}
+    
+    public UserListDto(List<UserDto> users, String nextCursor, boolean hasMore) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+    
+    // Getters and Setters
+    public List<UserDto> getUsers() { return users; }
+    public void setUsers(List<UserDto> users) { this.users = users; }
+    
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
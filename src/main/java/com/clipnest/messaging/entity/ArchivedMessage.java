@@ -0,0 +1,134 @@
+package com.clipnest.messaging.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * A message moved out of the hot messages table once it is older than the
+ * hot window. It keeps its original id so history cursors stay valid across
+ * both tiers, stores its content compressed, and carries its reply preview
+ * inline because the replied-to message may be archived or gone later.
+ */
+@Entity
+@Table(name = "archived_messages")
+public class ArchivedMessage implements Persistable<Long> {
+
+    @Id
+    private Long id;
+
+    @Column(name = "sender_id", nullable = false)
+    private Long senderId;
+
+    @Column(name = "recipient_id", nullable = false)
+    private Long recipientId;
+
+    @Column(name = "conversation_id")
+    private Long conversationId;
+
+    @Column(name = "thread_key", nullable = false, length = 41)
+    private String threadKey;
+
+    // Deflated UTF-8, see MessageArchiver
+    @Column(nullable = false, columnDefinition = "mediumblob")
+    private byte[] content;
+
+    @Column(length = 16)
+    private String status;
+
+    @Column(length = 16)
+    private String type;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "read_at")
+    private LocalDateTime readAt;
+
+    @Column(name = "reply_to_id")
+    private Long replyToId;
+
+    @Column(name = "reply_to_sender_id")
+    private Long replyToSenderId;
+
+    @Column(name = "reply_to_snippet", length = InboxEntry.SNIPPET_LENGTH)
+    private String replyToSnippet;
+
+    // Assigned ids would otherwise make save() merge, costing a SELECT per insert
+    @Transient
+    private boolean isNew = true;
+
+    // Constructors
+    public ArchivedMessage() {}
+
+    public ArchivedMessage(Message message, byte[] content, String replyToContent) {
+        this.id = message.getId();
+        this.senderId = message.getSender().getId();
+        this.recipientId = message.getRecipient().getId();
+        this.conversationId = message.getConversation() != null ? message.getConversation().getId() : null;
+        this.threadKey = message.getThreadKey();
+        this.content = content;
+        this.status = Objects.toString(message.getStatus(), null);
+        this.type = Objects.toString(message.getType(), null);
+        this.createdAt = message.getCreatedAt();
+        this.readAt = message.getReadAt();
+        Message replyTo = message.getReplyTo();
+        if (replyTo != null) {
+            this.replyToId = replyTo.getId();
+            this.replyToSenderId = replyTo.getSender().getId();
+            this.replyToSnippet = InboxEntry.snippetOf(replyToContent);
+        }
+    }
+
+    // Getters and Setters
+    @Override
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getSenderId() { return senderId; }
+    public void setSenderId(Long senderId) { this.senderId = senderId; }
+
+    public Long getRecipientId() { return recipientId; }
+    public void setRecipientId(Long recipientId) { this.recipientId = recipientId; }
+
+    public Long getConversationId() { return conversationId; }
+    public void setConversationId(Long conversationId) { this.conversationId = conversationId; }
+
+    public String getThreadKey() { return threadKey; }
+    public void setThreadKey(String threadKey) { this.threadKey = threadKey; }
+
+    public byte[] getContent() { return content; }
+    public void setContent(byte[] content) { this.content = content; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getReadAt() { return readAt; }
+    public void setReadAt(LocalDateTime readAt) { this.readAt = readAt; }
+
+    public Long getReplyToId() { return replyToId; }
+    public void setReplyToId(Long replyToId) { this.replyToId = replyToId; }
+
+    public Long getReplyToSenderId() { return replyToSenderId; }
+    public void setReplyToSenderId(Long replyToSenderId) { this.replyToSenderId = replyToSenderId; }
+
+    public String getReplyToSnippet() { return replyToSnippet; }
+    public void setReplyToSnippet(String replyToSnippet) { this.replyToSnippet = replyToSnippet; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+}
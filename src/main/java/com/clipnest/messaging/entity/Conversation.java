@@ -11,10 +11,18 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
+@NamedEntityGraph(name = Conversation.WITH_MEMBERS, attributeNodes = {
+    @NamedAttributeNode("createdBy"),
+    @NamedAttributeNode("participants")
+})
 @Table(name = "conversations")
 @EntityListeners(AuditingEntityListener.class)
 public class Conversation {
     
+    // Creator and participants in one statement; admins are a second collection,
+    // so they are left to batch fetching rather than multiplying the rows
+    public static final String WITH_MEMBERS = "Conversation.withMembers";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -0,0 +1,90 @@
+package com.clipnest.messaging.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per user per conversation partner (DIRECT) or group (GROUP),
+ * holding just enough of the latest message to render the inbox list.
+ */
+@Entity
+@Table(name = "inbox_entries",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "kind", "peer_id"}))
+public class InboxEntry {
+    
+    public static final int SNIPPET_LENGTH = 140;
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Kind kind;
+    
+    // Partner user id for DIRECT entries, conversation id for GROUP entries
+    @Column(name = "peer_id", nullable = false)
+    private Long peerId;
+    
+    @Column(name = "last_message_id")
+    private Long lastMessageId;
+    
+    @Column(name = "last_message_snippet", length = SNIPPET_LENGTH)
+    private String lastMessageSnippet;
+    
+    @Column(name = "last_sender_id")
+    private Long lastSenderId;
+    
+    @Column(name = "last_message_at")
+    private LocalDateTime lastMessageAt;
+    
+    @Column(name = "unread_count", nullable = false)
+    private long unreadCount;
+    
+    // Constructors
+    public InboxEntry() {}
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public Kind getKind() { return kind; }
+    public void setKind(Kind kind) { this.kind = kind; }
+    
+    public Long getPeerId() { return peerId; }
+    public void setPeerId(Long peerId) { this.peerId = peerId; }
+    
+    public Long getLastMessageId() { return lastMessageId; }
+    public void setLastMessageId(Long lastMessageId) { this.lastMessageId = lastMessageId; }
+    
+    public String getLastMessageSnippet() { return lastMessageSnippet; }
+    public void setLastMessageSnippet(String lastMessageSnippet) { this.lastMessageSnippet = lastMessageSnippet; }
+    
+    public Long getLastSenderId() { return lastSenderId; }
+    public void setLastSenderId(Long lastSenderId) { this.lastSenderId = lastSenderId; }
+    
+    public LocalDateTime getLastMessageAt() { return lastMessageAt; }
+    public void setLastMessageAt(LocalDateTime lastMessageAt) { this.lastMessageAt = lastMessageAt; }
+    
+    public long getUnreadCount() { return unreadCount; }
+    public void setUnreadCount(long unreadCount) { this.unreadCount = unreadCount; }
+    
+    // Helper methods
+    public static String snippetOf(String content) {
+        if (content == null || content.length() <= SNIPPET_LENGTH) {
+            return content;
+        }
+        return content.substring(0, SNIPPET_LENGTH - 1) + "…";
+    }
+    
+    public enum Kind {
+        DIRECT, GROUP
+    }
+}
@@ -1,7 +1,6 @@
 package com.clipnest.messaging.entity;
 
 import jakarta.persistence.*;
-import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -9,12 +8,22 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
+@NamedEntityGraph(name = Message.WITH_USERS, attributeNodes = {
+    @NamedAttributeNode("sender"),
+    @NamedAttributeNode("recipient"),
+    @NamedAttributeNode(value = "replyTo", subgraph = "replyTo")
+}, subgraphs = @NamedSubgraph(name = "replyTo", attributeNodes = @NamedAttributeNode("sender")))
 @Table(name = "messages")
 @EntityListeners(AuditingEntityListener.class)
 public class Message {
     
+    // Everything a MessageDto reads: both users and the replied-to message with its sender
+    public static final String WITH_USERS = "Message.withUsers";
+
+    // Assigned on persist (see MessageIdGenerator), so inserts can be
+    // JDBC-batched, and time-ordered across nodes
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @MessageId
     private Long id;
     
     @NotNull
@@ -27,8 +36,9 @@ public class Message {
     @JoinColumn(name = "recipient_id")
     private User recipient;
     
-    @NotBlank
-    @Column(columnDefinition = "TEXT")
+    // Null when the body is kept outside the table (see MessageBodyStore);
+    // never updated, so the body can be set on an inserted message for its payload
+    @Column(columnDefinition = "TEXT", updatable = false)
     private String content;
     
     @Enumerated(EnumType.STRING)
@@ -53,6 +63,11 @@ public class Message {
     @JoinColumn(name = "reply_to_id")
     private Message replyTo;
     
+    // The sender/recipient pair with the lower id first, so both directions of
+    // a one-to-one thread share one key and its history is one index range
+    @Column(name = "thread_key", nullable = false, updatable = false, length = 41)
+    private String threadKey;
+    
     // Constructors
     public Message() {}
     
@@ -93,7 +108,18 @@ public class Message {
     public Message getReplyTo() { return replyTo; }
     public void setReplyTo(Message replyTo) { this.replyTo = replyTo; }
     
+    public String getThreadKey() { return threadKey; }
+    
     // Helper methods
+    public static String threadKey(Long user1Id, Long user2Id) {
+        return Math.min(user1Id, user2Id) + ":" + Math.max(user1Id, user2Id);
+    }
+    
+    @PrePersist
+    void assignThreadKey() {
+        threadKey = threadKey(sender.getId(), recipient.getId());
+    }
+    
     public boolean isRead() {
         return readAt != null;
     }
@@ -0,0 +1,18 @@
+package com.clipnest.messaging.entity;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Assigns a time-ordered id from {@link MessageIdGenerator} when the entity
+ * is persisted, without a database round trip.
+ */
+@IdGeneratorType(MessageIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface MessageId {
+}
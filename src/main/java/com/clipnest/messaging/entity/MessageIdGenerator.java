@@ -0,0 +1,79 @@
+package com.clipnest.messaging.entity;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.time.Instant;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered message ids: milliseconds since {@link #EPOCH}, then the node
+ * number, then a per-millisecond sequence. Ids from one node always increase,
+ * and ids from different nodes follow creation time to within the clock skew
+ * between the nodes, so keyset pages, "latest message" lookups and the inbox
+ * guard on last_message_id can keep treating a higher id as a newer message.
+ * They fit in 53 bits, so JavaScript clients read them exactly, and they
+ * start far above any auto-increment id issued before.
+ *
+ * Every node writing messages needs its own node number, set through
+ * {@link #NODE_SETTING}; left blank it is 0, which only a single node may use. If the clock steps back, or a node issues more than
+ * 128 ids in a millisecond, the node keeps counting from its last timestamp
+ * rather than waiting for the clock.
+ */
+public class MessageIdGenerator implements IdentifierGenerator {
+
+    public static final String NODE_SETTING = "clipnest.message-id-node";
+
+    static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 6;
+    static final int SEQUENCE_BITS = 7;
+    static final int MAX_NODE = (1 << NODE_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long node;
+    private final LongSupplier clock;
+    private long lastMillis = -1L;
+    private long sequence;
+
+    public MessageIdGenerator(MessageId config, Member member, CustomIdGeneratorCreationContext context) {
+        this(context.getServiceRegistry().getService(ConfigurationService.class)
+                .getSetting(NODE_SETTING, MessageIdGenerator::parseNode, 0),
+                System::currentTimeMillis);
+    }
+
+    MessageIdGenerator(int node, LongSupplier clock) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException(NODE_SETTING + " must be between 0 and " + MAX_NODE + ", was " + node);
+        }
+        this.node = node;
+        this.clock = clock;
+    }
+
+    static int parseNode(Object value) {
+        String node = value.toString().trim();
+        return node.isEmpty() ? 0 : Integer.parseInt(node);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return nextId();
+    }
+
+    synchronized long nextId() {
+        long now = Math.max(clock.getAsLong(), lastMillis);
+        if (now == lastMillis) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                now++;
+            }
+        } else {
+            sequence = 0;
+        }
+        lastMillis = now;
+        return (now - EPOCH) << (NODE_BITS + SEQUENCE_BITS) | node << SEQUENCE_BITS | sequence;
+    }
+}
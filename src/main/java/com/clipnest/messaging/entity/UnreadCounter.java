@@ -0,0 +1,60 @@
+package com.clipnest.messaging.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Denormalized unread message count for a user. Each user has one TOTAL row
+ * (scopeId 0) plus one row per direct-message partner or group conversation.
+ */
+@Entity
+@Table(name = "unread_counters",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "scope", "scope_id"}))
+public class UnreadCounter {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Scope scope;
+    
+    @Column(name = "scope_id", nullable = false)
+    private Long scopeId;
+    
+    @Column(name = "unread_count", nullable = false)
+    private long unreadCount;
+    
+    // Constructors
+    public UnreadCounter() {}
+    
+    public UnreadCounter(Long userId, Scope scope, Long scopeId, long unreadCount) {
+        this.userId = userId;
+        this.scope = scope;
+        this.scopeId = scopeId;
+        this.unreadCount = unreadCount;
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public Scope getScope() { return scope; }
+    public void setScope(Scope scope) { this.scope = scope; }
+    
+    public Long getScopeId() { return scopeId; }
+    public void setScopeId(Long scopeId) { this.scopeId = scopeId; }
+    
+    public long getUnreadCount() { return unreadCount; }
+    public void setUnreadCount(long unreadCount) { this.unreadCount = unreadCount; }
+    
+    public enum Scope {
+        TOTAL, DIRECT, GROUP
+    }
+}
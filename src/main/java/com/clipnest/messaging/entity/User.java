@@ -62,20 +62,18 @@ public class User {
     @LastModifiedDate
     private LocalDateTime updatedAt;
     
-    // Followers - users who follow this user
-    @ManyToMany(mappedBy = "following", fetch = FetchType.LAZY)
-    @JsonIgnore
-    private Set<User> followers = new HashSet<>();
-    
-    // Following - users this user follows
-    @ManyToMany(fetch = FetchType.LAZY)
-    @JoinTable(
-        name = "user_follows",
-        joinColumns = @JoinColumn(name = "follower_id"),
-        inverseJoinColumns = @JoinColumn(name = "following_id")
-    )
-    @JsonIgnore
-    private Set<User> following = new HashSet<>();
+    // Follow graph sizes, kept in step with user_follows by atomic UPDATEs in
+    // UserRepository; never written through the entity
+    @Column(name = "follower_count", nullable = false, updatable = false)
+    private int followerCount;
+    
+    @Column(name = "following_count", nullable = false, updatable = false)
+    private int followingCount;
+    
+    // Set by the same UPDATEs whenever follower_count moves, so search indexes
+    // on other nodes see rank changes without treating them as profile edits
+    @Column(name = "follower_count_changed_at", insertable = false, updatable = false)
+    private LocalDateTime followerCountChangedAt;
     
     // Follow requests sent by this user
     @OneToMany(mappedBy = "requester", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
@@ -136,11 +134,11 @@ public class User {
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
     
-    public Set<User> getFollowers() { return followers; }
-    public void setFollowers(Set<User> followers) { this.followers = followers; }
+    public int getFollowerCount() { return followerCount; }
+    public void setFollowerCount(int followerCount) { this.followerCount = followerCount; }
     
-    public Set<User> getFollowing() { return following; }
-    public void setFollowing(Set<User> following) { this.following = following; }
+    public int getFollowingCount() { return followingCount; }
+    public void setFollowingCount(int followingCount) { this.followingCount = followingCount; }
     
     public Set<FollowRequest> getSentFollowRequests() { return sentFollowRequests; }
     public void setSentFollowRequests(Set<FollowRequest> sentFollowRequests) { this.sentFollowRequests = sentFollowRequests; }
@@ -159,14 +157,6 @@ public class User {
         }
         return username;
     }
-    
-    public int getFollowerCount() {
-        return followers.size();
-    }
-    
-    public int getFollowingCount() {
-        return following.size();
-    }
 }
 
 enum Role {
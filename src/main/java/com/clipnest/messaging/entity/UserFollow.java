@@ -0,0 +1,57 @@
+package com.clipnest.messaging.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * One edge of the follow graph. The primary key (follower_id, following_id)
+ * serves "does A follow B"; the two (user, created_at, other user) indexes
+ * serve follower and following lists newest-first.
+ */
+@Entity
+@Table(name = "user_follows")
+@EntityListeners(AuditingEntityListener.class)
+public class UserFollow {
+
+    @EmbeddedId
+    private UserFollowId id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @MapsId("followerId")
+    @JoinColumn(name = "follower_id")
+    private User follower;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @MapsId("followingId")
+    @JoinColumn(name = "following_id")
+    private User following;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public UserFollow() {}
+
+    public UserFollow(User follower, User following) {
+        this.id = new UserFollowId(follower.getId(), following.getId());
+        this.follower = follower;
+        this.following = following;
+    }
+
+    // Getters and Setters
+    public UserFollowId getId() { return id; }
+    public void setId(UserFollowId id) { this.id = id; }
+
+    public User getFollower() { return follower; }
+    public void setFollower(User follower) { this.follower = follower; }
+
+    public User getFollowing() { return following; }
+    public void setFollowing(User following) { this.following = following; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
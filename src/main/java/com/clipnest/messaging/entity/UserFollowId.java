@@ -0,0 +1,44 @@
+package com.clipnest.messaging.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+public class UserFollowId implements Serializable {
+
+    @Column(name = "follower_id")
+    private Long followerId;
+
+    @Column(name = "following_id")
+    private Long followingId;
+
+    // Constructors
+    public UserFollowId() {}
+
+    public UserFollowId(Long followerId, Long followingId) {
+        this.followerId = followerId;
+        this.followingId = followingId;
+    }
+
+    // Getters and Setters
+    public Long getFollowerId() { return followerId; }
+    public void setFollowerId(Long followerId) { this.followerId = followerId; }
+
+    public Long getFollowingId() { return followingId; }
+    public void setFollowingId(Long followingId) { this.followingId = followingId; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof UserFollowId that)) return false;
+        return Objects.equals(followerId, that.followerId) && Objects.equals(followingId, that.followingId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(followerId, followingId);
+    }
+}
@@ -0,0 +1,66 @@
+package com.clipnest.messaging.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A live STOMP session and the node holding it, shared by all nodes so user
+ * destinations can be routed to the owning node. Session ids are assigned per
+ * server, so a session is identified by node and session id together.
+ */
+@Entity
+@Table(name = "user_sessions",
+       uniqueConstraints = @UniqueConstraint(name = "uk_user_sessions_node_session",
+                                             columnNames = {"node_id", "session_id"}))
+public class UserSession {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "session_id", nullable = false)
+    private String sessionId;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(name = "node_id", nullable = false, length = 64)
+    private String nodeId;
+
+    @Column(name = "connected_at", nullable = false)
+    private LocalDateTime connectedAt;
+
+    @Column(name = "last_seen_at", nullable = false)
+    private LocalDateTime lastSeenAt;
+
+    // Constructors
+    public UserSession() {}
+
+    public UserSession(String sessionId, String username, String nodeId) {
+        this.sessionId = sessionId;
+        this.username = username;
+        this.nodeId = nodeId;
+        this.connectedAt = LocalDateTime.now();
+        this.lastSeenAt = this.connectedAt;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getSessionId() { return sessionId; }
+    public void setSessionId(String sessionId) { this.sessionId = sessionId; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getNodeId() { return nodeId; }
+    public void setNodeId(String nodeId) { this.nodeId = nodeId; }
+
+    public LocalDateTime getConnectedAt() { return connectedAt; }
+    public void setConnectedAt(LocalDateTime connectedAt) { this.connectedAt = connectedAt; }
+
+    public LocalDateTime getLastSeenAt() { return lastSeenAt; }
+    public void setLastSeenAt(LocalDateTime lastSeenAt) { this.lastSeenAt = lastSeenAt; }
+}
@@ -0,0 +1,44 @@
+package com.clipnest.messaging.mapper;
+
+import com.clipnest.messaging.dto.ConversationDto;
+import com.clipnest.messaging.dto.UserDto;
+import com.clipnest.messaging.entity.Conversation;
+import com.clipnest.messaging.entity.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+@Component
+public class ConversationMapper {
+
+    @Autowired
+    private UserMapper userMapper;
+
+    public ConversationDto toDto(Conversation conversation) {
+        ConversationDto dto = new ConversationDto();
+        dto.setId(conversation.getId());
+        dto.setName(conversation.getName());
+        dto.setDescription(conversation.getDescription());
+        dto.setType(Objects.toString(conversation.getType(), null));
+        if (conversation.getCreatedBy() != null) {
+            dto.setCreatedBy(userMapper.toDto(conversation.getCreatedBy()));
+        }
+        dto.setParticipants(toDtos(conversation.getParticipants()));
+        dto.setAdmins(toDtos(conversation.getAdmins()));
+        dto.setCreatedAt(conversation.getCreatedAt());
+        dto.setUpdatedAt(conversation.getUpdatedAt());
+        return dto;
+    }
+
+    private List<UserDto> toDtos(Collection<User> users) {
+        List<UserDto> dtos = new ArrayList<>(users.size());
+        for (User user : users) {
+            dtos.add(userMapper.toDto(user));
+        }
+        return dtos;
+    }
+}
@@ -0,0 +1,100 @@
+package com.clipnest.messaging.mapper;
+
+import com.clipnest.messaging.dto.MessageDto;
+import com.clipnest.messaging.dto.ReplyPreviewDto;
+import com.clipnest.messaging.dto.UserDto;
+import com.clipnest.messaging.entity.ArchivedMessage;
+import com.clipnest.messaging.entity.InboxEntry;
+import com.clipnest.messaging.entity.Message;
+import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.repository.MessageView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Maps messages to their payload. Sender and recipient are embedded as user
+ * summaries, and a replied-to message only as a preview (id, sender and
+ * snippet), never as a nested message, so a reply chain costs at most one hop
+ * whatever its depth. Mapping a {@link MessageView} reads nothing at all.
+ */
+@Component
+public class MessageMapper {
+
+    @Autowired
+    private UserMapper userMapper;
+
+    public MessageDto toDto(Message message) {
+        MessageDto dto = new MessageDto();
+        dto.setId(message.getId());
+        dto.setSender(userMapper.toSummary(message.getSender()));
+        dto.setRecipient(userMapper.toSummary(message.getRecipient()));
+        dto.setContent(message.getContent());
+        dto.setStatus(Objects.toString(message.getStatus(), null));
+        dto.setType(Objects.toString(message.getType(), null));
+        dto.setCreatedAt(message.getCreatedAt());
+        dto.setReadAt(message.getReadAt());
+        if (message.getConversation() != null) {
+            dto.setConversationId(message.getConversation().getId());
+        }
+        Message replyTo = message.getReplyTo();
+        if (replyTo != null) {
+            dto.setReplyTo(new ReplyPreviewDto(replyTo.getId(), userMapper.toSummary(replyTo.getSender()),
+                    InboxEntry.snippetOf(replyTo.getContent())));
+        }
+        return dto;
+    }
+
+    public MessageDto toDto(MessageView view) {
+        MessageDto dto = new MessageDto();
+        dto.setId(view.getId());
+        dto.setSender(userMapper.toSummary(view.getSenderId(), view.getSenderUsername(),
+                view.getSenderFirstName(), view.getSenderLastName(), view.getSenderProfilePictureUrl()));
+        dto.setRecipient(userMapper.toSummary(view.getRecipientId(), view.getRecipientUsername(),
+                view.getRecipientFirstName(), view.getRecipientLastName(), view.getRecipientProfilePictureUrl()));
+        dto.setContent(view.getContent());
+        dto.setStatus(view.getStatus());
+        dto.setType(view.getType());
+        dto.setCreatedAt(view.getCreatedAt());
+        dto.setReadAt(view.getReadAt());
+        dto.setConversationId(view.getConversationId());
+        if (view.getReplyToId() != null) {
+            dto.setReplyTo(new ReplyPreviewDto(view.getReplyToId(),
+                    userMapper.toSummary(view.getReplyToSenderId(), view.getReplyToSenderUsername(),
+                            view.getReplyToSenderFirstName(), view.getReplyToSenderLastName(),
+                            view.getReplyToSenderProfilePictureUrl()),
+                    InboxEntry.snippetOf(view.getReplyToContent())));
+        }
+        return dto;
+    }
+
+    /**
+     * Archived rows keep only user ids; the caller loads the users of a whole
+     * page at once and passes the decompressed content.
+     */
+    public MessageDto toDto(ArchivedMessage archived, String content, Map<Long, User> users) {
+        MessageDto dto = new MessageDto();
+        dto.setId(archived.getId());
+        dto.setSender(summaryOf(archived.getSenderId(), users));
+        dto.setRecipient(summaryOf(archived.getRecipientId(), users));
+        dto.setContent(content);
+        dto.setStatus(archived.getStatus());
+        dto.setType(archived.getType());
+        dto.setCreatedAt(archived.getCreatedAt());
+        dto.setReadAt(archived.getReadAt());
+        dto.setConversationId(archived.getConversationId());
+        if (archived.getReplyToId() != null) {
+            dto.setReplyTo(new ReplyPreviewDto(archived.getReplyToId(),
+                    summaryOf(archived.getReplyToSenderId(), users), archived.getReplyToSnippet()));
+        }
+        return dto;
+    }
+
+    private UserDto summaryOf(Long userId, Map<Long, User> users) {
+        User user = users.get(userId);
+        return user != null ? userMapper.toSummary(user)
+                : userMapper.toSummary(userId, null, null, null, null);
+    }
+}
@@ -0,0 +1,47 @@
+package com.clipnest.messaging.mapper;
+
+import com.clipnest.messaging.dto.UserDto;
+import com.clipnest.messaging.entity.User;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+@Component
+public class UserMapper {
+
+    public UserDto toDto(User user) {
+        UserDto dto = new UserDto();
+        dto.setId(user.getId());
+        dto.setUsername(user.getUsername());
+        dto.setEmail(user.getEmail());
+        dto.setFirstName(user.getFirstName());
+        dto.setLastName(user.getLastName());
+        dto.setBio(user.getBio());
+        dto.setProfilePictureUrl(user.getProfilePictureUrl());
+        dto.setPrivate(user.isPrivate());
+        dto.setEmailVerified(user.isEmailVerified());
+        dto.setRole(Objects.toString(user.getRole(), null));
+        dto.setCreatedAt(user.getCreatedAt());
+        dto.setFollowerCount(user.getFollowerCount());
+        dto.setFollowingCount(user.getFollowingCount());
+        return dto;
+    }
+
+    /**
+     * Identity and display fields only, for users embedded in message payloads.
+     */
+    public UserDto toSummary(User user) {
+        return toSummary(user.getId(), user.getUsername(), user.getFirstName(), user.getLastName(),
+                user.getProfilePictureUrl());
+    }
+
+    public UserDto toSummary(Long id, String username, String firstName, String lastName, String profilePictureUrl) {
+        UserDto dto = new UserDto();
+        dto.setId(id);
+        dto.setUsername(username);
+        dto.setFirstName(firstName);
+        dto.setLastName(lastName);
+        dto.setProfilePictureUrl(profilePictureUrl);
+        return dto;
+    }
+}
@@ -0,0 +1,47 @@
+package com.clipnest.messaging.repository;
+
+import com.clipnest.messaging.entity.ArchivedMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+// Keyset reads mirroring the MessageRepository history queries, on the cold tier,
+// and the oldest-first prefixes and counts the offset pages merge with the hot tier
+@Repository
+public interface ArchivedMessageRepository extends JpaRepository<ArchivedMessage, Long> {
+
+    @Query("SELECT a FROM ArchivedMessage a WHERE a.threadKey = :threadKey AND a.id < :beforeId ORDER BY a.id DESC")
+    Slice<ArchivedMessage> findThreadBefore(@Param("threadKey") String threadKey,
+                                            @Param("beforeId") Long beforeId,
+                                            Pageable pageable);
+
+    @Query("SELECT a FROM ArchivedMessage a WHERE a.threadKey = :threadKey AND a.id > :afterId ORDER BY a.id ASC")
+    Slice<ArchivedMessage> findThreadAfter(@Param("threadKey") String threadKey,
+                                           @Param("afterId") Long afterId,
+                                           Pageable pageable);
+
+    @Query("SELECT a FROM ArchivedMessage a WHERE a.conversationId = :conversationId AND a.id < :beforeId " +
+           "ORDER BY a.id DESC")
+    Slice<ArchivedMessage> findConversationBefore(@Param("conversationId") Long conversationId,
+                                                  @Param("beforeId") Long beforeId,
+                                                  Pageable pageable);
+
+    @Query("SELECT a FROM ArchivedMessage a WHERE a.conversationId = :conversationId AND a.id > :afterId " +
+           "ORDER BY a.id ASC")
+    Slice<ArchivedMessage> findConversationAfter(@Param("conversationId") Long conversationId,
+                                                 @Param("afterId") Long afterId,
+                                                 Pageable pageable);
+
+    @Query("SELECT a FROM ArchivedMessage a WHERE a.threadKey = :threadKey ORDER BY a.id ASC")
+    Slice<ArchivedMessage> findThreadOldest(@Param("threadKey") String threadKey, Pageable pageable);
+
+    @Query("SELECT a FROM ArchivedMessage a WHERE a.conversationId = :conversationId ORDER BY a.id ASC")
+    Slice<ArchivedMessage> findConversationOldest(@Param("conversationId") Long conversationId, Pageable pageable);
+
+    long countByThreadKey(String threadKey);
+
+    long countByConversationId(Long conversationId);
+}
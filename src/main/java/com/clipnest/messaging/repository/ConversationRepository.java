@@ -4,16 +4,27 @@ import com.clipnest.messaging.entity.Conversation;
 import com.clipnest.messaging.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface ConversationRepository extends JpaRepository<Conversation, Long> {
     
-    @Query("SELECT c FROM Conversation c JOIN c.participants p WHERE p = :user ORDER BY c.updatedAt DESC")
-    Page<Conversation> findByParticipant(@Param("user") User user, Pageable pageable);
+    @EntityGraph(Conversation.WITH_MEMBERS)
+    Optional<Conversation> findWithMembersById(Long id);
+    
+    // Collections are not fetch-joined into a page (Hibernate would paginate in
+    // memory); the page's creators, participants and admins are batch fetched
+    // Filtering on p.id keeps the users table out of the join; the rows come
+    // from conversation_participants through its (user_id, conversation_id) index
+    @Query("SELECT c FROM Conversation c JOIN c.participants p WHERE p.id = :userId ORDER BY c.updatedAt DESC")
+    Page<Conversation> findByParticipant(@Param("userId") Long userId, Pageable pageable);
     
     @Query("SELECT c FROM Conversation c WHERE c.createdBy = :user ORDER BY c.createdAt DESC")
     Page<Conversation> findByCreatedBy(@Param("user") User user, Pageable pageable);
@@ -21,6 +32,9 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
     @Query("SELECT CASE WHEN COUNT(p) > 0 THEN true ELSE false END FROM Conversation c JOIN c.participants p WHERE c.id = :conversationId AND p.id = :userId")
     boolean isParticipant(@Param("conversationId") Long conversationId, @Param("userId") Long userId);
     
+    @Query("SELECT p.id FROM Conversation c JOIN c.participants p WHERE c.id = :conversationId")
+    List<Long> findParticipantIds(@Param("conversationId") Long conversationId);
+    
     @Query("SELECT CASE WHEN COUNT(a) > 0 THEN true ELSE false END FROM Conversation c JOIN c.admins a WHERE c.id = :conversationId AND a.id = :userId")
     boolean isAdmin(@Param("conversationId") Long conversationId, @Param("userId") Long userId);
 }
\ No newline at end of file
@@ -9,6 +9,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,7 +18,8 @@ public interface FollowRequestRepository extends JpaRepository<FollowRequest, Lo
     
     Optional<FollowRequest> findByRequesterAndRequestee(User requester, User requestee);
     
-    @Query("SELECT fr FROM FollowRequest fr WHERE fr.requestee = :user AND fr.status = 'PENDING' ORDER BY fr.createdAt DESC")
+    @Query(value = "SELECT fr FROM FollowRequest fr JOIN FETCH fr.requester WHERE fr.requestee = :user AND fr.status = 'PENDING' ORDER BY fr.createdAt DESC",
+           countQuery = "SELECT COUNT(fr) FROM FollowRequest fr WHERE fr.requestee = :user AND fr.status = 'PENDING'")
     Page<FollowRequest> findPendingRequestsForUser(@Param("user") User user, Pageable pageable);
     
     @Query("SELECT fr FROM FollowRequest fr WHERE fr.requester = :user ORDER BY fr.createdAt DESC")
@@ -26,4 +29,7 @@ public interface FollowRequestRepository extends JpaRepository<FollowRequest, Lo
     long countPendingRequestsForUser(@Param("user") User user);
     
     boolean existsByRequesterAndRequestee(User requester, User requestee);
+    
+    @Query("SELECT fr.requestee.id FROM FollowRequest fr WHERE fr.requester.id = :requesterId AND fr.requestee.id IN :ids")
+    List<Long> findRequesteeIdsAmong(@Param("requesterId") Long requesterId, @Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
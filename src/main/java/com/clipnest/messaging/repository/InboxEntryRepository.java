@@ -0,0 +1,74 @@
+package com.clipnest.messaging.repository;
+
+import com.clipnest.messaging.dto.InboxEntryDto;
+import com.clipnest.messaging.entity.InboxEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface InboxEntryRepository extends JpaRepository<InboxEntry, Long> {
+    
+    @Query("SELECT new com.clipnest.messaging.dto.InboxEntryDto(" +
+           "e.kind, e.peerId, u.username, u.firstName, u.lastName, u.profilePictureUrl, c.name, " +
+           "e.lastMessageId, e.lastMessageSnippet, e.lastSenderId, e.lastMessageAt, e.unreadCount) " +
+           "FROM InboxEntry e " +
+           "LEFT JOIN User u ON e.kind = 'DIRECT' AND u.id = e.peerId " +
+           "LEFT JOIN Conversation c ON e.kind = 'GROUP' AND c.id = e.peerId " +
+           "WHERE e.userId = :userId ORDER BY e.lastMessageAt DESC")
+    List<InboxEntryDto> findInbox(@Param("userId") Long userId, Pageable pageable);
+    
+    // Upsert of one entry for each of the users; the CASE guards keep the newest
+    // message when sends commit out of order
+    @Modifying
+    @Query(value = "INSERT INTO inbox_entries (user_id, kind, peer_id, last_message_id, last_message_snippet, " +
+                   "last_sender_id, last_message_at, unread_count) " +
+                   "SELECT u.id, :kind, :peerId, :messageId, :snippet, :senderId, :sentAt, :unreadDelta " +
+                   "FROM users u WHERE u.id IN (:userIds) " +
+                   "ON DUPLICATE KEY UPDATE " +
+                   "last_message_snippet = CASE WHEN last_message_id IS NULL OR last_message_id < :messageId " +
+                   "THEN :snippet ELSE last_message_snippet END, " +
+                   "last_sender_id = CASE WHEN last_message_id IS NULL OR last_message_id < :messageId " +
+                   "THEN :senderId ELSE last_sender_id END, " +
+                   "last_message_at = CASE WHEN last_message_id IS NULL OR last_message_id < :messageId " +
+                   "THEN :sentAt ELSE last_message_at END, " +
+                   "last_message_id = CASE WHEN last_message_id IS NULL OR last_message_id < :messageId " +
+                   "THEN :messageId ELSE last_message_id END, " +
+                   "unread_count = unread_count + :unreadDelta",
+           nativeQuery = true)
+    void upsert(@Param("userIds") Collection<Long> userIds,
+                @Param("kind") String kind,
+                @Param("peerId") Long peerId,
+                @Param("messageId") Long messageId,
+                @Param("snippet") String snippet,
+                @Param("senderId") Long senderId,
+                @Param("sentAt") LocalDateTime sentAt,
+                @Param("unreadDelta") long unreadDelta);
+    
+    // Recounts the unread messages of every entry of a user in one statement,
+    // so upserts from concurrent sends wait for it instead of being overwritten
+    @Modifying
+    @Query(value = "UPDATE inbox_entries e SET unread_count = (" +
+                   "SELECT COUNT(*) FROM messages m WHERE m.recipient_id = e.user_id AND m.read_at IS NULL " +
+                   "AND ((e.kind = 'DIRECT' AND m.conversation_id IS NULL AND m.sender_id = e.peer_id) " +
+                   "OR (e.kind = 'GROUP' AND m.conversation_id = e.peer_id))) " +
+                   "WHERE e.user_id = :userId",
+           nativeQuery = true)
+    int recountUnread(@Param("userId") Long userId);
+    
+    @Modifying
+    @Query("UPDATE InboxEntry e SET e.unreadCount = " +
+           "CASE WHEN e.unreadCount > :delta THEN e.unreadCount - :delta ELSE 0 END " +
+           "WHERE e.userId = :userId AND e.kind = :kind AND e.peerId = :peerId")
+    int decrementUnread(@Param("userId") Long userId,
+                        @Param("kind") InboxEntry.Kind kind,
+                        @Param("peerId") Long peerId,
+                        @Param("delta") long delta);
+}
@@ -1,48 +1,125 @@
 package com.clipnest.messaging.repository;
 
+import com.clipnest.messaging.entity.InboxEntry;
 import com.clipnest.messaging.entity.Message;
-import com.clipnest.messaging.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
     
-    @Query("SELECT m FROM Message m WHERE " +
-           "(m.sender = :user1 AND m.recipient = :user2) OR " +
-           "(m.sender = :user2 AND m.recipient = :user1) " +
-           "ORDER BY m.createdAt ASC")
-    Page<Message> findConversationBetweenUsers(@Param("user1") User user1, 
-                                               @Param("user2") User user2, 
-                                               Pageable pageable);
-    
-    @Query("SELECT m FROM Message m WHERE m.conversation.id = :conversationId ORDER BY m.createdAt ASC")
-    Page<Message> findByConversationId(@Param("conversationId") Long conversationId, Pageable pageable);
-    
-    @Query("SELECT m FROM Message m WHERE m.recipient = :user AND m.readAt IS NULL")
-    List<Message> findUnreadMessages(@Param("user") User user);
-    
-    @Query("SELECT COUNT(m) FROM Message m WHERE m.recipient = :user AND m.readAt IS NULL")
-    long countUnreadMessages(@Param("user") User user);
-    
-    @Query("SELECT DISTINCT CASE " +
-           "WHEN m.sender = :user THEN m.recipient " +
-           "ELSE m.sender END " +
-           "FROM Message m WHERE m.sender = :user OR m.recipient = :user " +
-           "ORDER BY MAX(m.createdAt) DESC")
-    List<User> findRecentConversationPartners(@Param("user") User user, Pageable pageable);
-    
-    @Query("SELECT m FROM Message m WHERE " +
-           "(m.sender = :user1 AND m.recipient = :user2) OR " +
-           "(m.sender = :user2 AND m.recipient = :user1) " +
-           "ORDER BY m.createdAt DESC")
-    List<Message> findLatestMessageBetweenUsers(@Param("user1") User user1, 
-                                                @Param("user2") User user2, 
-                                                Pageable pageable);
+    // Message pages are read as MessageView rows: the message columns, the
+    // sender and recipient summaries and a one-level reply preview, in one
+    // statement and without entities. Only the start of a replied-to message
+    // is read, one character past the snippet length so truncation shows.
+    String VIEW_SELECT = "SELECT new com.clipnest.messaging.repository.MessageView(" +
+            "m.id, m.content, CAST(m.status AS String), CAST(m.type AS String), m.createdAt, m.readAt, " +
+            "m.conversation.id, " +
+            "s.id, s.username, s.firstName, s.lastName, s.profilePictureUrl, " +
+            "r.id, r.username, r.firstName, r.lastName, r.profilePictureUrl, " +
+            "rt.id, SUBSTRING(rt.content, 1, " + (InboxEntry.SNIPPET_LENGTH + 1) + "), " +
+            "rs.id, rs.username, rs.firstName, rs.lastName, rs.profilePictureUrl) " +
+            "FROM Message m JOIN m.sender s JOIN m.recipient r " +
+            "LEFT JOIN m.replyTo rt LEFT JOIN rt.sender rs ";
+    
+    // Messages either way between two users, by the Message.threadKey of the pair
+    String BETWEEN_USERS = "m.threadKey = :threadKey ";
+    
+    @Query(value = VIEW_SELECT + "WHERE " + BETWEEN_USERS + "ORDER BY m.createdAt ASC, m.id ASC",
+           countQuery = "SELECT COUNT(m) FROM Message m WHERE " + BETWEEN_USERS)
+    Page<MessageView> findConversationBetweenUsers(@Param("threadKey") String threadKey, Pageable pageable);
+    
+    @Query(value = VIEW_SELECT + "WHERE m.conversation.id = :conversationId ORDER BY m.createdAt ASC, m.id ASC",
+           countQuery = "SELECT COUNT(m) FROM Message m WHERE m.conversation.id = :conversationId")
+    Page<MessageView> findByConversationId(@Param("conversationId") Long conversationId, Pageable pageable);
+    
+    // Keyset (cursor) variants: seek on the primary key instead of skipping OFFSET rows
+    // and return a Slice so no COUNT query is issued.
+    @Query(VIEW_SELECT + "WHERE " + BETWEEN_USERS + "AND m.id < :beforeId ORDER BY m.id DESC")
+    Slice<MessageView> findConversationBetweenUsersBefore(@Param("threadKey") String threadKey,
+                                                          @Param("beforeId") Long beforeId,
+                                                          Pageable pageable);
+    
+    @Query(VIEW_SELECT + "WHERE " + BETWEEN_USERS + "AND m.id > :afterId ORDER BY m.id ASC")
+    Slice<MessageView> findConversationBetweenUsersAfter(@Param("threadKey") String threadKey,
+                                                         @Param("afterId") Long afterId,
+                                                         Pageable pageable);
+    
+    @Query(VIEW_SELECT + "WHERE m.conversation.id = :conversationId AND m.id < :beforeId ORDER BY m.id DESC")
+    Slice<MessageView> findByConversationIdBefore(@Param("conversationId") Long conversationId,
+                                                  @Param("beforeId") Long beforeId,
+                                                  Pageable pageable);
+    
+    @Query(VIEW_SELECT + "WHERE m.conversation.id = :conversationId AND m.id > :afterId ORDER BY m.id ASC")
+    Slice<MessageView> findByConversationIdAfter(@Param("conversationId") Long conversationId,
+                                                 @Param("afterId") Long afterId,
+                                                 Pageable pageable);
+    
+    // Single-message lookups that go on to build a MessageDto fetch its
+    // associations in the same statement instead of one proxy load each
+    @EntityGraph(Message.WITH_USERS)
+    Optional<Message> findWithUsersById(Long id);
+    
+    @EntityGraph(attributePaths = "sender")
+    Optional<Message> findWithSenderById(Long id);
+    
+    @Query("SELECT m.id, m.content FROM Message m WHERE m.id IN :ids")
+    List<Object[]> findContents(@Param("ids") Collection<Long> ids);
+    
+    // Cold rows for MessageArchiver, walked by id: read, older than the cutoff
+    // and not replied to by a row still here, whose foreign key would block the delete
+    @Query("SELECT m FROM Message m LEFT JOIN FETCH m.replyTo " +
+           "WHERE m.id > :afterId AND m.createdAt < :cutoff AND m.readAt IS NOT NULL " +
+           "AND NOT EXISTS (SELECT r.id FROM Message r WHERE r.replyTo = m) ORDER BY m.id")
+    List<Message> findArchivable(@Param("cutoff") LocalDateTime cutoff,
+                                 @Param("afterId") Long afterId,
+                                 Pageable pageable);
+    
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Message m SET m.readAt = :readAt, m.status = 'READ' " +
+           "WHERE m.recipient.id = :recipientId AND m.sender.id = :senderId " +
+           "AND m.conversation IS NULL AND m.readAt IS NULL")
+    int markDirectMessagesAsRead(@Param("recipientId") Long recipientId,
+                                 @Param("senderId") Long senderId,
+                                 @Param("readAt") LocalDateTime readAt);
+    
+    @Query("SELECT m.sender.username, COUNT(m) FROM Message m " +
+           "WHERE m.recipient.id = :recipientId AND m.conversation.id = :conversationId AND m.readAt IS NULL " +
+           "GROUP BY m.sender.username")
+    List<Object[]> countUnreadGroupMessagesBySender(@Param("recipientId") Long recipientId,
+                                                    @Param("conversationId") Long conversationId);
+    
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Message m SET m.readAt = :readAt, m.status = 'READ' " +
+           "WHERE m.recipient.id = :recipientId AND m.conversation.id = :conversationId AND m.readAt IS NULL")
+    int markGroupMessagesAsRead(@Param("recipientId") Long recipientId,
+                                @Param("conversationId") Long conversationId,
+                                @Param("readAt") LocalDateTime readAt);
+    
+    @Query("SELECT m FROM Message m WHERE m.id IN (" +
+           "SELECT MAX(m2.id) FROM Message m2 " +
+           "WHERE m2.conversation IS NULL AND (m2.sender.id = :userId OR m2.recipient.id = :userId) " +
+           "GROUP BY CASE WHEN m2.sender.id = :userId THEN m2.recipient.id ELSE m2.sender.id END)")
+    List<Message> findLatestDirectMessagesPerPartner(@Param("userId") Long userId);
+    
+    @Query("SELECT m FROM Message m WHERE m.id IN (" +
+           "SELECT MAX(m2.id) FROM Message m2 WHERE m2.conversation.id IN (" +
+           "SELECT c.id FROM Conversation c JOIN c.participants p WHERE p.id = :userId) " +
+           "GROUP BY m2.conversation.id)")
+    List<Message> findLatestGroupMessagesForParticipant(@Param("userId") Long userId);
+    
+    @Query("SELECT m FROM Message m WHERE m.threadKey = :threadKey ORDER BY m.createdAt DESC")
+    List<Message> findLatestMessageBetweenUsers(@Param("threadKey") String threadKey, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.clipnest.messaging.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * A message row with its sender and recipient summaries, selected by a JPQL
+ * constructor expression so only the columns the payload needs are read and
+ * no entities are managed. For a reply it also carries the replied-to
+ * message's id, sender and the start of its content, enough for a preview.
+ */
+public class MessageView {
+
+    private final Long id;
+    private final String content;
+    private final String status;
+    private final String type;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime readAt;
+    private final Long conversationId;
+    private final Long senderId;
+    private final String senderUsername;
+    private final String senderFirstName;
+    private final String senderLastName;
+    private final String senderProfilePictureUrl;
+    private final Long recipientId;
+    private final String recipientUsername;
+    private final String recipientFirstName;
+    private final String recipientLastName;
+    private final String recipientProfilePictureUrl;
+    private final Long replyToId;
+    private final String replyToContent;
+    private final Long replyToSenderId;
+    private final String replyToSenderUsername;
+    private final String replyToSenderFirstName;
+    private final String replyToSenderLastName;
+    private final String replyToSenderProfilePictureUrl;
+
+    public MessageView(Long id, String content, String status, String type, LocalDateTime createdAt,
+                       LocalDateTime readAt, Long conversationId, Long senderId, String senderUsername,
+                       String senderFirstName, String senderLastName, String senderProfilePictureUrl,
+                       Long recipientId, String recipientUsername, String recipientFirstName,
+                       String recipientLastName, String recipientProfilePictureUrl, Long replyToId,
+                       String replyToContent, Long replyToSenderId, String replyToSenderUsername,
+                       String replyToSenderFirstName, String replyToSenderLastName,
+                       String replyToSenderProfilePictureUrl) {
+        this.id = id;
+        this.content = content;
+        this.status = status;
+        this.type = type;
+        this.createdAt = createdAt;
+        this.readAt = readAt;
+        this.conversationId = conversationId;
+        this.senderId = senderId;
+        this.senderUsername = senderUsername;
+        this.senderFirstName = senderFirstName;
+        this.senderLastName = senderLastName;
+        this.senderProfilePictureUrl = senderProfilePictureUrl;
+        this.recipientId = recipientId;
+        this.recipientUsername = recipientUsername;
+        this.recipientFirstName = recipientFirstName;
+        this.recipientLastName = recipientLastName;
+        this.recipientProfilePictureUrl = recipientProfilePictureUrl;
+        this.replyToId = replyToId;
+        this.replyToContent = replyToContent;
+        this.replyToSenderId = replyToSenderId;
+        this.replyToSenderUsername = replyToSenderUsername;
+        this.replyToSenderFirstName = replyToSenderFirstName;
+        this.replyToSenderLastName = replyToSenderLastName;
+        this.replyToSenderProfilePictureUrl = replyToSenderProfilePictureUrl;
+    }
+
+    public Long getId() { return id; }
+    public String getContent() { return content; }
+    public String getStatus() { return status; }
+    public String getType() { return type; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getReadAt() { return readAt; }
+    public Long getConversationId() { return conversationId; }
+    public Long getSenderId() { return senderId; }
+    public String getSenderUsername() { return senderUsername; }
+    public String getSenderFirstName() { return senderFirstName; }
+    public String getSenderLastName() { return senderLastName; }
+    public String getSenderProfilePictureUrl() { return senderProfilePictureUrl; }
+    public Long getRecipientId() { return recipientId; }
+    public String getRecipientUsername() { return recipientUsername; }
+    public String getRecipientFirstName() { return recipientFirstName; }
+    public String getRecipientLastName() { return recipientLastName; }
+    public String getRecipientProfilePictureUrl() { return recipientProfilePictureUrl; }
+    public Long getReplyToId() { return replyToId; }
+    public String getReplyToContent() { return replyToContent; }
+    public Long getReplyToSenderId() { return replyToSenderId; }
+    public String getReplyToSenderUsername() { return replyToSenderUsername; }
+    public String getReplyToSenderFirstName() { return replyToSenderFirstName; }
+    public String getReplyToSenderLastName() { return replyToSenderLastName; }
+    public String getReplyToSenderProfilePictureUrl() { return replyToSenderProfilePictureUrl; }
+}
@@ -0,0 +1,59 @@
+package com.clipnest.messaging.repository;
+
+import com.clipnest.messaging.entity.UnreadCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface UnreadCounterRepository extends JpaRepository<UnreadCounter, Long> {
+    
+    Optional<UnreadCounter> findByUserIdAndScopeAndScopeId(Long userId, UnreadCounter.Scope scope, Long scopeId);
+    
+    // Upsert so concurrent first messages to the same user cannot race on the unique key
+    @Modifying
+    @Query(value = "INSERT INTO unread_counters (user_id, scope, scope_id, unread_count) " +
+                   "VALUES (:userId, :scope, :scopeId, :delta) " +
+                   "ON DUPLICATE KEY UPDATE unread_count = unread_count + :delta",
+           nativeQuery = true)
+    void increment(@Param("userId") Long userId,
+                   @Param("scope") String scope,
+                   @Param("scopeId") Long scopeId,
+                   @Param("delta") long delta);
+    
+    // The counters for a user's unread sources that do not exist yet, at zero
+    @Modifying
+    @Query(value = "INSERT INTO unread_counters (user_id, scope, scope_id, unread_count) " +
+                   "SELECT DISTINCT m.recipient_id, " +
+                   "CASE WHEN m.conversation_id IS NULL THEN 'DIRECT' ELSE 'GROUP' END, " +
+                   "COALESCE(m.conversation_id, m.sender_id), 0 " +
+                   "FROM messages m WHERE m.recipient_id = :userId AND m.read_at IS NULL " +
+                   "ON DUPLICATE KEY UPDATE unread_count = unread_count",
+           nativeQuery = true)
+    void insertMissing(@Param("userId") Long userId);
+    
+    // Recounts every counter of a user from the messages table in one statement,
+    // so increments from concurrent sends wait for it instead of being overwritten
+    @Modifying
+    @Query(value = "UPDATE unread_counters c SET unread_count = (" +
+                   "SELECT COUNT(*) FROM messages m WHERE m.recipient_id = c.user_id AND m.read_at IS NULL " +
+                   "AND (c.scope = 'TOTAL' " +
+                   "OR (c.scope = 'DIRECT' AND m.conversation_id IS NULL AND m.sender_id = c.scope_id) " +
+                   "OR (c.scope = 'GROUP' AND m.conversation_id = c.scope_id))) " +
+                   "WHERE c.user_id = :userId",
+           nativeQuery = true)
+    int recount(@Param("userId") Long userId);
+    
+    @Modifying
+    @Query("UPDATE UnreadCounter c SET c.unreadCount = " +
+           "CASE WHEN c.unreadCount > :delta THEN c.unreadCount - :delta ELSE 0 END " +
+           "WHERE c.userId = :userId AND c.scope = :scope AND c.scopeId = :scopeId")
+    int decrement(@Param("userId") Long userId,
+                  @Param("scope") UnreadCounter.Scope scope,
+                  @Param("scopeId") Long scopeId,
+                  @Param("delta") long delta);
+}
@@ -0,0 +1,65 @@
+package com.clipnest.messaging.repository;
+
+import com.clipnest.messaging.entity.UserFollow;
+import com.clipnest.messaging.entity.UserFollowId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UserFollowRepository extends JpaRepository<UserFollow, UserFollowId> {
+
+    default boolean isFollowing(Long followerId, Long followingId) {
+        return existsById(new UserFollowId(followerId, followingId));
+    }
+
+    // Returns 0 instead of failing when the follow already exists, so concurrent
+    // follows of the same user insert, and count, one row. Unlike INSERT IGNORE
+    // this only passes over the duplicate key, not other errors such as a
+    // missing user. Relies on useAffectedRows in the JDBC URL, without which
+    // MySQL reports the untouched duplicate as 1 row.
+    @Modifying
+    @Query(value = "INSERT INTO user_follows (follower_id, following_id, created_at) " +
+                   "VALUES (:followerId, :followingId, :createdAt) " +
+                   "ON DUPLICATE KEY UPDATE follower_id = follower_id", nativeQuery = true)
+    int insertFollow(@Param("followerId") Long followerId,
+                     @Param("followingId") Long followingId,
+                     @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query("DELETE FROM UserFollow f WHERE f.id.followerId = :followerId AND f.id.followingId = :followingId")
+    int deleteFollow(@Param("followerId") Long followerId, @Param("followingId") Long followingId);
+
+    @Query("SELECT f.id.followingId FROM UserFollow f WHERE f.id.followerId = :userId AND f.id.followingId IN :ids")
+    List<Long> findFollowingIdsAmong(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    @Query("SELECT f.id.followerId FROM UserFollow f WHERE f.id.followingId = :userId AND f.id.followerId IN :ids")
+    List<Long> findFollowerIdsAmong(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    // Keyset pages, newest follow first; (createdAt, other user id) is the seek key
+    @Query("SELECT f FROM UserFollow f JOIN FETCH f.follower " +
+           "WHERE f.id.followingId = :userId AND (f.createdAt < :before " +
+           "OR (f.createdAt = :before AND f.id.followerId < :beforeUserId)) " +
+           "ORDER BY f.createdAt DESC, f.id.followerId DESC")
+    Slice<UserFollow> findFollowersBefore(@Param("userId") Long userId,
+                                          @Param("before") LocalDateTime before,
+                                          @Param("beforeUserId") Long beforeUserId,
+                                          Pageable pageable);
+
+    @Query("SELECT f FROM UserFollow f JOIN FETCH f.following " +
+           "WHERE f.id.followerId = :userId AND (f.createdAt < :before " +
+           "OR (f.createdAt = :before AND f.id.followingId < :beforeUserId)) " +
+           "ORDER BY f.createdAt DESC, f.id.followingId DESC")
+    Slice<UserFollow> findFollowingBefore(@Param("userId") Long userId,
+                                          @Param("before") LocalDateTime before,
+                                          @Param("beforeUserId") Long beforeUserId,
+                                          Pageable pageable);
+}
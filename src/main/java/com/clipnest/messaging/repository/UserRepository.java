@@ -4,10 +4,13 @@ import com.clipnest.messaging.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -21,18 +24,53 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     boolean existsByEmail(String email);
     
+    List<User> findByUsernameStartingWithOrderByUsername(String prefix, Pageable pageable);
+    
     @Query("SELECT u FROM User u WHERE u.username LIKE %:query% OR u.firstName LIKE %:query% OR u.lastName LIKE %:query%")
     Page<User> searchUsers(@Param("query") String query, Pageable pageable);
     
-    @Query("SELECT u FROM User u WHERE u.id IN :userIds")
-    Page<User> findUsersByIds(@Param("userIds") Iterable<Long> userIds, Pageable pageable);
+    @Query("SELECT u.id, u.username, u.firstName, u.lastName, u.followerCount FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Object[]> findSearchFieldsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT u.id, u.username, u.firstName, u.lastName, u.followerCount FROM User u WHERE u.updatedAt >= :since")
+    List<Object[]> findSearchFieldsUpdatedSince(@Param("since") LocalDateTime since);
+    
+    @Query("SELECT u.id, u.username, u.firstName, u.lastName, u.followerCount FROM User u " +
+           "WHERE u.followerCountChangedAt >= :since")
+    List<Object[]> findSearchFieldsWithFollowerCountChangedSince(@Param("since") LocalDateTime since);
+    
+    @Query("SELECT u.id FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query(value = "SELECT u FROM UserFollow f JOIN f.follower u WHERE f.id.followingId = :userId " +
+                   "ORDER BY f.createdAt DESC, f.id.followerId DESC",
+           countQuery = "SELECT COUNT(f) FROM UserFollow f WHERE f.id.followingId = :userId")
+    Page<User> findFollowers(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query(value = "SELECT u FROM UserFollow f JOIN f.following u WHERE f.id.followerId = :userId " +
+                   "ORDER BY f.createdAt DESC, f.id.followingId DESC",
+           countQuery = "SELECT COUNT(f) FROM UserFollow f WHERE f.id.followerId = :userId")
+    Page<User> findFollowing(@Param("userId") Long userId, Pageable pageable);
     
-    @Query("SELECT COUNT(f) FROM User u JOIN u.followers f WHERE u.id = :userId")
-    long countFollowers(@Param("userId") Long userId);
+    // follower_count_changed_at is how other nodes' suggestion indexes see the new count
+    @Modifying
+    @Query("UPDATE User u SET u.followerCount = u.followerCount + :delta, " +
+           "u.followerCountChangedAt = CURRENT_TIMESTAMP WHERE u.id = :userId")
+    int adjustFollowerCount(@Param("userId") Long userId, @Param("delta") int delta);
     
-    @Query("SELECT COUNT(f) FROM User u JOIN u.following f WHERE u.id = :userId")
-    long countFollowing(@Param("userId") Long userId);
+    @Modifying
+    @Query("UPDATE User u SET u.followingCount = u.followingCount + :delta WHERE u.id = :userId")
+    int adjustFollowingCount(@Param("userId") Long userId, @Param("delta") int delta);
     
-    @Query("SELECT CASE WHEN COUNT(f) > 0 THEN true ELSE false END FROM User u JOIN u.following f WHERE u.id = :followerId AND f.id = :followingId")
-    boolean isFollowing(@Param("followerId") Long followerId, @Param("followingId") Long followingId);
+    @Modifying
+    // The marker comes first: MySQL evaluates SET clauses left to right, so it
+    // must compare against the follower count before it is overwritten
+    @Query("UPDATE User u SET " +
+           "u.followerCountChangedAt = CASE WHEN u.followerCount <> " +
+           "(SELECT COUNT(f) FROM UserFollow f WHERE f.id.followingId = u.id) " +
+           "THEN CURRENT_TIMESTAMP ELSE u.followerCountChangedAt END, " +
+           "u.followerCount = (SELECT COUNT(f) FROM UserFollow f WHERE f.id.followingId = u.id), " +
+           "u.followingCount = (SELECT COUNT(f) FROM UserFollow f WHERE f.id.followerId = u.id) " +
+           "WHERE u.id IN :userIds")
+    int recountFollowCounts(@Param("userIds") List<Long> userIds);
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.clipnest.messaging.repository;
+
+import com.clipnest.messaging.entity.UserSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UserSessionRepository extends JpaRepository<UserSession, Long> {
+
+    // (username, node id) pairs
+    @Query("SELECT DISTINCT s.username, s.nodeId FROM UserSession s " +
+           "WHERE s.username IN :usernames AND s.lastSeenAt > :since")
+    List<Object[]> findActiveNodeIds(@Param("usernames") Collection<String> usernames,
+                                     @Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM UserSession s " +
+           "WHERE s.nodeId = :nodeId AND s.sessionId = :sessionId AND s.username = :username")
+    int deleteSession(@Param("nodeId") String nodeId,
+                      @Param("sessionId") String sessionId,
+                      @Param("username") String username);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UserSession s WHERE s.nodeId = :nodeId")
+    int deleteByNodeId(@Param("nodeId") String nodeId);
+
+    @Modifying
+    @Query("UPDATE UserSession s SET s.lastSeenAt = :now WHERE s.nodeId = :nodeId")
+    int touchNode(@Param("nodeId") String nodeId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM UserSession s WHERE s.lastSeenAt < :cutoff")
+    int deleteStale(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,57 @@
+package com.clipnest.messaging.security;
+
+import com.clipnest.messaging.service.ConversationMembershipCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.regex.Matcher;
+
+/**
+ * Drops /topic/conversations/{id} frames on their way to a session whose user
+ * is no longer a participant. Membership is checked at SUBSCRIBE, but a user
+ * removed from a conversation keeps the subscription; the check here uses the
+ * same membership cache, so it costs a map lookup per frame.
+ */
+@Component
+public class ConversationTopicOutboundInterceptor implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversationTopicOutboundInterceptor.class);
+
+    @Autowired
+    private StompAuthChannelInterceptor authInterceptor;
+
+    @Autowired
+    private ConversationMembershipCache membershipCache;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        if (SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        if (destination == null) {
+            return message;
+        }
+        Matcher matcher = StompAuthChannelInterceptor.CONVERSATION_TOPIC.matcher(destination);
+        if (!matcher.matches()) {
+            return message;
+        }
+
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        Long userId = sessionId != null ? authInterceptor.getUserId(sessionId) : null;
+        if (userId == null || !membershipCache.isParticipant(Long.valueOf(matcher.group(1)), userId)) {
+            logger.debug("Dropped {} frame for session {}", destination, sessionId);
+            return null;
+        }
+        return message;
+    }
+}
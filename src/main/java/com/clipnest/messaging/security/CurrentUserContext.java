@@ -0,0 +1,48 @@
+package com.clipnest.messaging.security;
+
+import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.exception.ResourceNotFoundException;
+import com.clipnest.messaging.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * The authenticated user of the current request, read from the principal the
+ * security filter bound to the thread. Most callers only need the id or a
+ * reference to use in queries and associations; the full row is loaded only
+ * when asked for.
+ */
+@Component
+public class CurrentUserContext {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    public UserPrincipal getPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return (UserPrincipal) authentication.getPrincipal();
+    }
+
+    public Long getUserId() {
+        return getPrincipal().getId();
+    }
+
+    public String getUsername() {
+        return getPrincipal().getUsername();
+    }
+
+    /**
+     * Uninitialized proxy; no SELECT is issued unless a property other than
+     * the id is read.
+     */
+    public User getReference() {
+        return userRepository.getReferenceById(getUserId());
+    }
+
+    public User load() {
+        return userRepository.findById(getUserId())
+                .orElseThrow(() -> new ResourceNotFoundException("Current user not found"));
+    }
+}
@@ -2,101 +2,188 @@ package com.clipnest.messaging.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import javax.crypto.SecretKey;
+import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 
+/**
+ * Issues and verifies JWTs. Signing keys and the parser are built once at
+ * startup. With app.jwt.keys set, tokens are signed with the active key and
+ * carry its id in the kid header, and any configured key verifies tokens that
+ * name it, so keys can be rotated without logging users out. Tokens without a
+ * kid are verified with app.jwt.secret; once keys are set they are accepted only
+ * until app.jwt.legacy-accepted-until, so the old secret can be retired.
+ */
 @Component
 public class JwtUtils {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
-    
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
-    
+
+    @Value("${app.jwt.keys}")
+    private String jwtKeys;
+
+    @Value("${app.jwt.active-kid}")
+    private String activeKid;
+
+    @Value("${app.jwt.legacy-accepted-until}")
+    private String legacyAcceptedUntil;
+
     @Value("${app.jwt.expiration}")
     private int jwtExpirationMs;
-    
+
     @Value("${app.jwt.refresh-expiration}")
     private int refreshExpirationMs;
-    
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+
+    private SecretKey legacyKey;
+    private Map<String, SecretKey> keysById;
+    private SecretKey signingKey;
+    private Instant legacyCutoff;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        legacyKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        keysById = parseKeys(jwtKeys);
+
+        if (keysById.isEmpty()) {
+            activeKid = null;
+            signingKey = legacyKey;
+            legacyCutoff = Instant.MAX;
+        } else {
+            legacyCutoff = StringUtils.hasText(legacyAcceptedUntil) ? Instant.parse(legacyAcceptedUntil) : Instant.MIN;
+            signingKey = keysById.get(activeKid);
+            if (signingKey == null) {
+                throw new IllegalStateException("app.jwt.active-kid must name one of app.jwt.keys");
+            }
+        }
+
+        parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(ProtectedHeader header) {
+                        String kid = header.getKeyId();
+                        if (kid == null) {
+                            if (!Instant.now().isBefore(legacyCutoff)) {
+                                throw new UnsupportedJwtException("Tokens without a signing key id are no longer accepted");
+                            }
+                            return legacyKey;
+                        }
+                        SecretKey key = keysById.get(kid);
+                        if (key == null) {
+                            throw new UnsupportedJwtException("Unknown signing key id: " + kid);
+                        }
+                        return key;
+                    }
+                })
+                .build();
     }
-    
+
+    /**
+     * Parses "kid:secret" pairs separated by commas.
+     */
+    private static Map<String, SecretKey> parseKeys(String spec) {
+        Map<String, SecretKey> keys = new HashMap<>();
+        if (!StringUtils.hasText(spec)) {
+            return keys;
+        }
+        for (String entry : spec.split(",")) {
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalStateException("app.jwt.keys entries must be kid:secret");
+            }
+            keys.put(entry.substring(0, separator).trim(), Keys.hmacShaKeyFor(entry.substring(separator + 1).trim().getBytes()));
+        }
+        return keys;
+    }
+
     public String generateJwtToken(Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-        
-        return Jwts.builder()
-                .subject(userPrincipal.getUsername())
-                .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(getSigningKey())
-                .compact();
+        return buildToken(userPrincipal.getUsername(), jwtExpirationMs);
     }
-    
+
     public String generateJwtToken(String username) {
-        return Jwts.builder()
-                .subject(username)
-                .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(getSigningKey())
-                .compact();
+        return buildToken(username, jwtExpirationMs);
     }
-    
+
     public String generateRefreshToken(String username) {
-        return Jwts.builder()
-                .subject(username)
+        return buildToken(username, refreshExpirationMs);
+    }
+
+    private String buildToken(String subject, long validityMs) {
+        JwtBuilder builder = Jwts.builder();
+        if (activeKid != null) {
+            builder.header().keyId(activeKid);
+        }
+        return builder
+                .subject(subject)
                 .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + refreshExpirationMs))
-                .signWith(getSigningKey())
+                .expiration(new Date(System.currentTimeMillis() + validityMs))
+                .signWith(signingKey)
                 .compact();
     }
-    
+
+    /**
+     * Verifies the token and returns its claims; throws if it is invalid.
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
     public String getUsernameFromJwtToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
+        return parseClaims(token).getSubject();
     }
-    
+
     public boolean validateJwtToken(String authToken) {
+        return getValidatedClaims(authToken) != null;
+    }
+
+    /**
+     * Verifies the token and returns its subject, or null when it is invalid,
+     * so callers needing both only parse the token once.
+     */
+    public String getValidatedUsername(String authToken) {
+        Claims claims = getValidatedClaims(authToken);
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    private Claims getValidatedClaims(String authToken) {
         try {
-            Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(authToken);
-            return true;
+            return parseClaims(authToken);
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
             logger.error("JWT token is expired: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
             logger.error("JWT token is unsupported: {}", e.getMessage());
+        } catch (SecurityException e) {
+            logger.error("Invalid JWT signature: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
         }
-        return false;
+        return null;
     }
-    
+
     public Date getExpirationDateFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getExpiration();
+        return parseClaims(token).getExpiration();
     }
-    
+
     public boolean isTokenExpired(String token) {
         Date expiration = getExpirationDateFromToken(token);
         return expiration.before(new Date());
     }
-}
\ No newline at end of file
+}
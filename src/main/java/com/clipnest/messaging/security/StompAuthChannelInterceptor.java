@@ -0,0 +1,159 @@
+package com.clipnest.messaging.security;
+
+import com.clipnest.messaging.service.ConversationMembershipCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Authenticates STOMP CONNECT frames from the Authorization native header and
+ * only lets conversation participants subscribe to /topic/conversations/{id}.
+ * Clients may SEND to /app destinations only and may not subscribe to raw
+ * queues, so node queues and topics carry only what the server put there.
+ * Every session must authenticate: all user queues and conversation topics
+ * need a user, so an anonymous session could only reach /topic/public.
+ * The user id of each session is kept for ConversationTopicOutboundInterceptor,
+ * which repeats the participant check on every conversation frame.
+ * While a handler runs, the session's user is bound to the security context
+ * so @MessageMapping methods see the same CurrentUserContext as HTTP calls.
+ */
+@Component
+public class StompAuthChannelInterceptor implements ExecutorChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(StompAuthChannelInterceptor.class);
+
+    public static final String APPLICATION_PREFIX = "/app/";
+
+    static final Pattern CONVERSATION_TOPIC = Pattern.compile("^/topic/conversations/(\\d+)$");
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserPrincipalCache principalCache;
+
+    @Autowired
+    private ConversationMembershipCache membershipCache;
+
+    private final Map<String, Long> userIdsBySession = new ConcurrentHashMap<>();
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null) {
+            return message;
+        }
+
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            authenticate(accessor);
+        } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            authorizeSubscription(accessor);
+        } else if (StompCommand.SEND.equals(accessor.getCommand())) {
+            authorizeSend(accessor);
+        } else if (StompCommand.DISCONNECT.equals(accessor.getCommand()) && accessor.getSessionId() != null) {
+            userIdsBySession.remove(accessor.getSessionId());
+        }
+
+        return message;
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        if (SimpMessageHeaderAccessor.getUser(message.getHeaders()) instanceof Authentication authentication) {
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler,
+                                    Exception ex) {
+        SecurityContextHolder.clearContext();
+    }
+
+    private void authenticate(StompHeaderAccessor accessor) {
+        String header = accessor.getFirstNativeHeader("Authorization");
+        if (!StringUtils.hasText(header) || !header.startsWith("Bearer ")) {
+            throw new AccessDeniedException("Missing bearer token");
+        }
+
+        String username = jwtUtils.getValidatedUsername(header.substring(7));
+        if (username == null) {
+            throw new AccessDeniedException("Invalid token");
+        }
+
+        UserDetails userDetails = principalCache.get(username);
+        accessor.setUser(new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+        if (userDetails instanceof UserPrincipal principal && accessor.getSessionId() != null) {
+            userIdsBySession.put(accessor.getSessionId(), principal.getId());
+        }
+    }
+
+    /**
+     * The user a connected session authenticated as, or null once it has
+     * disconnected.
+     */
+    public Long getUserId(String sessionId) {
+        return userIdsBySession.get(sessionId);
+    }
+
+    /**
+     * Clients only send to @MessageMapping handlers. A SEND straight to a
+     * broker destination would reach other users unchecked: a made-up routed
+     * frame on a node queue, or a message on a conversation topic under any
+     * sender's name.
+     */
+    private void authorizeSend(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(APPLICATION_PREFIX)) {
+            logger.warn("Rejected send to {}", destination);
+            throw new AccessDeniedException("Clients may only send to " + APPLICATION_PREFIX + " destinations");
+        }
+    }
+
+    private void authorizeSubscription(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (destination == null) {
+            return;
+        }
+        // Queues are reached through /user/queue/..., which resolves to the
+        // session's own queue; node queues and the eviction topic are internal
+        if (destination.startsWith("/queue/") || destination.equals(ConversationMembershipCache.EVICTION_TOPIC)) {
+            logger.warn("Rejected subscription to {}", destination);
+            throw new AccessDeniedException("Reserved destination");
+        }
+
+        Matcher matcher = CONVERSATION_TOPIC.matcher(destination);
+        if (!matcher.matches()) {
+            return;
+        }
+
+        Long conversationId = Long.valueOf(matcher.group(1));
+        if (!(accessor.getUser() instanceof Authentication authentication)
+                || !(authentication.getPrincipal() instanceof UserPrincipal principal)
+                || !membershipCache.isParticipant(conversationId, principal.getId())) {
+            logger.warn("Rejected subscription to {}", destination);
+            throw new AccessDeniedException("Not a participant in this conversation");
+        }
+    }
+}
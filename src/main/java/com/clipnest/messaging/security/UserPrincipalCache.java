@@ -0,0 +1,64 @@
+package com.clipnest.messaging.security;
+
+import com.clipnest.messaging.service.UserDetailsServiceImpl;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Authenticated principals keyed by token subject, so a valid JWT does not
+ * cost a user lookup on every request. UserService evicts an entry when the
+ * username or password changes; the TTL bounds staleness for changes made on
+ * other nodes.
+ */
+@Component
+public class UserPrincipalCache {
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Value("${app.security.principal-cache.max-size}")
+    private long maxSize;
+
+    @Value("${app.security.principal-cache.ttl-seconds}")
+    private long ttlSeconds;
+
+    // Replaced in tests to step past the TTL without sleeping
+    Ticker ticker = Ticker.systemTicker();
+
+    private Cache<String, UserPrincipal> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .ticker(ticker)
+                .build();
+    }
+
+    public UserPrincipal get(String username) {
+        return cache.get(username, key -> (UserPrincipal) userDetailsService.loadUserByUsername(key));
+    }
+
+    public void evict(String username) {
+        cache.invalidate(username);
+        // Evict again on commit so a concurrent load cannot re-cache the old row
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(username);
+                }
+            });
+        }
+    }
+}
@@ -8,11 +8,11 @@ import com.clipnest.messaging.entity.RefreshToken;
 import com.clipnest.messaging.entity.User;
 import com.clipnest.messaging.exception.BadRequestException;
 import com.clipnest.messaging.exception.ResourceNotFoundException;
+import com.clipnest.messaging.mapper.UserMapper;
 import com.clipnest.messaging.repository.RefreshTokenRepository;
 import com.clipnest.messaging.repository.UserRepository;
 import com.clipnest.messaging.security.JwtUtils;
 import com.clipnest.messaging.security.UserPrincipal;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -46,7 +46,10 @@ public class AuthService {
     private JwtUtils jwtUtils;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private UserMapper userMapper;
+
+    @Autowired
+    private UserSearchService userSearchService;
 
     @Value("${app.jwt.refresh-expiration}")
     private int refreshExpirationMs;
@@ -65,7 +68,7 @@ public class AuthService {
         // Generate refresh token
         String refreshToken = generateRefreshToken(user);
 
-        UserDto userDto = modelMapper.map(user, UserDto.class);
+        UserDto userDto = userMapper.toDto(user);
         return new AuthResponse(jwt, refreshToken, userDto);
     }
 
@@ -87,12 +90,13 @@ public class AuthService {
         user.setLastName(registerRequest.getLastName());
 
         User savedUser = userRepository.save(user);
+        userSearchService.index(savedUser);
 
         // Generate tokens
         String jwt = jwtUtils.generateJwtToken(savedUser.getUsername());
         String refreshToken = generateRefreshToken(savedUser);
 
-        UserDto userDto = modelMapper.map(savedUser, UserDto.class);
+        UserDto userDto = userMapper.toDto(savedUser);
         return new AuthResponse(jwt, refreshToken, userDto);
     }
 
@@ -106,7 +110,7 @@ public class AuthService {
         }
 
         String newJwt = jwtUtils.generateJwtToken(token.getUser().getUsername());
-        UserDto userDto = modelMapper.map(token.getUser(), UserDto.class);
+        UserDto userDto = userMapper.toDto(token.getUser());
 
         return new AuthResponse(newJwt, refreshToken, userDto);
     }
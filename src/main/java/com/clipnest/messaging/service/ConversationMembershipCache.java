@@ -0,0 +1,140 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.repository.ConversationRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory participant ids per conversation, so membership checks on the
+ * send, subscribe and outbound topic paths never initialize
+ * Conversation.participants. ConversationService evicts an entry whenever
+ * membership changes. With the broker relay the eviction is also published on
+ * {@link #EVICTION_TOPIC} after commit, which every node subscribes to on its
+ * system session; the TTL only covers evictions lost while a node was
+ * disconnected from the broker.
+ */
+@Component
+public class ConversationMembershipCache implements SmartInitializingSingleton, MessageHandler {
+
+    public static final String EVICTION_TOPIC = "/topic/membership-evictions";
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversationMembershipCache.class);
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private ObjectProvider<StompBrokerRelayMessageHandler> relayMessageHandler;
+
+    @Autowired
+    private ObjectProvider<SimpMessagingTemplate> messagingTemplate;
+
+    @Value("${app.messaging.membership-cache.max-size}")
+    private long maxSize;
+
+    @Value("${app.messaging.membership-cache.ttl-seconds}")
+    private long ttlSeconds;
+
+    private LoadingCache<Long, Set<Long>> cache;
+
+    private volatile boolean relayed;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build(this::load);
+    }
+
+    public Set<Long> getParticipantIds(Long conversationId) {
+        Set<Long> participantIds = cache.get(conversationId);
+        return participantIds != null ? participantIds : Set.of();
+    }
+
+    public boolean isParticipant(Long conversationId, Long userId) {
+        return getParticipantIds(conversationId).contains(userId);
+    }
+
+    public void evict(Long conversationId) {
+        cache.invalidate(conversationId);
+        // Evict again on commit so a concurrent load cannot re-cache pre-commit
+        // membership, and only then tell the other nodes
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(conversationId);
+                    publish(conversationId);
+                }
+            });
+        } else {
+            publish(conversationId);
+        }
+    }
+
+    // A conversation always keeps its creator, so no participants means no
+    // conversation yet; a null load is not cached, and the id can be created later
+    private Set<Long> load(Long conversationId) {
+        List<Long> participantIds = conversationRepository.findParticipantIds(conversationId);
+        return participantIds.isEmpty() ? null : Set.copyOf(participantIds);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        StompBrokerRelayMessageHandler relay = relayMessageHandler.getIfAvailable();
+        if (relay == null) {
+            return;
+        }
+        // Runs before the relay starts, so the subscription is made on its system session
+        Map<String, MessageHandler> subscriptions = new HashMap<>(relay.getSystemSubscriptions());
+        subscriptions.put(EVICTION_TOPIC, this);
+        relay.setSystemSubscriptions(subscriptions);
+        relayed = true;
+    }
+
+    // An eviction published by any node, this one included
+    @Override
+    public void handleMessage(Message<?> message) {
+        String payload = new String((byte[]) message.getPayload(), StandardCharsets.UTF_8).trim();
+        try {
+            cache.invalidate(Long.valueOf(payload));
+        } catch (NumberFormatException e) {
+            logger.error("Discarding unreadable membership eviction: {}", payload);
+        }
+    }
+
+    private void publish(Long conversationId) {
+        if (!relayed) {
+            return;
+        }
+        try {
+            messagingTemplate.getObject().convertAndSend(EVICTION_TOPIC, conversationId);
+        } catch (MessagingException e) {
+            logger.warn("Could not publish membership eviction for conversation {}: {}",
+                    conversationId, e.getMessage());
+        }
+    }
+}
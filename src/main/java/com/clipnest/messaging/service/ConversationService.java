@@ -1,24 +1,23 @@
 package com.clipnest.messaging.service;
 
 import com.clipnest.messaging.dto.ConversationDto;
-import com.clipnest.messaging.dto.UserDto;
 import com.clipnest.messaging.entity.Conversation;
 import com.clipnest.messaging.entity.User;
 import com.clipnest.messaging.exception.BadRequestException;
 import com.clipnest.messaging.exception.ResourceNotFoundException;
+import com.clipnest.messaging.mapper.ConversationMapper;
 import com.clipnest.messaging.repository.ConversationRepository;
 import com.clipnest.messaging.repository.UserRepository;
-import com.clipnest.messaging.security.UserPrincipal;
-import org.modelmapper.ModelMapper;
+import com.clipnest.messaging.security.CurrentUserContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Service
@@ -32,37 +31,50 @@ public class ConversationService {
     private UserRepository userRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private ConversationMapper conversationMapper;
+
+    @Autowired
+    private ConversationMembershipCache membershipCache;
+
+    @Autowired
+    private CurrentUserContext currentUserContext;
 
     public ConversationDto createConversation(String name, String description, List<Long> participantIds) {
-        User currentUser = getCurrentUserEntity();
+        User currentUser = currentUserContext.getReference();
         
         Conversation conversation = new Conversation(name, currentUser);
         conversation.setDescription(description);
         
-        // Add participants
+        // Add participants, loaded in one query rather than one per id
+        Map<Long, User> participants = new HashMap<>();
+        for (User participant : userRepository.findAllById(participantIds)) {
+            participants.put(participant.getId(), participant);
+        }
         for (Long participantId : participantIds) {
-            User participant = userRepository.findById(participantId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Participant not found: " + participantId));
+            User participant = participants.get(participantId);
+            if (participant == null) {
+                throw new ResourceNotFoundException("Participant not found: " + participantId);
+            }
             conversation.addParticipant(participant);
         }
         
         Conversation savedConversation = conversationRepository.save(conversation);
+        // A lookup made before the id existed may have cached it, on any node
+        membershipCache.evict(savedConversation.getId());
         return convertToDto(savedConversation);
     }
 
     public Page<ConversationDto> getUserConversations(Pageable pageable) {
-        User currentUser = getCurrentUserEntity();
-        Page<Conversation> conversations = conversationRepository.findByParticipant(currentUser, pageable);
+        User currentUser = currentUserContext.getReference();
+        Page<Conversation> conversations = conversationRepository.findByParticipant(currentUser.getId(), pageable);
         return conversations.map(this::convertToDto);
     }
 
     public ConversationDto getConversation(Long conversationId) {
-        User currentUser = getCurrentUserEntity();
-        Conversation conversation = conversationRepository.findById(conversationId)
+        Conversation conversation = conversationRepository.findWithMembersById(conversationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
 
-        if (!conversation.isParticipant(currentUser)) {
+        if (!membershipCache.isParticipant(conversationId, currentUserContext.getUserId())) {
             throw new BadRequestException("Not a participant in this conversation");
         }
 
@@ -70,8 +82,8 @@ public class ConversationService {
     }
 
     public ConversationDto addParticipant(Long conversationId, Long userId) {
-        User currentUser = getCurrentUserEntity();
-        Conversation conversation = conversationRepository.findById(conversationId)
+        User currentUser = currentUserContext.getReference();
+        Conversation conversation = conversationRepository.findWithMembersById(conversationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
 
         if (!conversation.isAdmin(currentUser)) {
@@ -87,13 +99,14 @@ public class ConversationService {
 
         conversation.addParticipant(newParticipant);
         Conversation savedConversation = conversationRepository.save(conversation);
+        membershipCache.evict(conversationId);
         
         return convertToDto(savedConversation);
     }
 
     public ConversationDto removeParticipant(Long conversationId, Long userId) {
-        User currentUser = getCurrentUserEntity();
-        Conversation conversation = conversationRepository.findById(conversationId)
+        User currentUser = currentUserContext.getReference();
+        Conversation conversation = conversationRepository.findWithMembersById(conversationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
 
         if (!conversation.isAdmin(currentUser)) {
@@ -107,19 +120,20 @@ public class ConversationService {
             throw new BadRequestException("User is not a participant");
         }
 
-        if (conversation.getCreatedBy().equals(participant)) {
+        if (conversation.getCreatedBy().getId().equals(participant.getId())) {
             throw new BadRequestException("Cannot remove conversation creator");
         }
 
         conversation.removeParticipant(participant);
         Conversation savedConversation = conversationRepository.save(conversation);
+        membershipCache.evict(conversationId);
         
         return convertToDto(savedConversation);
     }
 
     public ConversationDto makeAdmin(Long conversationId, Long userId) {
-        User currentUser = getCurrentUserEntity();
-        Conversation conversation = conversationRepository.findById(conversationId)
+        User currentUser = currentUserContext.getReference();
+        Conversation conversation = conversationRepository.findWithMembersById(conversationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
 
         if (!conversation.isAdmin(currentUser)) {
@@ -140,44 +154,24 @@ public class ConversationService {
     }
 
     public void leaveConversation(Long conversationId) {
-        User currentUser = getCurrentUserEntity();
-        Conversation conversation = conversationRepository.findById(conversationId)
+        User currentUser = currentUserContext.getReference();
+        Conversation conversation = conversationRepository.findWithMembersById(conversationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
 
         if (!conversation.isParticipant(currentUser)) {
             throw new BadRequestException("Not a participant in this conversation");
         }
 
-        if (conversation.getCreatedBy().equals(currentUser)) {
+        if (conversation.getCreatedBy().getId().equals(currentUser.getId())) {
             throw new BadRequestException("Creator cannot leave conversation. Transfer ownership first.");
         }
 
         conversation.removeParticipant(currentUser);
         conversationRepository.save(conversation);
-    }
-
-    private User getCurrentUserEntity() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-        return userRepository.findByUsername(userPrincipal.getUsername())
-                .orElseThrow(() -> new ResourceNotFoundException("Current user not found"));
+        membershipCache.evict(conversationId);
     }
 
     private ConversationDto convertToDto(Conversation conversation) {
-        ConversationDto dto = modelMapper.map(conversation, ConversationDto.class);
-        
-        // Convert participants to DTOs
-        List<UserDto> participantDtos = conversation.getParticipants().stream()
-                .map(user -> modelMapper.map(user, UserDto.class))
-                .toList();
-        dto.setParticipants(participantDtos);
-        
-        // Convert admins to DTOs
-        List<UserDto> adminDtos = conversation.getAdmins().stream()
-                .map(user -> modelMapper.map(user, UserDto.class))
-                .toList();
-        dto.setAdmins(adminDtos);
-        
-        return dto;
+        return conversationMapper.toDto(conversation);
     }
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Periodically recounts the stored follower/following counts against
+ * user_follows, a batch of users per transaction, so a long run never holds
+ * locks on many rows at a time. Runs on one node at a time.
+ */
+@Component
+public class FollowCountReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(FollowCountReconciler.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Scheduled(initialDelayString = "${app.follows.reconcile-interval-ms}",
+               fixedDelayString = "${app.follows.reconcile-interval-ms}")
+    public void reconcileAll() {
+        schedulerLockService.runExclusively("follow-count-reconciler", this::recountUsers);
+    }
+
+    private void recountUsers() {
+        long lastId = 0L;
+        int recounted = 0;
+        List<Long> userIds;
+        do {
+            userIds = userRepository.findIdsAfter(lastId, PageRequest.of(0, BATCH_SIZE));
+            if (userIds.isEmpty()) {
+                break;
+            }
+            List<Long> batch = userIds;
+            try {
+                transactionTemplate.executeWithoutResult(status -> userRepository.recountFollowCounts(batch));
+                recounted += batch.size();
+            } catch (Exception e) {
+                logger.error("Failed to recount follows for users {}..{}: {}",
+                        batch.get(0), batch.get(batch.size() - 1), e.getMessage());
+            }
+            lastId = batch.get(batch.size() - 1);
+        } while (userIds.size() == BATCH_SIZE);
+        logger.debug("Recounted follows for {} users", recounted);
+    }
+}
@@ -0,0 +1,51 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque cursor for keyset-paginated follower and following lists, carrying
+ * the follow time and user id of the last row returned.
+ */
+final class FollowCursor {
+
+    private static final String PREFIX = "f:";
+
+    private final LocalDateTime followedAt;
+    private final Long userId;
+
+    private FollowCursor(LocalDateTime followedAt, Long userId) {
+        this.followedAt = followedAt;
+        this.userId = userId;
+    }
+
+    LocalDateTime getFollowedAt() { return followedAt; }
+
+    Long getUserId() { return userId; }
+
+    static String encode(LocalDateTime followedAt, Long userId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + userId + ":" + followedAt).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static FollowCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':', PREFIX.length());
+            if (!raw.startsWith(PREFIX) || separator < 0) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return new FollowCursor(LocalDateTime.parse(raw.substring(separator + 1)),
+                    Long.parseLong(raw.substring(PREFIX.length(), separator)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.clipnest.messaging.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-local session registry, used for single-node deployments.
+ */
+@Service
+@ConditionalOnProperty(name = "app.websocket.session-registry.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryUserSessionRegistry implements UserSessionRegistry {
+
+    private final Map<String, Set<String>> sessionsByUser = new ConcurrentHashMap<>();
+
+    private final String localNodeId;
+
+    public InMemoryUserSessionRegistry(@Value("${app.websocket.node-id}") String nodeId) {
+        this.localNodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+    }
+
+    @Override
+    public String getLocalNodeId() {
+        return localNodeId;
+    }
+
+    @Override
+    public void register(String username, String sessionId) {
+        sessionsByUser.computeIfAbsent(username, k -> ConcurrentHashMap.newKeySet()).add(sessionId);
+    }
+
+    @Override
+    public void unregister(String username, String sessionId) {
+        sessionsByUser.computeIfPresent(username, (k, sessions) -> {
+            sessions.remove(sessionId);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    @Override
+    public Map<String, Set<String>> getNodeIds(Collection<String> usernames) {
+        Map<String, Set<String>> nodeIds = new HashMap<>();
+        for (String username : usernames) {
+            if (sessionsByUser.containsKey(username)) {
+                nodeIds.put(username, Set.of(localNodeId));
+            }
+        }
+        return nodeIds;
+    }
+
+    @Override
+    public boolean isClusterWide() {
+        return false;
+    }
+}
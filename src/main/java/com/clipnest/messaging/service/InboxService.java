@@ -0,0 +1,134 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.dto.InboxEntryDto;
+import com.clipnest.messaging.entity.InboxEntry;
+import com.clipnest.messaging.entity.InboxEntry.Kind;
+import com.clipnest.messaging.entity.Message;
+import com.clipnest.messaging.repository.InboxEntryRepository;
+import com.clipnest.messaging.repository.MessageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains the materialized inbox: one entry per user per partner or group,
+ * updated on every send so the inbox screen is a single indexed range read.
+ */
+@Service
+@Transactional
+public class InboxService {
+
+    @Autowired
+    private InboxEntryRepository inboxEntryRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private MessageBodyStore bodyStore;
+
+    @Autowired
+    private ConversationMembershipCache membershipCache;
+
+    @Transactional(readOnly = true)
+    public List<InboxEntryDto> getInbox(Long userId, Pageable pageable) {
+        return inboxEntryRepository.findInbox(userId, pageable);
+    }
+
+    /**
+     * Records new messages on the entries of both sides, or of every
+     * participant of a group, each entry getting its newest message and the
+     * unread count of all of them. Like the unread counters, a group message
+     * counts as unread for its recipient only.
+     */
+    public void recordMessages(Collection<Message> messages) {
+        Map<EntryKey, Message> latest = new LinkedHashMap<>();
+        Map<EntryKey, Long> unread = new HashMap<>();
+        for (Message message : messages) {
+            Long senderId = message.getSender().getId();
+            Long recipientId = message.getRecipient().getId();
+            if (message.getConversation() != null) {
+                Long conversationId = message.getConversation().getId();
+                Set<Long> userIds = new LinkedHashSet<>(membershipCache.getParticipantIds(conversationId));
+                userIds.add(senderId);
+                userIds.add(recipientId);
+                for (Long userId : userIds) {
+                    merge(latest, unread, new EntryKey(userId, Kind.GROUP, conversationId), message,
+                            userId.equals(recipientId) ? 1 : 0);
+                }
+            } else {
+                merge(latest, unread, new EntryKey(senderId, Kind.DIRECT, recipientId), message, 0);
+                merge(latest, unread, new EntryKey(recipientId, Kind.DIRECT, senderId), message, 1);
+            }
+        }
+
+        // Entries getting the same message and unread delta, such as a group's
+        // members other than the recipient, share one upsert
+        Map<UpsertKey, List<Long>> users = new LinkedHashMap<>();
+        latest.forEach((entryKey, message) -> users.computeIfAbsent(
+                new UpsertKey(entryKey.kind(), entryKey.peerId(), unread.get(entryKey), message),
+                k -> new ArrayList<>()).add(entryKey.userId()));
+        users.forEach((upsertKey, userIds) -> {
+            Message message = upsertKey.message();
+            inboxEntryRepository.upsert(userIds, upsertKey.kind().name(), upsertKey.peerId(), message.getId(),
+                    InboxEntry.snippetOf(message.getContent()), message.getSender().getId(),
+                    message.getCreatedAt(), upsertKey.unreadDelta());
+        });
+    }
+
+    public void recordRead(Long userId, Kind kind, Long peerId, long count) {
+        if (count > 0) {
+            inboxEntryRepository.decrementUnread(userId, kind, peerId, count);
+        }
+    }
+
+    /**
+     * Rebuilds a user's inbox from the messages table. Used by the scheduled
+     * reconciler to backfill users created before the inbox existed and to
+     * repair drift in the denormalized columns. Entries go through the same
+     * guarded upsert as sends, and unread counts are recounted in place, so a
+     * send committing meanwhile is neither overwritten nor counted twice.
+     */
+    public void reconcileUser(Long userId) {
+        List<Message> latest = new ArrayList<>(messageRepository.findLatestDirectMessagesPerPartner(userId));
+        latest.addAll(messageRepository.findLatestGroupMessagesForParticipant(userId));
+        for (Message message : latest) {
+            Kind kind = message.getConversation() != null ? Kind.GROUP : Kind.DIRECT;
+            inboxEntryRepository.upsert(List.of(userId), kind.name(), peerIdFor(userId, message), message.getId(),
+                    InboxEntry.snippetOf(bodyStore.contentOf(message)), message.getSender().getId(),
+                    message.getCreatedAt(), 0);
+        }
+        inboxEntryRepository.recountUnread(userId);
+    }
+
+    private static void merge(Map<EntryKey, Message> latest, Map<EntryKey, Long> unread, EntryKey entryKey,
+                              Message message, long unreadDelta) {
+        latest.merge(entryKey, message, (current, next) -> next.getId() > current.getId() ? next : current);
+        unread.merge(entryKey, unreadDelta, Long::sum);
+    }
+
+    private static Long peerIdFor(Long userId, Message message) {
+        if (message.getConversation() != null) {
+            return message.getConversation().getId();
+        }
+        Long senderId = message.getSender().getId();
+        return senderId.equals(userId) ? message.getRecipient().getId() : senderId;
+    }
+
+    private record EntryKey(Long userId, Kind kind, Long peerId) {
+    }
+
+    // Messages of one batch are distinct instances, so identity equality is enough
+    private record UpsertKey(Kind kind, Long peerId, long unreadDelta, Message message) {
+    }
+}
@@ -0,0 +1,105 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.entity.Message;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bodies in a {@link MessageSegmentLog} on local disk, indexed by the thread
+ * they belong to and message id: the pair thread key for direct messages,
+ * "c:" and the conversation id for group messages. The messages
+ * row keeps only metadata. The log is node-local, so this store is for
+ * single-node deployments.
+ */
+@Service
+@ConditionalOnProperty(name = "app.messaging.body-store.type", havingValue = "log")
+public class LogMessageBodyStore implements MessageBodyStore {
+
+    @Value("${app.messaging.body-store.log.directory}")
+    private String directory;
+
+    @Value("${app.messaging.body-store.log.segment-bytes}")
+    private long segmentBytes;
+
+    @Value("${app.messaging.body-store.log.fsync}")
+    private boolean fsync;
+
+    private MessageSegmentLog log;
+
+    @PostConstruct
+    void open() throws IOException {
+        log = new MessageSegmentLog(Path.of(directory), segmentBytes, fsync);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        log.close();
+    }
+
+    @Override
+    public boolean storesInTable() {
+        return false;
+    }
+
+    @Override
+    public void append(Map<Message, String> contents) {
+        List<MessageSegmentLog.Record> records = new ArrayList<>(contents.size());
+        for (Map.Entry<Message, String> content : contents.entrySet()) {
+            Message message = content.getKey();
+            Long conversationId = message.getConversation() != null ? message.getConversation().getId() : null;
+            records.add(new MessageSegmentLog.Record(message.getId(),
+                    logKey(conversationId, message.getThreadKey()), content.getValue()));
+        }
+        try {
+            log.append(records);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append the bodies of " + records.size() + " messages", e);
+        }
+    }
+
+    @Override
+    public String contentOf(Message message) {
+        return message.getContent() != null ? message.getContent() : read(message.getId());
+    }
+
+    @Override
+    public Map<Long, String> contentsOf(Collection<Long> messageIds) {
+        try {
+            return log.read(messageIds);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the bodies of messages " + messageIds, e);
+        }
+    }
+
+    @Override
+    public Map<Long, String> contentsOf(Long conversationId, String threadKey, Collection<Long> messageIds) {
+        try {
+            return log.readThread(logKey(conversationId, threadKey), messageIds);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the bodies of messages " + messageIds, e);
+        }
+    }
+
+    private String read(Long messageId) {
+        try {
+            return log.read(messageId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the body of message " + messageId, e);
+        }
+    }
+
+    private static String logKey(Long conversationId, String threadKey) {
+        return conversationId != null ? "c:" + conversationId : threadKey;
+    }
+}
@@ -0,0 +1,246 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.dto.MessageDto;
+import com.clipnest.messaging.entity.ArchivedMessage;
+import com.clipnest.messaging.entity.Message;
+import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.mapper.MessageMapper;
+import com.clipnest.messaging.repository.ArchivedMessageRepository;
+import com.clipnest.messaging.repository.MessageRepository;
+import com.clipnest.messaging.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Hot/cold split of message storage by age. Read messages older than the hot
+ * window move in id-ordered batches from messages to archived_messages, each
+ * batch in its own transaction, so the hot table and its indexes only hold
+ * recent and unread rows. History reads that reach past the hot window merge
+ * in the archived rows through {@link #findThreadHistory} and
+ * {@link #findConversationHistory}.
+ */
+@Component
+public class MessageArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageArchiver.class);
+
+    @Value("${app.messaging.archive.hot-window-days}")
+    private int hotWindowDays;
+
+    @Value("${app.messaging.archive.batch-size}")
+    private int batchSize;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ArchivedMessageRepository archivedMessageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MessageMapper messageMapper;
+
+    @Autowired
+    private MessageBodyStore bodyStore;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    /**
+     * Moves messages past the hot window to the archive, on one node at a
+     * time, so nodes never race to move the same batch.
+     */
+    @Scheduled(cron = "${app.messaging.archive.cron}")
+    public void archiveColdMessages() {
+        schedulerLockService.runExclusively("message-archiver", this::archiveBatches);
+    }
+
+    private void archiveBatches() {
+        LocalDateTime cutoff = hotWindowStart();
+        long lastId = 0L;
+        int archived = 0;
+        List<Long> ids;
+        do {
+            long afterId = lastId;
+            try {
+                ids = transactionTemplate.execute(status -> archiveBatch(cutoff, afterId));
+            } catch (Exception e) {
+                logger.error("Failed to archive messages after id {}: {}", afterId, e.getMessage());
+                break;
+            }
+            if (!ids.isEmpty()) {
+                lastId = ids.get(ids.size() - 1);
+                archived += ids.size();
+            }
+        } while (ids.size() == batchSize);
+        logger.debug("Archived {} messages older than {}", archived, cutoff);
+    }
+
+    public LocalDateTime hotWindowStart() {
+        return LocalDateTime.now().minusDays(hotWindowDays);
+    }
+
+    /**
+     * Archived messages between two users, newest-first before {@code beforeId}
+     * or oldest-first after {@code afterId}, like the hot keyset queries.
+     */
+    public Slice<MessageDto> findThreadHistory(String threadKey, Long beforeId, Long afterId, Pageable page) {
+        return toDtos(afterId != null
+                ? archivedMessageRepository.findThreadAfter(threadKey, afterId, page)
+                : archivedMessageRepository.findThreadBefore(threadKey, beforeId, page));
+    }
+
+    public Slice<MessageDto> findConversationHistory(Long conversationId, Long beforeId, Long afterId,
+                                                     Pageable page) {
+        return toDtos(afterId != null
+                ? archivedMessageRepository.findConversationAfter(conversationId, afterId, page)
+                : archivedMessageRepository.findConversationBefore(conversationId, beforeId, page));
+    }
+
+    /**
+     * The oldest {@code limit} archived messages between two users, for offset
+     * pages that merge both tiers.
+     */
+    public Slice<MessageDto> findThreadOldest(String threadKey, int limit) {
+        return toDtos(archivedMessageRepository.findThreadOldest(threadKey, PageRequest.of(0, limit)));
+    }
+
+    public Slice<MessageDto> findConversationOldest(Long conversationId, int limit) {
+        return toDtos(archivedMessageRepository.findConversationOldest(conversationId, PageRequest.of(0, limit)));
+    }
+
+    public long countThread(String threadKey) {
+        return archivedMessageRepository.countByThreadKey(threadKey);
+    }
+
+    public long countConversation(Long conversationId) {
+        return archivedMessageRepository.countByConversationId(conversationId);
+    }
+
+    private List<Long> archiveBatch(LocalDateTime cutoff, long afterId) {
+        List<Message> messages = messageRepository.findArchivable(cutoff, afterId, PageRequest.of(0, batchSize));
+        if (messages.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, String> bodies = bodiesOf(messages);
+        List<ArchivedMessage> archived = new ArrayList<>(messages.size());
+        List<Long> ids = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            Message replyTo = message.getReplyTo();
+            archived.add(new ArchivedMessage(message, compress(bodyOf(message, bodies)),
+                    replyTo != null ? bodyOf(replyTo, bodies) : null));
+            ids.add(message.getId());
+        }
+        archivedMessageRepository.saveAllAndFlush(archived);
+        messageRepository.deleteAllByIdInBatch(ids);
+        return ids;
+    }
+
+    // Bodies kept outside the table, read in one lookup for a batch and its reply targets
+    private Map<Long, String> bodiesOf(List<Message> messages) {
+        if (bodyStore.storesInTable()) {
+            return Map.of();
+        }
+        Set<Long> ids = new HashSet<>();
+        for (Message message : messages) {
+            ids.add(message.getId());
+            if (message.getReplyTo() != null) {
+                ids.add(message.getReplyTo().getId());
+            }
+        }
+        return bodyStore.contentsOf(ids);
+    }
+
+    private static String bodyOf(Message message, Map<Long, String> bodies) {
+        String content = message.getContent() != null ? message.getContent() : bodies.get(message.getId());
+        return content != null ? content : "";
+    }
+
+    private Slice<MessageDto> toDtos(Slice<ArchivedMessage> slice) {
+        if (!slice.hasContent()) {
+            return new SliceImpl<>(List.of(), slice.getPageable(), false);
+        }
+
+        Set<Long> userIds = new HashSet<>();
+        for (ArchivedMessage archived : slice) {
+            userIds.add(archived.getSenderId());
+            userIds.add(archived.getRecipientId());
+            if (archived.getReplyToSenderId() != null) {
+                userIds.add(archived.getReplyToSenderId());
+            }
+        }
+        Map<Long, User> users = new HashMap<>();
+        for (User user : userRepository.findAllById(userIds)) {
+            users.put(user.getId(), user);
+        }
+
+        return slice.map(archived -> messageMapper.toDto(archived, decompress(archived.getContent()), users));
+    }
+
+    // zlib-deflated UTF-8; short messages barely shrink, but long ones make up
+    // most of the stored bytes
+    static byte[] compress(String content) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(content.getBytes(StandardCharsets.UTF_8));
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static String decompress(byte[] content) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(content);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(buffer);
+                if (read == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated archived message content");
+                }
+                out.write(buffer, 0, read);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt archived message content", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.entity.Message;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Where message bodies are kept. The messages row always holds the metadata;
+ * the body is either in its content column or in a separate store, selected
+ * by app.messaging.body-store.type.
+ */
+public interface MessageBodyStore {
+
+    /**
+     * Whether bodies live in messages.content. When false the column is left
+     * null and every body has to be read through this store.
+     */
+    boolean storesInTable();
+
+    /**
+     * Records the bodies of messages just persisted, inside the sending
+     * transaction so a failed write rolls them back. Called before the
+     * inserts are flushed, so no row lock is held while the bodies are written.
+     */
+    void append(Map<Message, String> contents);
+
+    String contentOf(Message message);
+
+    /**
+     * Bodies by message id; ids without a stored body are left out.
+     */
+    Map<Long, String> contentsOf(Collection<Long> messageIds);
+
+    /**
+     * Bodies of messages of one thread: the group conversation when
+     * conversationId is set, else the one-to-one thread with the given pair
+     * key. Stores that keep bodies ordered by thread read these as one range.
+     */
+    Map<Long, String> contentsOf(Long conversationId, String threadKey, Collection<Long> messageIds);
+}
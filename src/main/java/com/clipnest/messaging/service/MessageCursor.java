@@ -0,0 +1,40 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor for keyset-paginated message history. Clients must treat the
+ * encoded value as a token; only the message id is carried inside it.
+ */
+final class MessageCursor {
+
+    private static final String PREFIX = "m:";
+
+    private MessageCursor() {}
+
+    static String encode(Long messageId) {
+        if (messageId == null) {
+            return null;
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + messageId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return Long.parseLong(raw.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
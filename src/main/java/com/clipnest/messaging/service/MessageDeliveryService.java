@@ -0,0 +1,252 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.dto.DeliveryFrameDto;
+import com.clipnest.messaging.dto.RoutedFrameDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbound WebSocket delivery pipeline. Events are handed to the broker only
+ * after the surrounding transaction commits, through bounded per-worker queues
+ * so broker serialization never runs on the request thread. Users (and topics)
+ * are pinned to a worker by hash, which keeps per-recipient ordering, and
+ * events for the same recipient and destination drained together are coalesced
+ * into one frame. Every frame carries a {@link DeliveryFrameDto}, so clients
+ * read one shape whether it holds one event or several. User frames go only to
+ * the nodes the session registry reports for the user; frames for a peer node
+ * are forwarded to its node queue.
+ */
+@Service
+public class MessageDeliveryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageDeliveryService.class);
+
+    public static final String BATCH_SIZE_HEADER = "batch-size";
+
+    public static final String NODE_QUEUE_PREFIX = "/queue/node.";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private UserSessionRegistry sessionRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.messaging.delivery.workers}")
+    private int workerCount;
+
+    @Value("${app.messaging.delivery.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${app.messaging.delivery.max-batch-size}")
+    private int maxBatchSize;
+
+    private List<BlockingQueue<OutboundEvent>> queues;
+    private List<Thread> workers;
+    private volatile boolean running;
+
+    private Counter publishedCounter;
+    private Counter droppedCounter;
+    private Counter framesCounter;
+    private Counter routedCounter;
+
+    @PostConstruct
+    void start() {
+        int perWorkerCapacity = Math.max(1, queueCapacity / workerCount);
+        queues = new ArrayList<>(workerCount);
+        workers = new ArrayList<>(workerCount);
+        running = true;
+
+        for (int i = 0; i < workerCount; i++) {
+            BlockingQueue<OutboundEvent> queue = new ArrayBlockingQueue<>(perWorkerCapacity);
+            queues.add(queue);
+            Thread worker = new Thread(() -> drain(queue), "ws-delivery-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+
+        publishedCounter = meterRegistry.counter("messaging.delivery.events.published");
+        droppedCounter = meterRegistry.counter("messaging.delivery.events.dropped");
+        framesCounter = meterRegistry.counter("messaging.delivery.frames.sent");
+        routedCounter = meterRegistry.counter("messaging.delivery.frames.routed");
+        Gauge.builder("messaging.delivery.queue.depth", this, MessageDeliveryService::getQueueDepth)
+                .register(meterRegistry);
+
+        workers.forEach(Thread::start);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    /**
+     * Queues a message for a user destination such as /queue/messages. When
+     * called inside a transaction, nothing is queued unless it commits.
+     */
+    public void sendToUser(String username, String destination, Object payload) {
+        dispatch(new OutboundEvent(username, destination, payload));
+    }
+
+    /**
+     * Queues a message for a broadcast destination such as
+     * /topic/conversations/{id}; it is serialized once for all subscribers.
+     */
+    public void sendToTopic(String destination, Object payload) {
+        dispatch(new OutboundEvent(null, destination, payload));
+    }
+
+    public int getQueueDepth() {
+        int depth = 0;
+        for (BlockingQueue<OutboundEvent> queue : queues) {
+            depth += queue.size();
+        }
+        return depth;
+    }
+
+    private void dispatch(OutboundEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(event);
+                }
+            });
+        } else {
+            enqueue(event);
+        }
+    }
+
+    private void enqueue(OutboundEvent event) {
+        BlockingQueue<OutboundEvent> queue = queues.get(Math.floorMod(event.routingKey().hashCode(), queues.size()));
+        if (queue.offer(event)) {
+            publishedCounter.increment();
+        } else {
+            droppedCounter.increment();
+            logger.warn("Delivery queue full, dropping event for {}", event.routingKey());
+        }
+    }
+
+    private void drain(BlockingQueue<OutboundEvent> queue) {
+        List<OutboundEvent> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OutboundEvent first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                deliver(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("WebSocket delivery failed: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(List<OutboundEvent> batch) {
+        Map<String, List<OutboundEvent>> frames = new LinkedHashMap<>();
+        for (OutboundEvent event : batch) {
+            frames.computeIfAbsent(event.routingKey(), k -> new ArrayList<>()).add(event);
+        }
+
+        // One registry lookup for every user in the flush
+        Set<String> usernames = new HashSet<>();
+        for (OutboundEvent event : batch) {
+            if (event.username != null) {
+                usernames.add(event.username);
+            }
+        }
+        Map<String, Set<String>> nodeIdsByUser = usernames.isEmpty()
+                ? Map.of()
+                : sessionRegistry.getNodeIds(usernames);
+
+        for (List<OutboundEvent> events : frames.values()) {
+            OutboundEvent head = events.get(0);
+            List<Object> payloads = new ArrayList<>(events.size());
+            events.forEach(e -> payloads.add(e.payload));
+            // One body shape whether or not events were coalesced
+            DeliveryFrameDto payload = new DeliveryFrameDto(payloads);
+            if (head.username != null) {
+                deliverToUser(head.username, nodeIdsByUser.getOrDefault(head.username, Set.of()),
+                        head.destination, payload, events.size());
+            } else {
+                messagingTemplate.convertAndSend(head.destination, payload, Map.of(BATCH_SIZE_HEADER, events.size()));
+                framesCounter.increment();
+            }
+        }
+    }
+
+    private void deliverToUser(String username, Set<String> nodeIds, String destination, DeliveryFrameDto payload,
+                               int batchSize) {
+        if (nodeIds.isEmpty()) {
+            if (!sessionRegistry.isClusterWide()) {
+                // The user may be connected to a peer this node does not track
+                messagingTemplate.convertAndSendToUser(username, destination, payload,
+                        Map.of(BATCH_SIZE_HEADER, batchSize));
+                framesCounter.increment();
+            }
+            return;
+        }
+
+        String localNodeId = sessionRegistry.getLocalNodeId();
+        for (String nodeId : nodeIds) {
+            if (nodeId.equals(localNodeId)) {
+                messagingTemplate.convertAndSendToUser(username, destination, payload,
+                        Map.of(BATCH_SIZE_HEADER, batchSize));
+                framesCounter.increment();
+            } else {
+                messagingTemplate.convertAndSend(NODE_QUEUE_PREFIX + nodeId,
+                        new RoutedFrameDto(username, destination, batchSize, payload));
+                routedCounter.increment();
+            }
+        }
+    }
+
+    private static final class OutboundEvent {
+        private final String username;
+        private final String destination;
+        private final Object payload;
+
+        private OutboundEvent(String username, String destination, Object payload) {
+            this.username = username;
+            this.destination = destination;
+            this.payload = payload;
+        }
+
+        private String routingKey() {
+            return username != null ? username + "|" + destination : destination;
+        }
+    }
+}
@@ -0,0 +1,623 @@
+package com.clipnest.messaging.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of message bodies in numbered segment files, written and
+ * read with positional FileChannel I/O. Appends are serialized and go to the
+ * end of the newest segment, rolling to a new one past the segment size;
+ * reads are lock-free positional reads.
+ *
+ * <p>Only the active segment is indexed in memory, by message id. When it is
+ * sealed its index is written next to it as segment-N.idx: its records sorted
+ * by (thread key, message id), so a page of one thread is one contiguous run,
+ * then the same records sorted by message id alone. Only every 64th entry of
+ * each, and the segment's id range, stay in memory. On open, sealed segments
+ * load those fences from their index file; only the active segment, or a
+ * sealed one whose index is missing, is scanned.
+ *
+ * <p>With fsync, a batch of records is forced once, and appends waiting on a
+ * force in progress are covered by the next one rather than forcing each.
+ *
+ * <p>Record layout, big-endian: int length of the rest, int CRC32 of the
+ * rest, long message id, short thread key length, the UTF-8 thread key, then
+ * the UTF-8 body. A record cut short or failing its checksum, as left by a
+ * crash mid-write, ends the scan and is truncated away.
+ */
+final class MessageSegmentLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageSegmentLog.class);
+
+    private static final int HEADER_BYTES = 8;
+    private static final int MIN_PAYLOAD_BYTES = 10;
+    private static final int OFFSET_BITS = 40;
+
+    // Index file: one fence per this many entries, fixed-width id entries,
+    // and a footer of id section start, fence section start, entry count,
+    // min id, max id and the CRC32 of the fences and the rest of the footer
+    private static final int INDEX_INTERVAL = 64;
+    private static final int ID_ENTRY_BYTES = 16;
+    private static final int FOOTER_BYTES = 40;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean fsync;
+
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+
+    private final Object syncLock = new Object();
+
+    // Log position (segment << OFFSET_BITS | offset) up to which appends are forced
+    private long syncedPosition;
+
+    private Segment active;
+    private long activeSize;
+
+    MessageSegmentLog(Path directory, long segmentBytes, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(file -> file.getFileName().toString().matches("segment-\\d{8}\\.log"))
+                    .sorted()
+                    .toList();
+        }
+        for (int i = 0; i < files.size(); i++) {
+            Segment segment = new Segment(segments.size(),
+                    FileChannel.open(files.get(i), StandardOpenOption.READ, StandardOpenOption.WRITE));
+            segments.add(segment);
+            if (i < files.size() - 1) {
+                segment.index = SegmentIndex.load(indexFile(segment.number));
+                if (segment.index != null) {
+                    continue;
+                }
+                logger.warn("Rebuilding the missing or damaged index of {}", files.get(i));
+            }
+            Map<Long, Entry> entries = new ConcurrentHashMap<>();
+            long end = recover(segment.channel, entries);
+            if (end < segment.channel.size()) {
+                logger.warn("Truncating {} from {} to {} bytes after an incomplete record",
+                        files.get(i), segment.channel.size(), end);
+                segment.channel.truncate(end);
+            }
+            segment.entries = entries;
+            if (i < files.size() - 1) {
+                seal(segment);
+            }
+        }
+
+        if (segments.isEmpty()) {
+            roll();
+        } else {
+            active = segments.get(segments.size() - 1);
+            activeSize = active.channel.size();
+        }
+    }
+
+    void append(long messageId, String threadKey, String body) throws IOException {
+        append(List.of(new Record(messageId, threadKey, body)));
+    }
+
+    /**
+     * Appends the records in order and, with fsync, returns once they are on
+     * disk, forcing once for the whole batch.
+     */
+    void append(List<Record> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        long end;
+        synchronized (this) {
+            for (Record record : records) {
+                write(record);
+            }
+            end = position(active.number, activeSize);
+        }
+        if (fsync) {
+            sync(end);
+        }
+    }
+
+    /**
+     * The body of a message, or null if the log has no record of it.
+     */
+    String read(long messageId) throws IOException {
+        return read(List.of(messageId)).get(messageId);
+    }
+
+    /**
+     * Bodies by message id; ids the log has no record of are left out.
+     */
+    Map<Long, String> read(Collection<Long> messageIds) throws IOException {
+        Map<Long, String> bodies = new HashMap<>();
+        for (Long messageId : messageIds) {
+            for (int i = segments.size() - 1; i >= 0; i--) {
+                Segment segment = segments.get(i);
+                long offset = segment.offsetOf(messageId);
+                if (offset >= 0) {
+                    bodies.put(messageId, readBody(segment.channel, offset));
+                    break;
+                }
+            }
+        }
+        return bodies;
+    }
+
+    /**
+     * Bodies of messages of one thread. In a sealed segment the wanted ids are
+     * found in one run of its thread-ordered index.
+     */
+    Map<Long, String> readThread(String threadKey, Collection<Long> messageIds) throws IOException {
+        Map<Long, String> bodies = new HashMap<>();
+        TreeSet<Long> wanted = new TreeSet<>(messageIds);
+        for (int i = segments.size() - 1; i >= 0 && !wanted.isEmpty(); i--) {
+            Segment segment = segments.get(i);
+            Map<Long, Long> offsets = segment.offsetsOf(threadKey, wanted);
+            for (Map.Entry<Long, Long> found : offsets.entrySet()) {
+                bodies.put(found.getKey(), readBody(segment.channel, found.getValue()));
+                wanted.remove(found.getKey());
+            }
+        }
+        return bodies;
+    }
+
+    int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments) {
+            if (!fsync && segment == active) {
+                segment.channel.force(false);
+            }
+            segment.channel.close();
+            SegmentIndex index = segment.index;
+            if (index != null) {
+                index.file.close();
+            }
+        }
+    }
+
+    private void write(Record record) throws IOException {
+        byte[] key = record.threadKey.getBytes(StandardCharsets.UTF_8);
+        byte[] text = record.body.getBytes(StandardCharsets.UTF_8);
+        int length = MIN_PAYLOAD_BYTES + key.length + text.length;
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + length);
+        buffer.putInt(length).putInt(0).putLong(record.messageId).putShort((short) key.length).put(key).put(text);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_BYTES, length);
+        buffer.putInt(4, (int) crc.getValue());
+        buffer.flip();
+
+        if (activeSize > 0 && activeSize + buffer.remaining() > segmentBytes) {
+            roll();
+        }
+        long offset = activeSize;
+        while (buffer.hasRemaining()) {
+            active.channel.write(buffer, offset + buffer.position());
+        }
+        activeSize += buffer.limit();
+        active.entries.put(record.messageId, new Entry(record.threadKey, offset));
+    }
+
+    /**
+     * Forces the active segment unless a force that started after these
+     * records were written already covered them. Records in an older segment
+     * were forced when it was sealed.
+     */
+    private void sync(long position) throws IOException {
+        synchronized (syncLock) {
+            if (syncedPosition >= position) {
+                return;
+            }
+            Segment segment;
+            long end;
+            synchronized (this) {
+                segment = active;
+                end = position(segment.number, activeSize);
+            }
+            segment.channel.force(false);
+            syncedPosition = end;
+        }
+    }
+
+    private void roll() throws IOException {
+        if (active != null) {
+            seal(active);
+        }
+        int number = segments.size();
+        Segment next = new Segment(number, FileChannel.open(segmentFile(number), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE));
+        next.entries = new ConcurrentHashMap<>();
+        segments.add(next);
+        active = next;
+        activeSize = 0;
+    }
+
+    /**
+     * Forces a full segment and replaces its in-memory entries with an index
+     * file, written aside and renamed into place so it is whole or absent.
+     */
+    private void seal(Segment segment) throws IOException {
+        segment.channel.force(false);
+        Path file = indexFile(segment.number);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        SegmentIndex.write(temporary, segment.entries);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        segment.index = SegmentIndex.load(file);
+        segment.entries = null;
+    }
+
+    private Path segmentFile(int number) {
+        return directory.resolve(String.format("segment-%08d.log", number));
+    }
+
+    private Path indexFile(int number) {
+        return directory.resolve(String.format("segment-%08d.idx", number));
+    }
+
+    private static long position(int segment, long offset) {
+        return (long) segment << OFFSET_BITS | offset;
+    }
+
+    /**
+     * Indexes a segment's records and returns the offset just past the last
+     * intact one.
+     */
+    private static long recover(FileChannel channel, Map<Long, Entry> entries) throws IOException {
+        long size = channel.size();
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (offset + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(channel, header, offset);
+            int length = header.getInt(0);
+            if (length < MIN_PAYLOAD_BYTES || offset + HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, offset + HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != header.getInt(4)) {
+                break;
+            }
+            String threadKey = new String(payload.array(), MIN_PAYLOAD_BYTES, payload.getShort(8), StandardCharsets.UTF_8);
+            entries.put(payload.getLong(0), new Entry(threadKey, offset));
+            offset += HEADER_BYTES + length;
+        }
+        return offset;
+    }
+
+    private static String readBody(FileChannel channel, long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(channel, header, offset);
+        ByteBuffer payload = ByteBuffer.allocate(header.getInt(0));
+        readFully(channel, payload, offset + HEADER_BYTES);
+
+        int bodyStart = MIN_PAYLOAD_BYTES + payload.getShort(8);
+        return new String(payload.array(), bodyStart, payload.capacity() - bodyStart, StandardCharsets.UTF_8);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Message log read ends past the end of its file");
+            }
+        }
+    }
+
+    static final class Record {
+        private final long messageId;
+        private final String threadKey;
+        private final String body;
+
+        Record(long messageId, String threadKey, String body) {
+            this.messageId = messageId;
+            this.threadKey = threadKey;
+            this.body = body;
+        }
+    }
+
+    private static final class Entry {
+        private final String threadKey;
+        private final long offset;
+
+        private Entry(String threadKey, long offset) {
+            this.threadKey = threadKey;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * A segment file with either the in-memory entries of the active segment
+     * or, once sealed, its index. The index is published before the entries
+     * are dropped, so a reader that finds no entries finds the index.
+     */
+    private static final class Segment {
+        private final int number;
+        private final FileChannel channel;
+        private volatile Map<Long, Entry> entries;
+        private volatile SegmentIndex index;
+
+        private Segment(int number, FileChannel channel) {
+            this.number = number;
+            this.channel = channel;
+        }
+
+        private long offsetOf(long messageId) throws IOException {
+            Map<Long, Entry> active = entries;
+            if (active != null) {
+                Entry entry = active.get(messageId);
+                return entry != null ? entry.offset : -1;
+            }
+            return index.offsetOf(messageId);
+        }
+
+        private Map<Long, Long> offsetsOf(String threadKey, TreeSet<Long> messageIds) throws IOException {
+            Map<Long, Entry> active = entries;
+            if (active == null) {
+                return index.offsetsOf(threadKey, messageIds);
+            }
+            Map<Long, Long> offsets = new HashMap<>();
+            for (Long messageId : messageIds) {
+                Entry entry = active.get(messageId);
+                if (entry != null && entry.threadKey.equals(threadKey)) {
+                    offsets.put(messageId, entry.offset);
+                }
+            }
+            return offsets;
+        }
+    }
+
+    /**
+     * A sealed segment's index file and the fences of it kept in memory.
+     */
+    private static final class SegmentIndex {
+        private final FileChannel file;
+        private final long idStart;
+        private final int count;
+        private final long minId;
+        private final long maxId;
+        private final String[] fenceKeys;
+        private final long[] fenceIds;
+        private final long[] fencePositions;
+        private final long[] idFences;
+
+        private SegmentIndex(FileChannel file, long idStart, int count, long minId, long maxId,
+                             String[] fenceKeys, long[] fenceIds, long[] fencePositions, long[] idFences) {
+            this.file = file;
+            this.idStart = idStart;
+            this.count = count;
+            this.minId = minId;
+            this.maxId = maxId;
+            this.fenceKeys = fenceKeys;
+            this.fenceIds = fenceIds;
+            this.fencePositions = fencePositions;
+            this.idFences = idFences;
+        }
+
+        private long offsetOf(long messageId) throws IOException {
+            if (messageId < minId || messageId > maxId) {
+                return -1;
+            }
+            int block = lastAtMost(idFences, messageId);
+            int first = block * INDEX_INTERVAL;
+            int entries = Math.min(INDEX_INTERVAL, count - first);
+            ByteBuffer buffer = ByteBuffer.allocate(entries * ID_ENTRY_BYTES);
+            readFully(file, buffer, idStart + (long) first * ID_ENTRY_BYTES);
+            int low = 0;
+            int high = entries - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long id = buffer.getLong(middle * ID_ENTRY_BYTES);
+                if (id < messageId) {
+                    low = middle + 1;
+                } else if (id > messageId) {
+                    high = middle - 1;
+                } else {
+                    return buffer.getLong(middle * ID_ENTRY_BYTES + 8);
+                }
+            }
+            return -1;
+        }
+
+        private Map<Long, Long> offsetsOf(String threadKey, TreeSet<Long> messageIds) throws IOException {
+            Map<Long, Long> offsets = new HashMap<>();
+            long low = Math.max(messageIds.first(), minId);
+            long high = Math.min(messageIds.last(), maxId);
+            if (low > high) {
+                return offsets;
+            }
+            int fence = 0;
+            for (int lo = 0, hi = fenceKeys.length - 1; lo <= hi; ) {
+                int middle = (lo + hi) >>> 1;
+                if (compare(fenceKeys[middle], fenceIds[middle], threadKey, low) <= 0) {
+                    fence = middle;
+                    lo = middle + 1;
+                } else {
+                    hi = middle - 1;
+                }
+            }
+            for (; fence < fenceKeys.length; fence++) {
+                long start = fencePositions[fence];
+                long end = fence + 1 < fencePositions.length ? fencePositions[fence + 1] : idStart;
+                ByteBuffer block = ByteBuffer.allocate((int) (end - start));
+                readFully(file, block, start);
+                block.flip();
+                while (block.hasRemaining()) {
+                    byte[] bytes = new byte[block.getShort()];
+                    block.get(bytes);
+                    String key = new String(bytes, StandardCharsets.UTF_8);
+                    long id = block.getLong();
+                    long offset = block.getLong();
+                    if (compare(key, id, threadKey, high) > 0) {
+                        return offsets;
+                    }
+                    if (key.equals(threadKey) && messageIds.contains(id)) {
+                        offsets.put(id, offset);
+                    }
+                }
+            }
+            return offsets;
+        }
+
+        private static int compare(String key, long id, String otherKey, long otherId) {
+            int order = key.compareTo(otherKey);
+            return order != 0 ? order : Long.compare(id, otherId);
+        }
+
+        private static int lastAtMost(long[] sorted, long value) {
+            int found = 0;
+            for (int low = 0, high = sorted.length - 1; low <= high; ) {
+                int middle = (low + high) >>> 1;
+                if (sorted[middle] <= value) {
+                    found = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return found;
+        }
+
+        private static void write(Path file, Map<Long, Entry> entries) throws IOException {
+            List<Map.Entry<Long, Entry>> byThread = new ArrayList<>(entries.entrySet());
+            byThread.sort(Comparator.<Map.Entry<Long, Entry>, String>comparing(entry -> entry.getValue().threadKey)
+                    .thenComparing(Map.Entry::getKey));
+            List<Map.Entry<Long, Entry>> byId = new ArrayList<>(entries.entrySet());
+            byId.sort(Map.Entry.comparingByKey());
+
+            ByteArrayOutputStream fenceBytes = new ByteArrayOutputStream();
+            DataOutputStream fences = new DataOutputStream(fenceBytes);
+            long idStart;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                for (int i = 0; i < byThread.size(); i++) {
+                    byte[] key = byThread.get(i).getValue().threadKey.getBytes(StandardCharsets.UTF_8);
+                    if (i % INDEX_INTERVAL == 0) {
+                        fences.writeShort(key.length);
+                        fences.write(key);
+                        fences.writeLong(byThread.get(i).getKey());
+                        fences.writeLong(out.size());
+                    }
+                    out.writeShort(key.length);
+                    out.write(key);
+                    out.writeLong(byThread.get(i).getKey());
+                    out.writeLong(byThread.get(i).getValue().offset);
+                }
+                idStart = out.size();
+                for (int i = 0; i < byId.size(); i++) {
+                    if (i % INDEX_INTERVAL == 0) {
+                        fences.writeLong(byId.get(i).getKey());
+                    }
+                    out.writeLong(byId.get(i).getKey());
+                    out.writeLong(byId.get(i).getValue().offset);
+                }
+                long fenceStart = out.size();
+                out.write(fenceBytes.toByteArray());
+
+                ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES);
+                footer.putLong(idStart).putLong(fenceStart).putInt(byId.size())
+                        .putLong(byId.isEmpty() ? 0 : byId.get(0).getKey())
+                        .putLong(byId.isEmpty() ? -1 : byId.get(byId.size() - 1).getKey());
+                CRC32 crc = new CRC32();
+                crc.update(fenceBytes.toByteArray());
+                crc.update(footer.array(), 0, FOOTER_BYTES - 4);
+                footer.putInt((int) crc.getValue());
+                out.write(footer.array());
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.force(false);
+            }
+        }
+
+        /**
+         * Opens an index file and reads its fences, or returns null if it is
+         * missing or fails its checksum.
+         */
+        private static SegmentIndex load(Path file) throws IOException {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                long size = channel.size();
+                if (size < FOOTER_BYTES) {
+                    channel.close();
+                    return null;
+                }
+                ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES);
+                readFully(channel, footer, size - FOOTER_BYTES);
+                long idStart = footer.getLong(0);
+                long fenceStart = footer.getLong(8);
+                int count = footer.getInt(16);
+                if (fenceStart < idStart || fenceStart > size - FOOTER_BYTES) {
+                    channel.close();
+                    return null;
+                }
+                ByteBuffer fences = ByteBuffer.allocate((int) (size - FOOTER_BYTES - fenceStart));
+                readFully(channel, fences, fenceStart);
+                CRC32 crc = new CRC32();
+                crc.update(fences.array());
+                crc.update(footer.array(), 0, FOOTER_BYTES - 4);
+                if ((int) crc.getValue() != footer.getInt(FOOTER_BYTES - 4)) {
+                    channel.close();
+                    return null;
+                }
+
+                int fenceCount = (count + INDEX_INTERVAL - 1) / INDEX_INTERVAL;
+                String[] fenceKeys = new String[fenceCount];
+                long[] fenceIds = new long[fenceCount];
+                long[] fencePositions = new long[fenceCount];
+                long[] idFences = new long[fenceCount];
+                fences.flip();
+                for (int i = 0; i < fenceCount; i++) {
+                    byte[] key = new byte[fences.getShort()];
+                    fences.get(key);
+                    fenceKeys[i] = new String(key, StandardCharsets.UTF_8);
+                    fenceIds[i] = fences.getLong();
+                    fencePositions[i] = fences.getLong();
+                }
+                for (int i = 0; i < fenceCount; i++) {
+                    idFences[i] = fences.getLong();
+                }
+                return new SegmentIndex(channel, idStart, count, footer.getLong(20), footer.getLong(28),
+                        fenceKeys, fenceIds, fencePositions, idFences);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+    }
+}
@@ -1,33 +1,55 @@
 package com.clipnest.messaging.service;
 
+import com.clipnest.messaging.dto.InboxEntryDto;
 import com.clipnest.messaging.dto.MessageDto;
+import com.clipnest.messaging.dto.MessageHistoryDto;
+import com.clipnest.messaging.dto.ReadReceiptDto;
 import com.clipnest.messaging.dto.SendMessageRequest;
 import com.clipnest.messaging.entity.Conversation;
+import com.clipnest.messaging.entity.InboxEntry;
 import com.clipnest.messaging.entity.Message;
+import com.clipnest.messaging.entity.UnreadCounter;
 import com.clipnest.messaging.entity.User;
 import com.clipnest.messaging.exception.BadRequestException;
 import com.clipnest.messaging.exception.ResourceNotFoundException;
+import com.clipnest.messaging.mapper.MessageMapper;
 import com.clipnest.messaging.repository.ConversationRepository;
 import com.clipnest.messaging.repository.MessageRepository;
+import com.clipnest.messaging.repository.MessageView;
 import com.clipnest.messaging.repository.UserRepository;
-import com.clipnest.messaging.security.UserPrincipal;
-import org.modelmapper.ModelMapper;
+import com.clipnest.messaging.security.CurrentUserContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @Transactional
 public class MessageService {
 
+    private static final int DEFAULT_HISTORY_LIMIT = 50;
+    private static final int MAX_HISTORY_LIMIT = 100;
+
     @Autowired
     private MessageRepository messageRepository;
 
@@ -38,27 +60,146 @@ public class MessageService {
     private ConversationRepository conversationRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private MessageMapper messageMapper;
+
+    @Autowired
+    private MessageDeliveryService deliveryService;
+
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
+    @Autowired
+    private InboxService inboxService;
+
+    @Autowired
+    private ConversationMembershipCache membershipCache;
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private CurrentUserContext currentUserContext;
+
+    @Autowired
+    private MessageArchiver messageArchiver;
+
+    @Autowired
+    private MessageBodyStore bodyStore;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.messaging.write-batching.enabled}")
+    private boolean writeBatching;
+
+    @Value("${app.messaging.write-batching.max-batch-size}")
+    private int writeBatchSize;
 
+    @Value("${app.messaging.write-batching.max-wait-ms}")
+    private long writeBatchWaitMs;
+
+    @Value("${app.messaging.write-batching.queue-capacity}")
+    private int writeQueueCapacity;
+
+    // Null unless write batching is enabled
+    private MessageWriteBatcher<PendingSend> writeBatcher;
+
+    @PostConstruct
+    void startWriteBatcher() {
+        if (writeBatching) {
+            writeBatcher = new MessageWriteBatcher<>(this::writeInTransaction,
+                    writeBatchSize, writeBatchWaitMs, writeQueueCapacity);
+        }
+    }
+
+    @PreDestroy
+    void stopWriteBatcher() throws InterruptedException {
+        if (writeBatcher != null) {
+            writeBatcher.stop();
+        }
+    }
+
+    /**
+     * Writes the message in its own transaction or, with write batching on,
+     * in the next group commit together with other concurrent sends. No
+     * transaction is opened here, so a send waiting for its batch holds no
+     * connection.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public MessageDto sendMessage(SendMessageRequest request) {
-        User sender = getCurrentUserEntity();
+        PendingSend send = new PendingSend(currentUserContext.getUserId(), request);
+        if (writeBatcher != null) {
+            writeBatcher.write(send);
+        } else {
+            writeInTransaction(List.of(send));
+        }
+        return send.result();
+    }
+
+    private void writeInTransaction(List<PendingSend> sends) {
+        transactionTemplate.executeWithoutResult(status -> writeMessages(sends));
+    }
+
+    /**
+     * Every send is resolved before any is written, since the reads would
+     * otherwise flush the pending inserts one at a time; the inserts then go
+     * out in one flush, and counters and inbox entries get one upsert each.
+     */
+    private void writeMessages(List<PendingSend> sends) {
+        List<PendingSend> accepted = new ArrayList<>(sends.size());
+        List<Message> messages = new ArrayList<>(sends.size());
+        for (PendingSend send : sends) {
+            try {
+                messages.add(newMessage(send));
+                accepted.add(send);
+            } catch (BadRequestException | ResourceNotFoundException e) {
+                send.fail(e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        // Ids are assigned on persist, so the bodies are written before the
+        // flush takes any row locks
+        messageRepository.saveAll(messages);
+        Map<Message, String> contents = new LinkedHashMap<>();
+        for (int i = 0; i < messages.size(); i++) {
+            contents.put(messages.get(i), accepted.get(i).request.getContent());
+        }
+        bodyStore.append(contents);
+        messageRepository.flush();
+        // For the payload and inbox below; the column is not updatable, so no UPDATE follows
+        contents.forEach(Message::setContent);
+        unreadCounterService.recordUnread(messages);
+        inboxService.recordMessages(messages);
+
+        List<MessageDto> dtos = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            dtos.add(messageMapper.toDto(message));
+        }
+        withBodies(dtos);
+        for (int i = 0; i < messages.size(); i++) {
+            deliver(messages.get(i), dtos.get(i));
+            accepted.get(i).succeed(dtos.get(i));
+        }
+    }
+
+    private Message newMessage(PendingSend send) {
+        SendMessageRequest request = send.request;
+        // Referenced first, so the recipient load below batch-fetches the sender with it
+        User sender = userRepository.getReferenceById(send.senderId);
         User recipient = userRepository.findById(request.getRecipientId())
                 .orElseThrow(() -> new ResourceNotFoundException("Recipient not found"));
 
         Message message = new Message();
         message.setSender(sender);
         message.setRecipient(recipient);
-        message.setContent(request.getContent());
+        message.setContent(bodyStore.storesInTable() ? request.getContent() : null);
 
         // Handle conversation (for group messages)
         if (request.getConversationId() != null) {
             Conversation conversation = conversationRepository.findById(request.getConversationId())
                     .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
             
-            if (!conversation.isParticipant(sender)) {
+            if (!membershipCache.isParticipant(conversation.getId(), send.senderId)) {
                 throw new BadRequestException("Not a participant in this conversation");
             }
             
@@ -67,114 +208,389 @@ public class MessageService {
 
         // Handle reply
         if (request.getReplyToId() != null) {
-            Message replyToMessage = messageRepository.findById(request.getReplyToId())
+            Message replyToMessage = messageRepository.findWithSenderById(request.getReplyToId())
                     .orElseThrow(() -> new ResourceNotFoundException("Reply message not found"));
             message.setReplyTo(replyToMessage);
         }
+        return message;
+    }
 
-        Message savedMessage = messageRepository.save(message);
-        MessageDto messageDto = convertToDto(savedMessage);
-
-        // Send real-time notification
-        messagingTemplate.convertAndSendToUser(
-                recipient.getUsername(),
-                "/queue/messages",
-                messageDto
-        );
-
-        return messageDto;
+    /**
+     * Real-time notification, delivered once the transaction commits. Group
+     * messages go to the conversation topic so they are serialized once for
+     * every subscribed participant rather than once per member.
+     */
+    private void deliver(Message message, MessageDto messageDto) {
+        if (message.getConversation() != null) {
+            deliveryService.sendToTopic(
+                    "/topic/conversations/" + message.getConversation().getId(),
+                    messageDto
+            );
+        } else {
+            deliveryService.sendToUser(
+                    message.getRecipient().getUsername(),
+                    "/queue/messages",
+                    messageDto
+            );
+        }
     }
 
     public Page<MessageDto> getConversation(Long userId, Pageable pageable) {
-        User currentUser = getCurrentUserEntity();
         User otherUser = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
-        Page<Message> messages = messageRepository.findConversationBetweenUsers(
-                currentUser, otherUser, pageable);
+        String threadKey = Message.threadKey(currentUserContext.getUserId(), otherUser.getId());
+        long archived = messageArchiver.countThread(threadKey);
+        if (archived == 0) {
+            Page<MessageView> messages = messageRepository.findConversationBetweenUsers(threadKey, pageable);
+            return new PageImpl<>(convertViews(messages.getContent()), messages.getPageable(),
+                    messages.getTotalElements());
+        }
 
-        return messages.map(this::convertToDto);
+        int prefix = offsetPrefix(pageable);
+        return mergedPage(messageRepository.findConversationBetweenUsers(threadKey, PageRequest.of(0, prefix)),
+                messageArchiver.findThreadOldest(threadKey, prefix), archived, pageable);
     }
 
     public Page<MessageDto> getConversationMessages(Long conversationId, Pageable pageable) {
-        User currentUser = getCurrentUserEntity();
-        Conversation conversation = conversationRepository.findById(conversationId)
-                .orElseThrow(() -> new ResourceNotFoundException("Conversation not found"));
+        requireParticipant(conversationId, currentUserContext.getUserId());
 
-        if (!conversation.isParticipant(currentUser)) {
-            throw new BadRequestException("Not a participant in this conversation");
+        long archived = messageArchiver.countConversation(conversationId);
+        if (archived == 0) {
+            Page<MessageView> messages = messageRepository.findByConversationId(conversationId, pageable);
+            return new PageImpl<>(convertViews(messages.getContent()), messages.getPageable(),
+                    messages.getTotalElements());
         }
 
-        Page<Message> messages = messageRepository.findByConversationId(conversationId, pageable);
-        return messages.map(this::convertToDto);
+        int prefix = offsetPrefix(pageable);
+        return mergedPage(messageRepository.findByConversationId(conversationId, PageRequest.of(0, prefix)),
+                messageArchiver.findConversationOldest(conversationId, prefix), archived, pageable);
+    }
+
+    public MessageHistoryDto getConversationHistory(Long userId, String before, String after, Integer limit) {
+        Long selfId = currentUserContext.getUserId();
+        User otherUser = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+        Long beforeId = MessageCursor.decode(before);
+        Long afterId = MessageCursor.decode(after);
+        Pageable page = historyPage(beforeId, afterId, limit);
+
+        String threadKey = Message.threadKey(selfId, otherUser.getId());
+        Long seekId = beforeId != null ? beforeId : Long.MAX_VALUE;
+        Slice<MessageView> messages = afterId != null
+                ? messageRepository.findConversationBetweenUsersAfter(threadKey, afterId, page)
+                : messageRepository.findConversationBetweenUsersBefore(threadKey, seekId, page);
+
+        Slice<MessageDto> archived = reachesArchive(messages, afterId == null)
+                ? messageArchiver.findThreadHistory(threadKey, seekId, afterId, page)
+                : null;
+        return toHistory(messages, archived, afterId == null);
+    }
+
+    public MessageHistoryDto getConversationMessageHistory(Long conversationId, String before, String after,
+                                                           Integer limit) {
+        requireParticipant(conversationId, currentUserContext.getUserId());
+
+        Long beforeId = MessageCursor.decode(before);
+        Long afterId = MessageCursor.decode(after);
+        Pageable page = historyPage(beforeId, afterId, limit);
+
+        Long seekId = beforeId != null ? beforeId : Long.MAX_VALUE;
+        Slice<MessageView> messages = afterId != null
+                ? messageRepository.findByConversationIdAfter(conversationId, afterId, page)
+                : messageRepository.findByConversationIdBefore(conversationId, seekId, page);
+
+        Slice<MessageDto> archived = reachesArchive(messages, afterId == null)
+                ? messageArchiver.findConversationHistory(conversationId, seekId, afterId, page)
+                : null;
+        return toHistory(messages, archived, afterId == null);
     }
 
     public void markMessageAsRead(Long messageId) {
-        User currentUser = getCurrentUserEntity();
-        Message message = messageRepository.findById(messageId)
+        Long currentUserId = currentUserContext.getUserId();
+        Message message = messageRepository.findWithUsersById(messageId)
                 .orElseThrow(() -> new ResourceNotFoundException("Message not found"));
 
-        if (!message.getRecipient().equals(currentUser)) {
+        if (!message.getRecipient().getId().equals(currentUserId)) {
             throw new BadRequestException("Not authorized to mark this message as read");
         }
 
         if (!message.isRead()) {
             message.markAsRead();
             messageRepository.save(message);
+            unreadCounterService.recordRead(message);
+            inboxService.recordRead(currentUserId,
+                    message.getConversation() != null ? InboxEntry.Kind.GROUP : InboxEntry.Kind.DIRECT,
+                    UnreadCounterService.scopeIdOf(message), 1);
 
-            // Notify sender about read status
-            MessageDto messageDto = convertToDto(message);
-            messagingTemplate.convertAndSendToUser(
+            // Notify sender about read status, in the same shape as the aggregated receipts
+            ReadReceiptDto receipt = new ReadReceiptDto(currentUserId, currentUserContext.getUsername(),
+                    message.getConversation() != null ? message.getConversation().getId() : null,
+                    1, message.getReadAt());
+            receipt.setMessageId(message.getId());
+            deliveryService.sendToUser(
                     message.getSender().getUsername(),
                     "/queue/read-receipts",
-                    messageDto
+                    receipt
             );
         }
     }
 
-    public void markConversationAsRead(Long userId) {
-        User currentUser = getCurrentUserEntity();
+    public int markConversationAsRead(Long userId) {
+        Long currentUserId = currentUserContext.getUserId();
         User otherUser = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
-        List<Message> unreadMessages = messageRepository.findUnreadMessages(currentUser);
-        
-        for (Message message : unreadMessages) {
-            if (message.getSender().equals(otherUser)) {
-                message.markAsRead();
-                messageRepository.save(message);
-            }
+        LocalDateTime readAt = LocalDateTime.now();
+        int updated = messageRepository.markDirectMessagesAsRead(currentUserId, otherUser.getId(), readAt);
+        if (updated == 0) {
+            return 0;
         }
+
+        unreadCounterService.recordRead(currentUserId, UnreadCounter.Scope.DIRECT, otherUser.getId(), updated);
+        inboxService.recordRead(currentUserId, InboxEntry.Kind.DIRECT, otherUser.getId(), updated);
+
+        // One aggregated receipt instead of one per message
+        deliveryService.sendToUser(
+                otherUser.getUsername(),
+                "/queue/read-receipts",
+                new ReadReceiptDto(currentUserId, currentUserContext.getUsername(), null, updated, readAt)
+        );
+
+        return updated;
+    }
+
+    public int markGroupConversationAsRead(Long conversationId) {
+        Long currentUserId = currentUserContext.getUserId();
+        requireParticipant(conversationId, currentUserId);
+
+        List<Object[]> unreadBySender = messageRepository.countUnreadGroupMessagesBySender(
+                currentUserId, conversationId);
+        if (unreadBySender.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime readAt = LocalDateTime.now();
+        int updated = messageRepository.markGroupMessagesAsRead(currentUserId, conversationId, readAt);
+
+        unreadCounterService.recordRead(currentUserId, UnreadCounter.Scope.GROUP, conversationId, updated);
+        inboxService.recordRead(currentUserId, InboxEntry.Kind.GROUP, conversationId, updated);
+
+        // One aggregated receipt per sender whose messages were read
+        for (Object[] row : unreadBySender) {
+            deliveryService.sendToUser(
+                    (String) row[0],
+                    "/queue/read-receipts",
+                    new ReadReceiptDto(currentUserId, currentUserContext.getUsername(), conversationId,
+                            ((Long) row[1]).intValue(), readAt)
+            );
+        }
+
+        return updated;
     }
 
     public long getUnreadMessageCount() {
-        User currentUser = getCurrentUserEntity();
-        return messageRepository.countUnreadMessages(currentUser);
+        return unreadCounterService.getTotalUnread(currentUserContext.getUserId());
     }
 
-    public List<User> getRecentConversations(Pageable pageable) {
-        User currentUser = getCurrentUserEntity();
-        return messageRepository.findRecentConversationPartners(currentUser, pageable);
+    public List<InboxEntryDto> getRecentConversations(Pageable pageable) {
+        return inboxService.getInbox(currentUserContext.getUserId(), pageable);
     }
 
-    private User getCurrentUserEntity() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-        return userRepository.findByUsername(userPrincipal.getUsername())
-                .orElseThrow(() -> new ResourceNotFoundException("Current user not found"));
+    private void requireParticipant(Long conversationId, Long userId) {
+        if (!conversationRepository.existsById(conversationId)) {
+            throw new ResourceNotFoundException("Conversation not found");
+        }
+        if (!membershipCache.isParticipant(conversationId, userId)) {
+            throw new BadRequestException("Not a participant in this conversation");
+        }
     }
 
-    private MessageDto convertToDto(Message message) {
-        MessageDto dto = modelMapper.map(message, MessageDto.class);
-        
-        if (message.getConversation() != null) {
-            dto.setConversationId(message.getConversation().getId());
+    private Pageable historyPage(Long beforeId, Long afterId, Integer limit) {
+        if (beforeId != null && afterId != null) {
+            throw new BadRequestException("Use either 'before' or 'after', not both");
+        }
+        int size = limit == null ? DEFAULT_HISTORY_LIMIT : Math.min(Math.max(limit, 1), MAX_HISTORY_LIMIT);
+        return PageRequest.of(0, size);
+    }
+
+    /**
+     * Whether a history page has to read the archive too. Archived ids
+     * interleave with the oldest hot ones, since unread and replied-to messages
+     * stay hot, so a backwards page needs the archive once it runs out of hot
+     * rows or reaches past the hot window. A forward page cannot tell from its
+     * hot rows whether archived ones lie between the cursor and them.
+     */
+    private boolean reachesArchive(Slice<MessageView> hot, boolean backwards) {
+        if (!backwards || !hot.hasNext()) {
+            return true;
+        }
+        List<MessageView> rows = hot.getContent();
+        return rows.get(rows.size() - 1).getCreatedAt().isBefore(messageArchiver.hotWindowStart());
+    }
+
+    /**
+     * Backwards slices are fetched newest-first so the seek stays on the index;
+     * they are flipped here so every history response is in chronological order.
+     * The cursor always points at the last row read, in the direction of travel.
+     * Archived rows, when read, are merged in by id and the page cut back to size.
+     */
+    private MessageHistoryDto toHistory(Slice<MessageView> slice, Slice<MessageDto> archived, boolean backwards) {
+        List<MessageDto> messages = convertViews(slice.getContent());
+        boolean hasMore = slice.hasNext();
+        if (archived != null && archived.hasContent()) {
+            messages.addAll(archived.getContent());
+            Comparator<MessageDto> byId = Comparator.comparing(MessageDto::getId);
+            messages.sort(backwards ? byId.reversed() : byId);
+            if (messages.size() > slice.getSize()) {
+                messages = new ArrayList<>(messages.subList(0, slice.getSize()));
+                hasMore = true;
+            }
+            hasMore = hasMore || archived.hasNext();
+        }
+
+        String nextCursor = null;
+        if (!messages.isEmpty()) {
+            nextCursor = MessageCursor.encode(messages.get(messages.size() - 1).getId());
+        }
+        if (backwards) {
+            Collections.reverse(messages);
         }
-        
-        if (message.getReplyTo() != null) {
-            dto.setReplyTo(convertToDto(message.getReplyTo()));
+
+        return new MessageHistoryDto(messages, nextCursor, hasMore);
+    }
+
+    // Rows an offset page needs from each tier: everything up to its end
+    private static int offsetPrefix(Pageable pageable) {
+        return Math.toIntExact(pageable.getOffset() + pageable.getPageSize());
+    }
+
+    /**
+     * Offset pages run oldest-first, so once a thread has archived rows they
+     * are the first pages. Both tiers are read up to the end of the page, merged
+     * in time order and the page cut out; only its hot rows are converted. The
+     * cost grows with the page number, which the cursor history calls avoid.
+     */
+    private Page<MessageDto> mergedPage(Page<MessageView> hot, Slice<MessageDto> archived, long archivedTotal,
+                                        Pageable pageable) {
+        List<MessageView> hotRows = hot.getContent();
+        List<MessageDto> archivedRows = archived.getContent();
+        long from = pageable.getOffset();
+        long to = from + pageable.getPageSize();
+        List<MessageView> hotPage = new ArrayList<>();
+        List<MessageDto> messages = new ArrayList<>();
+        int h = 0;
+        int a = 0;
+        for (long position = 0; position < to && (h < hotRows.size() || a < archivedRows.size()); position++) {
+            boolean takeHot = a == archivedRows.size() || h < hotRows.size()
+                    && isBefore(hotRows.get(h), archivedRows.get(a));
+            if (takeHot) {
+                MessageView view = hotRows.get(h++);
+                if (position >= from) {
+                    hotPage.add(view);
+                }
+            } else {
+                MessageDto dto = archivedRows.get(a++);
+                if (position >= from) {
+                    messages.add(dto);
+                }
+            }
+        }
+
+        messages.addAll(convertViews(hotPage));
+        messages.sort(Comparator.comparing(MessageDto::getCreatedAt).thenComparing(MessageDto::getId));
+        return new PageImpl<>(messages, pageable, hot.getTotalElements() + archivedTotal);
+    }
+
+    private static boolean isBefore(MessageView hot, MessageDto archived) {
+        int byTime = hot.getCreatedAt().compareTo(archived.getCreatedAt());
+        return byTime != 0 ? byTime < 0 : hot.getId() < archived.getId();
+    }
+
+    private List<MessageDto> convertViews(List<MessageView> views) {
+        List<MessageDto> dtos = new ArrayList<>(views.size());
+        for (MessageView view : views) {
+            dtos.add(messageMapper.toDto(view));
+        }
+        return withBodies(dtos);
+    }
+
+    /**
+     * Fills in the bodies and reply snippets a row or entity came back without
+     * when bodies are kept outside the messages table, in one store lookup.
+     */
+    private List<MessageDto> withBodies(List<MessageDto> dtos) {
+        if (bodyStore.storesInTable()) {
+            return dtos;
+        }
+        // A page is one thread, read as one range; reply targets by id
+        Map<String, List<MessageDto>> threads = new LinkedHashMap<>();
+        Set<Long> replyIds = new HashSet<>();
+        for (MessageDto dto : dtos) {
+            if (dto.getContent() == null) {
+                String thread = dto.getConversationId() != null
+                        ? "c:" + dto.getConversationId()
+                        : Message.threadKey(dto.getSender().getId(), dto.getRecipient().getId());
+                threads.computeIfAbsent(thread, key -> new ArrayList<>()).add(dto);
+            }
+            if (dto.getReplyTo() != null && dto.getReplyTo().getSnippet() == null) {
+                replyIds.add(dto.getReplyTo().getId());
+            }
+        }
+        Map<Long, String> contents = new HashMap<>();
+        for (List<MessageDto> thread : threads.values()) {
+            MessageDto first = thread.get(0);
+            List<Long> ids = new ArrayList<>(thread.size());
+            thread.forEach(dto -> ids.add(dto.getId()));
+            contents.putAll(bodyStore.contentsOf(first.getConversationId(),
+                    Message.threadKey(first.getSender().getId(), first.getRecipient().getId()), ids));
+        }
+        replyIds.removeAll(contents.keySet());
+        if (!replyIds.isEmpty()) {
+            contents.putAll(bodyStore.contentsOf(replyIds));
+        }
+        for (MessageDto dto : dtos) {
+            if (dto.getContent() == null) {
+                dto.setContent(contents.get(dto.getId()));
+            }
+            if (dto.getReplyTo() != null && dto.getReplyTo().getSnippet() == null) {
+                dto.getReplyTo().setSnippet(InboxEntry.snippetOf(contents.get(dto.getReplyTo().getId())));
+            }
+        }
+        return dtos;
+    }
+
+    /**
+     * A send on its way through the writer, carrying the sender from the
+     * request thread's security context and, once written, its outcome.
+     */
+    private static final class PendingSend {
+        private final Long senderId;
+        private final SendMessageRequest request;
+        private MessageDto message;
+        private RuntimeException error;
+
+        private PendingSend(Long senderId, SendMessageRequest request) {
+            this.senderId = senderId;
+            this.request = request;
+        }
+
+        private void succeed(MessageDto message) {
+            this.message = message;
+            this.error = null;
+        }
+
+        private void fail(RuntimeException error) {
+            this.message = null;
+            this.error = error;
+        }
+
+        private MessageDto result() {
+            if (error != null) {
+                throw error;
+            }
+            return message;
         }
-        
-        return dto;
     }
-}
\ No newline at end of file
+}
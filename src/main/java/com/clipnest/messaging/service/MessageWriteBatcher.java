@@ -0,0 +1,157 @@
+package com.clipnest.messaging.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Group commit for message writes. Callers queue a write and wait while one
+ * writer thread drains the queue into batches, each handed to the writer in
+ * a single call (one transaction), so concurrent sends share a commit and a
+ * JDBC insert batch. A batch closes when it is full or when its first write
+ * has waited the maximum wait, which bounds the latency batching adds. A
+ * failed batch is retried one write at a time so one bad write does not
+ * fail its neighbours. When the queue is full, or the batcher has stopped,
+ * the caller writes alone; writes still queued at stop are committed by
+ * {@link #stop()}.
+ */
+final class MessageWriteBatcher<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageWriteBatcher.class);
+
+    // Bounds a caller's wait should the writer thread hang on a commit
+    static final long WRITE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final Consumer<List<T>> writer;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<PendingWrite<T>> queue;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    MessageWriteBatcher(Consumer<List<T>> writer, int maxBatchSize, long maxWaitMillis, int queueCapacity) {
+        this.writer = writer;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.thread = new Thread(this::drain, "message-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Writes the item as part of a batch and returns once that batch has
+     * committed, rethrowing the writer's exception if it failed.
+     */
+    void write(T item) {
+        PendingWrite<T> pending = new PendingWrite<>(item);
+        if (!running || !queue.offer(pending)) {
+            writer.accept(List.of(item));
+            return;
+        }
+        // Queued just as stop() drained the queue: take it back and write alone
+        if (!running && queue.remove(pending)) {
+            writer.accept(List.of(item));
+            return;
+        }
+        try {
+            pending.done.get(WRITE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Message write did not complete within " + WRITE_TIMEOUT_MILLIS + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for message write", e);
+        }
+    }
+
+    /**
+     * Stops taking writes into batches and commits any still queued.
+     */
+    void stop() throws InterruptedException {
+        running = false;
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+        List<PendingWrite<T>> rest = new ArrayList<>();
+        while (queue.drainTo(rest, maxBatchSize) > 0) {
+            commit(rest);
+            rest.clear();
+        }
+    }
+
+    private void drain() {
+        List<PendingWrite<T>> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite<T> first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                queue.drainTo(batch, maxBatchSize - 1);
+                while (batch.size() < maxBatchSize) {
+                    PendingWrite<T> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                IllegalStateException stopped = new IllegalStateException("Message writer stopped");
+                batch.forEach(pending -> pending.done.completeExceptionally(stopped));
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingWrite<T>> batch) {
+        List<T> items = new ArrayList<>(batch.size());
+        batch.forEach(pending -> items.add(pending.item));
+        try {
+            writer.accept(items);
+            batch.forEach(pending -> pending.done.complete(null));
+            return;
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).done.completeExceptionally(e);
+                return;
+            }
+            logger.warn("Message write batch of {} failed, retrying one at a time: {}", batch.size(), e.getMessage());
+        }
+        for (PendingWrite<T> pending : batch) {
+            try {
+                writer.accept(List.of(pending.item));
+                pending.done.complete(null);
+            } catch (RuntimeException e) {
+                pending.done.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static final class PendingWrite<T> {
+        private final T item;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private PendingWrite(T item) {
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.dto.RoutedFrameDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Consumes this node's queue on the external broker and hands the frames
+ * routed here by peers to the local user sessions. Only active with the broker
+ * relay and a cluster-wide session registry.
+ */
+@Component
+public class NodeQueueSubscriber implements SmartInitializingSingleton, MessageHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(NodeQueueSubscriber.class);
+
+    @Autowired
+    private ObjectProvider<StompBrokerRelayMessageHandler> relayMessageHandler;
+
+    @Autowired
+    private UserSessionRegistry sessionRegistry;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        StompBrokerRelayMessageHandler relay = relayMessageHandler.getIfAvailable();
+        if (relay == null || !sessionRegistry.isClusterWide()) {
+            return;
+        }
+        // Runs before the relay starts, so the subscription is made on its system session
+        Map<String, MessageHandler> subscriptions = new HashMap<>(relay.getSystemSubscriptions());
+        subscriptions.put(MessageDeliveryService.NODE_QUEUE_PREFIX + sessionRegistry.getLocalNodeId(), this);
+        relay.setSystemSubscriptions(subscriptions);
+    }
+
+    @Override
+    public void handleMessage(Message<?> message) {
+        try {
+            RoutedFrameDto frame = objectMapper.readValue((byte[]) message.getPayload(), RoutedFrameDto.class);
+            messagingTemplate.convertAndSendToUser(frame.getUsername(), frame.getDestination(), frame.getPayload(),
+                    Map.of(MessageDeliveryService.BATCH_SIZE_HEADER, frame.getBatchSize()));
+        } catch (IOException e) {
+            logger.error("Discarding unreadable routed frame: {}", e.getMessage());
+        }
+    }
+}
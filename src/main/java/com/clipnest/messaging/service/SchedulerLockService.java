@@ -0,0 +1,68 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.repository.SchedulerLockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Keeps a scheduled job to one node at a time. Every node schedules the job;
+ * the node whose conditional UPDATE takes the job's scheduler_locks row runs
+ * it and the others skip that run. A lock left by a node that stopped mid-run
+ * expires after app.scheduling.lock-timeout-ms.
+ */
+@Service
+public class SchedulerLockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerLockService.class);
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.scheduling.lock-timeout-ms}")
+    private long lockTimeoutMs;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    /**
+     * Runs the job unless another node holds its lock, returning whether it ran.
+     */
+    public boolean runExclusively(String name, Runnable job) {
+        if (!tryAcquire(name)) {
+            logger.debug("Skipping {}, running on another node", name);
+            return false;
+        }
+        try {
+            job.run();
+            return true;
+        } finally {
+            transactionTemplate.executeWithoutResult(status ->
+                    schedulerLockRepository.release(name, owner, now()));
+        }
+    }
+
+    private boolean tryAcquire(String name) {
+        LocalDateTime now = now();
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            schedulerLockRepository.insertIfMissing(name, now);
+            return schedulerLockRepository.acquire(name, owner, now, now.plus(Duration.ofMillis(lockTimeoutMs))) == 1;
+        }));
+    }
+
+    // datetime(6) rounds, so a time stored with nanoseconds could land after
+    // the same instant compared unrounded
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+}
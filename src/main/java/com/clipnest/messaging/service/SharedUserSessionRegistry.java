@@ -0,0 +1,100 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.entity.UserSession;
+import com.clipnest.messaging.repository.UserSessionRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Session registry backed by the user_sessions table, visible to every node.
+ * Each node refreshes its rows on a heartbeat; rows of a node that stopped
+ * without cleaning up fall out of lookups once they go stale.
+ *
+ * Frames for a user on another node go through that node's queue on the
+ * external broker, so this registry needs the broker relay; with the simple
+ * broker those frames would be dropped, and startup fails instead.
+ */
+@Service
+@ConditionalOnProperty(name = "app.websocket.session-registry.type", havingValue = "shared")
+public class SharedUserSessionRegistry implements UserSessionRegistry {
+
+    @Autowired
+    private UserSessionRepository userSessionRepository;
+
+    @Value("${app.websocket.session-registry.stale-after-ms}")
+    private long staleAfterMs;
+
+    private final String localNodeId;
+
+    public SharedUserSessionRegistry(@Value("${app.websocket.node-id}") String nodeId,
+                                     @Value("${app.websocket.broker.mode}") String brokerMode) {
+        if (!"relay".equalsIgnoreCase(brokerMode)) {
+            throw new IllegalStateException("app.websocket.session-registry.type=shared requires "
+                    + "app.websocket.broker.mode=relay, was " + brokerMode);
+        }
+        this.localNodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+    }
+
+    @Override
+    public String getLocalNodeId() {
+        return localNodeId;
+    }
+
+    @Override
+    @Transactional
+    public void register(String username, String sessionId) {
+        userSessionRepository.save(new UserSession(sessionId, username, localNodeId));
+    }
+
+    @Override
+    @Transactional
+    public void unregister(String username, String sessionId) {
+        userSessionRepository.deleteSession(localNodeId, sessionId, username);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Set<String>> getNodeIds(Collection<String> usernames) {
+        Map<String, Set<String>> nodeIds = new HashMap<>();
+        if (usernames.isEmpty()) {
+            return nodeIds;
+        }
+        LocalDateTime since = LocalDateTime.now().minus(Duration.ofMillis(staleAfterMs));
+        for (Object[] row : userSessionRepository.findActiveNodeIds(usernames, since)) {
+            nodeIds.computeIfAbsent((String) row[0], k -> new HashSet<>()).add((String) row[1]);
+        }
+        return nodeIds;
+    }
+
+    @Override
+    public boolean isClusterWide() {
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.websocket.session-registry.heartbeat-interval-ms}")
+    @Transactional
+    public void heartbeat() {
+        LocalDateTime now = LocalDateTime.now();
+        userSessionRepository.touchNode(localNodeId, now);
+        userSessionRepository.deleteStale(now.minus(Duration.ofMillis(staleAfterMs)));
+    }
+
+    @PreDestroy
+    public void releaseSessions() {
+        userSessionRepository.deleteByNodeId(localNodeId);
+    }
+}
@@ -0,0 +1,53 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.entity.Message;
+import com.clipnest.messaging.repository.MessageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bodies in the content column of the messages row, written by the insert itself.
+ */
+@Service
+@ConditionalOnProperty(name = "app.messaging.body-store.type", havingValue = "table", matchIfMissing = true)
+public class TableMessageBodyStore implements MessageBodyStore {
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Override
+    public boolean storesInTable() {
+        return true;
+    }
+
+    @Override
+    public void append(Map<Message, String> contents) {
+        // Inserted with the row
+    }
+
+    @Override
+    public String contentOf(Message message) {
+        return message.getContent();
+    }
+
+    @Override
+    public Map<Long, String> contentsOf(Collection<Long> messageIds) {
+        Map<Long, String> contents = new HashMap<>();
+        if (!messageIds.isEmpty()) {
+            for (Object[] row : messageRepository.findContents(messageIds)) {
+                contents.put((Long) row[0], (String) row[1]);
+            }
+        }
+        return contents;
+    }
+
+    @Override
+    public Map<Long, String> contentsOf(Long conversationId, String threadKey, Collection<Long> messageIds) {
+        return contentsOf(messageIds);
+    }
+}
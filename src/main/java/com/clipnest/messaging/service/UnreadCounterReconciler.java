@@ -0,0 +1,62 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Periodically repairs unread counters and inbox entries against the messages
+ * table. Each user is reconciled in its own transaction, so a long run never
+ * holds locks on many rows at a time. Runs on one node at a time.
+ */
+@Component
+public class UnreadCounterReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnreadCounterReconciler.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
+    @Autowired
+    private InboxService inboxService;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Scheduled(initialDelayString = "${app.messaging.unread.reconcile-interval-ms}",
+               fixedDelayString = "${app.messaging.unread.reconcile-interval-ms}")
+    public void reconcileAll() {
+        schedulerLockService.runExclusively("unread-reconciler", this::reconcileUsers);
+    }
+
+    private void reconcileUsers() {
+        long lastId = 0L;
+        int reconciled = 0;
+        List<Long> userIds;
+        do {
+            userIds = userRepository.findIdsAfter(lastId, PageRequest.of(0, BATCH_SIZE));
+            for (Long userId : userIds) {
+                try {
+                    unreadCounterService.reconcileUser(userId);
+                    inboxService.reconcileUser(userId);
+                    reconciled++;
+                } catch (Exception e) {
+                    logger.error("Failed to reconcile unread state for user {}: {}", userId, e.getMessage());
+                }
+                lastId = userId;
+            }
+        } while (userIds.size() == BATCH_SIZE);
+        logger.debug("Reconciled unread state for {} users", reconciled);
+    }
+}
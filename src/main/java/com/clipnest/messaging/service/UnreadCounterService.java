@@ -0,0 +1,87 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.entity.Message;
+import com.clipnest.messaging.entity.UnreadCounter;
+import com.clipnest.messaging.entity.UnreadCounter.Scope;
+import com.clipnest.messaging.repository.UnreadCounterRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Maintains the per-user unread counters. Callers run inside the same
+ * transaction as the message write, so counters commit or roll back with it.
+ */
+@Service
+@Transactional
+public class UnreadCounterService {
+
+    private static final long TOTAL_SCOPE_ID = 0L;
+
+    @Autowired
+    private UnreadCounterRepository unreadCounterRepository;
+
+    /**
+     * Counts new messages as unread for their recipients, with one increment
+     * per counter however many of the messages land on it.
+     */
+    public void recordUnread(Collection<Message> messages) {
+        Map<Long, Map<CounterKey, Long>> deltas = new LinkedHashMap<>();
+        for (Message message : messages) {
+            Map<CounterKey, Long> userDeltas = deltas.computeIfAbsent(message.getRecipient().getId(),
+                    userId -> new LinkedHashMap<>());
+            userDeltas.merge(new CounterKey(Scope.TOTAL, TOTAL_SCOPE_ID), 1L, Long::sum);
+            userDeltas.merge(new CounterKey(scopeOf(message), scopeIdOf(message)), 1L, Long::sum);
+        }
+        deltas.forEach((userId, userDeltas) -> userDeltas.forEach((key, delta) ->
+                unreadCounterRepository.increment(userId, key.scope().name(), key.scopeId(), delta)));
+    }
+
+    public void recordRead(Message message) {
+        recordRead(message.getRecipient().getId(), scopeOf(message), scopeIdOf(message), 1);
+    }
+
+    public void recordRead(Long userId, Scope scope, Long scopeId, long count) {
+        if (count <= 0) {
+            return;
+        }
+        unreadCounterRepository.decrement(userId, Scope.TOTAL, TOTAL_SCOPE_ID, count);
+        unreadCounterRepository.decrement(userId, scope, scopeId, count);
+    }
+
+    @Transactional(readOnly = true)
+    public long getTotalUnread(Long userId) {
+        return unreadCounterRepository.findByUserIdAndScopeAndScopeId(userId, Scope.TOTAL, TOTAL_SCOPE_ID)
+                .map(UnreadCounter::getUnreadCount)
+                .orElse(0L);
+    }
+
+    /**
+     * Rebuilds a user's counters from the messages table, correcting any drift
+     * left by failed writes or manual data fixes. Missing counters are added
+     * at zero and all of them are recounted in place, never written from
+     * counts read earlier, so sends committing meanwhile are not lost.
+     */
+    public void reconcileUser(Long userId) {
+        unreadCounterRepository.increment(userId, Scope.TOTAL.name(), TOTAL_SCOPE_ID, 0);
+        unreadCounterRepository.insertMissing(userId);
+        unreadCounterRepository.recount(userId);
+    }
+
+    static Scope scopeOf(Message message) {
+        return message.getConversation() != null ? Scope.GROUP : Scope.DIRECT;
+    }
+
+    static Long scopeIdOf(Message message) {
+        return message.getConversation() != null
+                ? message.getConversation().getId()
+                : message.getSender().getId();
+    }
+
+    private record CounterKey(Scope scope, Long scopeId) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.dto.UserDto;
+import com.clipnest.messaging.repository.FollowRequestRepository;
+import com.clipnest.messaging.repository.UserFollowRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fills the viewer-relative flags (isFollowing, isFollowedBy,
+ * hasRequestedFollow) on a list of users with one set-based query per flag,
+ * so a page costs three round trips whatever its size.
+ */
+@Component
+public class UserRelationshipAnnotator {
+
+    @Autowired
+    private UserFollowRepository userFollowRepository;
+
+    @Autowired
+    private FollowRequestRepository followRequestRepository;
+
+    public void annotate(List<UserDto> users, Long viewerId) {
+        Set<Long> ids = new HashSet<>();
+        for (UserDto user : users) {
+            if (!user.getId().equals(viewerId)) {
+                ids.add(user.getId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        Set<Long> following = new HashSet<>(userFollowRepository.findFollowingIdsAmong(viewerId, ids));
+        Set<Long> followedBy = new HashSet<>(userFollowRepository.findFollowerIdsAmong(viewerId, ids));
+        Set<Long> requested = new HashSet<>(followRequestRepository.findRequesteeIdsAmong(viewerId, ids));
+
+        for (UserDto user : users) {
+            if (ids.contains(user.getId())) {
+                user.setFollowing(following.contains(user.getId()));
+                user.setFollowedBy(followedBy.contains(user.getId()));
+                user.setHasRequestedFollow(requested.contains(user.getId()));
+            }
+        }
+    }
+}
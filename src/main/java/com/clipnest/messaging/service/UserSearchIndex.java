@@ -0,0 +1,542 @@
+package com.clipnest.messaging.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory n-gram index over usernames and first/last names.
+ *
+ * Every word is indexed under its trigrams plus two anchored grams ("^a",
+ * "^ab") marking its start. One- and two-character queries are answered as
+ * prefix lookups, longer ones by intersecting the trigram posting lists;
+ * queries of four characters or more also admit words within a small edit
+ * distance. Matches are ranked exact word, then prefix, then substring, then
+ * typo, with username hits ahead of name hits.
+ *
+ * Postings hold user ids as sorted int arrays to keep a million-user index
+ * compact. The index is thread-safe.
+ */
+public class UserSearchIndex {
+
+    private static final char ANCHOR = '^';
+
+    private static final int SCORE_EXACT = 100;
+    private static final int SCORE_PREFIX = 80;
+    private static final int SCORE_SUBSTRING = 50;
+    private static final int SCORE_FUZZY = 30;
+    private static final int USERNAME_BONUS = 5;
+
+    // Candidates the typo pass will score, taken in order of shared grams
+    private static final int MAX_FUZZY_CANDIDATES = 2000;
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds the user or replaces what was indexed for them.
+     */
+    public void put(Long id, String username, String firstName, String lastName) {
+        Entry entry = new Entry(id, username, firstName, lastName);
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.put(id, entry);
+            if (previous != null) {
+                unlink(previous);
+            }
+            link(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the user unless they are already indexed, so a bulk load cannot
+     * overwrite a newer incremental update.
+     */
+    public void putIfAbsent(Long id, String username, String firstName, String lastName) {
+        Entry entry = new Entry(id, username, firstName, lastName);
+        lock.writeLock().lock();
+        try {
+            if (entries.putIfAbsent(id, entry) == null) {
+                link(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(id);
+            if (previous != null) {
+                unlink(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks every user matching all words of the query and returns the ids of
+     * the best {@code limit}, along with the total number of matches. Typo
+     * matches rank below every exact match, so they are only looked for when
+     * the exact matches do not fill the limit, and the total then counts only
+     * the typo matches found among the best-overlapping candidates.
+     */
+    public Result search(String query, int limit) {
+        String[] tokens = tokenize(query);
+        if (tokens.length == 0 || limit <= 0) {
+            return new Result(Collections.emptyList(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            TopHits top = new TopHits(limit);
+            for (int id : exactCandidates(tokens)) {
+                Entry entry = entries.get((long) id);
+                top.offer(entry, score(entry, tokens, false));
+            }
+
+            if (top.total < limit) {
+                for (int id : fuzzyCandidates(tokens)) {
+                    Entry entry = entries.get((long) id);
+                    // Exact matches were counted above
+                    if (score(entry, tokens, false) == 0) {
+                        top.offer(entry, score(entry, tokens, true));
+                    }
+                }
+            }
+            return top.result();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids containing every gram of the most selective query word, found by
+     * walking its shortest posting list and probing the others.
+     */
+    private int[] exactCandidates(String[] tokens) {
+        List<PostingList> best = null;
+        for (String token : tokens) {
+            List<PostingList> lists = new ArrayList<>();
+            for (String gram : exactGrams(token)) {
+                PostingList list = postings.get(gram);
+                if (list == null) {
+                    return new int[0];
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            if (best == null || lists.get(0).size < best.get(0).size) {
+                best = lists;
+            }
+        }
+
+        PostingList shortest = best.get(0);
+        int[] from = new int[best.size()];
+        int[] result = new int[shortest.size];
+        int count = 0;
+        for (int i = 0; i < shortest.size; i++) {
+            int id = shortest.ids[i];
+            boolean inAll = true;
+            for (int j = 1; j < best.size() && inAll; j++) {
+                PostingList list = best.get(j);
+                int index = Arrays.binarySearch(list.ids, from[j], list.size, id);
+                from[j] = index >= 0 ? index + 1 : -index - 1;
+                inAll = index >= 0;
+            }
+            if (inAll) {
+                result[count++] = id;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Ids sharing enough grams with a query word to be within its typo budget,
+     * found by merging the posting lists and counting hits per id. Uses the
+     * longest word, as the one with the most selective grams. Returns at most
+     * {@link #MAX_FUZZY_CANDIDATES}, those sharing the most grams first.
+     */
+    private int[] fuzzyCandidates(String[] tokens) {
+        String token = tokens[0];
+        for (String candidate : tokens) {
+            if (candidate.length() > token.length()) {
+                token = candidate;
+            }
+        }
+        int maxTypos = maxTypos(token);
+        if (maxTypos == 0) {
+            return new int[0];
+        }
+
+        Set<String> grams = new LinkedHashSet<>(exactGrams(token));
+        // Lets a typo late in the word still reach words with the same start
+        grams.add(ANCHOR + token.substring(0, 2));
+        int minHits = Math.max(1, grams.size() - 3 * maxTypos);
+        List<PostingList> lists = new ArrayList<>();
+        for (String gram : grams) {
+            PostingList list = postings.get(gram);
+            if (list != null) {
+                lists.add(list);
+            }
+        }
+        if (lists.size() < minHits) {
+            return new int[0];
+        }
+
+        int[] positions = new int[lists.size()];
+        int[] result = new int[16];
+        int[] resultHits = new int[16];
+        int count = 0;
+        while (true) {
+            int min = 0;
+            boolean remaining = false;
+            for (int i = 0; i < lists.size(); i++) {
+                PostingList list = lists.get(i);
+                if (positions[i] < list.size && (!remaining || list.ids[positions[i]] < min)) {
+                    min = list.ids[positions[i]];
+                    remaining = true;
+                }
+            }
+            if (!remaining) {
+                break;
+            }
+            int hits = 0;
+            for (int i = 0; i < lists.size(); i++) {
+                PostingList list = lists.get(i);
+                if (positions[i] < list.size && list.ids[positions[i]] == min) {
+                    hits++;
+                    positions[i]++;
+                }
+            }
+            if (hits >= minHits) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                    resultHits = Arrays.copyOf(resultHits, count * 2);
+                }
+                resultHits[count] = hits;
+                result[count++] = min;
+            }
+        }
+
+        // Counting sort by hits, most first, stopping at the cap
+        int[] selected = new int[Math.min(count, MAX_FUZZY_CANDIDATES)];
+        int taken = 0;
+        for (int hits = lists.size(); hits >= minHits && taken < selected.length; hits--) {
+            for (int i = 0; i < count && taken < selected.length; i++) {
+                if (resultHits[i] == hits) {
+                    selected[taken++] = result[i];
+                }
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Sum of the per-word scores, or 0 unless every query word matches.
+     */
+    private static int score(Entry entry, String[] tokens, boolean fuzzy) {
+        int score = 0;
+        for (String token : tokens) {
+            int best = score(entry.username, token, fuzzy);
+            if (best > 0) {
+                best += USERNAME_BONUS;
+            }
+            for (String word : entry.nameWords) {
+                best = Math.max(best, score(word, token, fuzzy));
+            }
+            if (best == 0) {
+                return 0;
+            }
+            score += best;
+        }
+        return score;
+    }
+
+    private static int score(String word, String token, boolean fuzzy) {
+        if (word.equals(token)) {
+            return SCORE_EXACT;
+        }
+        if (word.startsWith(token)) {
+            return SCORE_PREFIX;
+        }
+        if (token.length() >= 3 && word.contains(token)) {
+            return SCORE_SUBSTRING;
+        }
+        int maxTypos = maxTypos(token);
+        if (fuzzy && maxTypos > 0) {
+            int distance = Math.min(
+                    editDistance(token, word, maxTypos),
+                    editDistance(token, word.substring(0, Math.min(word.length(), token.length())), maxTypos));
+            if (distance <= maxTypos) {
+                return SCORE_FUZZY - 10 * distance;
+            }
+        }
+        return 0;
+    }
+
+    private static int maxTypos(String token) {
+        if (token.length() >= 8) {
+            return 2;
+        }
+        return token.length() >= 4 ? 1 : 0;
+    }
+
+    /**
+     * Edit distance counting an adjacent transposition as one edit (optimal
+     * string alignment), giving up with {@code max + 1} once it is exceeded.
+     */
+    static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    private void link(Entry entry) {
+        int id = entry.postingId();
+        for (String gram : entry.grams()) {
+            postings.computeIfAbsent(gram, key -> new PostingList()).add(id);
+        }
+    }
+
+    private void unlink(Entry entry) {
+        int id = entry.postingId();
+        for (String gram : entry.grams()) {
+            PostingList list = postings.get(gram);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static String[] tokenize(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).trim();
+        return normalized.isEmpty() ? new String[0] : normalized.split("\\s+");
+    }
+
+    /**
+     * Grams every word containing the token has: the anchored prefix for one
+     * or two characters, which only matches word starts, else its trigrams.
+     */
+    private static Set<String> exactGrams(String token) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (token.length() < 3) {
+            grams.add(ANCHOR + token);
+            return grams;
+        }
+        for (int i = 0; i + 3 <= token.length(); i++) {
+            grams.add(token.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static void addWordGrams(String word, Set<String> grams) {
+        grams.add(ANCHOR + word.substring(0, 1));
+        if (word.length() >= 2) {
+            grams.add(ANCHOR + word.substring(0, 2));
+        }
+        for (int i = 0; i + 3 <= word.length(); i++) {
+            grams.add(word.substring(i, i + 3));
+        }
+    }
+
+    public static class Result {
+
+        private final List<Long> ids;
+        private final int total;
+
+        Result(List<Long> ids, int total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+
+    private static class Entry {
+
+        private final Long id;
+        private final String username;
+        private final String[] nameWords;
+
+        Entry(Long id, String username, String firstName, String lastName) {
+            this.id = id;
+            this.username = username.toLowerCase(Locale.ROOT);
+            List<String> words = new ArrayList<>();
+            for (String name : new String[] { firstName, lastName }) {
+                Collections.addAll(words, tokenize(name));
+            }
+            this.nameWords = words.toArray(new String[0]);
+        }
+
+        int postingId() {
+            // Ids are kept as ints in the postings; fail loudly rather than wrap
+            return Math.toIntExact(id);
+        }
+
+        Set<String> grams() {
+            Set<String> grams = new LinkedHashSet<>();
+            addWordGrams(username, grams);
+            for (String word : nameWords) {
+                addWordGrams(word, grams);
+            }
+            return grams;
+        }
+    }
+
+    private static class Hit {
+
+        static final Comparator<Hit> RANKING = Comparator.<Hit>comparingInt(hit -> -hit.score)
+                .thenComparingInt(hit -> hit.entry.username.length())
+                .thenComparing(hit -> hit.entry.id);
+
+        private final Entry entry;
+        private final int score;
+
+        Hit(Entry entry, int score) {
+            this.entry = entry;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Keeps the best {@code limit} hits in a heap with the worst on top, and
+     * counts every match offered.
+     */
+    private static class TopHits {
+
+        private final int limit;
+        private final PriorityQueue<Hit> heap;
+        private int total;
+
+        TopHits(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(Math.min(limit, 1024) + 1, Hit.RANKING.reversed());
+        }
+
+        void offer(Entry entry, int score) {
+            if (score == 0) {
+                return;
+            }
+            total++;
+            Hit hit = new Hit(entry, score);
+            if (heap.size() == limit) {
+                if (Hit.RANKING.compare(hit, heap.peek()) >= 0) {
+                    return;
+                }
+                heap.poll();
+            }
+            heap.add(hit);
+        }
+
+        Result result() {
+            List<Hit> hits = new ArrayList<>(heap);
+            hits.sort(Hit.RANKING);
+            List<Long> ids = new ArrayList<>(hits.size());
+            for (Hit hit : hits) {
+                ids.add(hit.entry.id);
+            }
+            return new Result(ids, total);
+        }
+    }
+
+    /**
+     * Sorted, growable array of ids. Ids mostly arrive in increasing order, so
+     * adding is usually an append.
+     */
+    private static class PostingList {
+
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int index = Arrays.binarySearch(ids, 0, size, id);
+                if (index >= 0) {
+                    return;
+                }
+                insertAt(-index - 1, id);
+                return;
+            }
+            insertAt(size, id);
+        }
+
+        boolean remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        private void insertAt(int index, int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.dto.UserSuggestionDto;
+import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * User search backed by {@link UserSearchIndex}, and typeahead suggestions
+ * backed by {@link UserSuggestIndex}. Both are loaded from the users table
+ * once the application is ready and kept current as users register, edit
+ * their profile or gain and lose followers; until the load finishes, or with
+ * app.search.index.enabled off, searches fall back to the LIKE query and
+ * suggestions to a username prefix query. Suggestions rank by follower count.
+ *
+ * The index is per node. Changes made on other nodes are picked up by a
+ * periodic refresh of the users whose updated_at moved since the last one,
+ * and of the suggestion ranks of those whose follower_count_changed_at did.
+ */
+@Service
+public class UserSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchService.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${app.search.index.enabled}")
+    private boolean enabled;
+
+    @Value("${app.search.index.load-batch-size}")
+    private int loadBatchSize;
+
+    @Value("${app.search.index.max-results}")
+    private int maxResults;
+
+    @Value("${app.search.suggest.top-k}")
+    private int suggestTopK;
+
+    @Value("${app.search.index.refresh-overlap-ms}")
+    private long refreshOverlapMs;
+
+    private final UserSearchIndex index = new UserSearchIndex();
+
+    private UserSuggestIndex suggestIndex;
+
+    private volatile boolean ready;
+
+    private volatile LocalDateTime refreshedFrom;
+
+    @PostConstruct
+    void init() {
+        suggestIndex = new UserSuggestIndex(suggestTopK);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        refreshedFrom = LocalDateTime.now();
+        long lastId = 0L;
+        List<Object[]> rows;
+        do {
+            rows = userRepository.findSearchFieldsAfter(lastId, PageRequest.of(0, loadBatchSize));
+            for (Object[] row : rows) {
+                lastId = (Long) row[0];
+                index.putIfAbsent(lastId, (String) row[1], (String) row[2], (String) row[3]);
+                suggestIndex.putIfAbsent(lastId, (String) row[1], (String) row[2], (String) row[3], (Integer) row[4]);
+            }
+        } while (rows.size() == loadBatchSize);
+        ready = true;
+        logger.info("User search index loaded with {} users", index.size());
+    }
+
+    /**
+     * Re-indexes the users updated since the previous refresh, on any node,
+     * and re-ranks the suggestions of users whose follower count changed.
+     * The window reaches back by app.search.index.refresh-overlap-ms so rows
+     * committed late by a slower transaction are still seen; reading a user
+     * twice only indexes the same fields again.
+     */
+    @Scheduled(initialDelayString = "${app.search.index.refresh-interval-ms}",
+               fixedDelayString = "${app.search.index.refresh-interval-ms}")
+    public void refresh() {
+        if (!ready) {
+            return;
+        }
+        LocalDateTime started = LocalDateTime.now();
+        LocalDateTime since = refreshedFrom.minus(Duration.ofMillis(refreshOverlapMs));
+        List<Object[]> rows = userRepository.findSearchFieldsUpdatedSince(since);
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            index.put(id, (String) row[1], (String) row[2], (String) row[3]);
+            suggestIndex.put(id, (String) row[1], (String) row[2], (String) row[3], (Integer) row[4]);
+        }
+        List<Object[]> ranked = userRepository.findSearchFieldsWithFollowerCountChangedSince(since);
+        for (Object[] row : ranked) {
+            suggestIndex.put((Long) row[0], (String) row[1], (String) row[2], (String) row[3], (Integer) row[4]);
+        }
+        refreshedFrom = started;
+        logger.debug("User search index refreshed {} users and {} suggestion ranks", rows.size(), ranked.size());
+    }
+
+    /**
+     * Moves the user's suggestion rank by a change in their follower count
+     * once the surrounding transaction commits.
+     */
+    public void adjustFollowerCount(Long userId, int delta) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    suggestIndex.adjustRank(userId, delta);
+                }
+            });
+        } else {
+            suggestIndex.adjustRank(userId, delta);
+        }
+    }
+
+    /**
+     * Indexes the user's current names once the surrounding transaction
+     * commits, so a rolled-back registration never becomes searchable.
+     */
+    public void index(User user) {
+        if (!enabled) {
+            return;
+        }
+        Long id = user.getId();
+        String username = user.getUsername();
+        String firstName = user.getFirstName();
+        String lastName = user.getLastName();
+        int followerCount = user.getFollowerCount();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    index.put(id, username, firstName, lastName);
+                    suggestIndex.put(id, username, firstName, lastName, followerCount);
+                }
+            });
+        } else {
+            index.put(id, username, firstName, lastName);
+            suggestIndex.put(id, username, firstName, lastName, followerCount);
+        }
+    }
+
+    /**
+     * Best-ranked users whose username, first, last or full name starts with
+     * the prefix; at most app.search.suggest.top-k.
+     */
+    public List<UserSuggestionDto> suggest(String prefix, Integer limit) {
+        int size = limit == null ? suggestTopK : Math.min(Math.max(limit, 1), suggestTopK);
+        if (ready) {
+            return suggestIndex.suggest(prefix, size);
+        }
+
+        List<UserSuggestionDto> suggestions = new ArrayList<>();
+        for (User user : userRepository.findByUsernameStartingWithOrderByUsername(prefix.trim(), PageRequest.of(0, size))) {
+            suggestions.add(new UserSuggestionDto(user.getId(), user.getUsername(), user.getFirstName(), user.getLastName()));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Returns the requested page of matches in rank order. Only the best
+     * app.search.index.max-results matches are reachable by paging.
+     */
+    public Page<User> search(String query, Pageable pageable) {
+        if (!ready) {
+            return userRepository.searchUsers(query, pageable);
+        }
+
+        Pageable page = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        int end = (int) Math.min(page.getOffset() + page.getPageSize(), maxResults);
+        UserSearchIndex.Result result = index.search(query, Math.max(end, 1));
+        int from = (int) Math.min(page.getOffset(), result.getIds().size());
+        List<Long> ids = result.getIds().subList(from, result.getIds().size());
+
+        Map<Long, User> byId = new HashMap<>();
+        for (User user : userRepository.findAllById(ids)) {
+            byId.put(user.getId(), user);
+        }
+        List<User> users = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = byId.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return new PageImpl<>(users, page, Math.min(result.getTotal(), maxResults));
+    }
+}
@@ -1,27 +1,43 @@
 package com.clipnest.messaging.service;
 
 import com.clipnest.messaging.dto.UserDto;
+import com.clipnest.messaging.dto.UserListDto;
 import com.clipnest.messaging.entity.FollowRequest;
 import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.entity.UserFollow;
 import com.clipnest.messaging.exception.BadRequestException;
 import com.clipnest.messaging.exception.ResourceNotFoundException;
+import com.clipnest.messaging.mapper.UserMapper;
 import com.clipnest.messaging.repository.FollowRequestRepository;
+import com.clipnest.messaging.repository.UserFollowRepository;
 import com.clipnest.messaging.repository.UserRepository;
-import com.clipnest.messaging.security.UserPrincipal;
-import org.modelmapper.ModelMapper;
+import com.clipnest.messaging.security.CurrentUserContext;
+import com.clipnest.messaging.security.UserPrincipalCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
 @Service
 @Transactional
 public class UserService {
 
+    private static final int DEFAULT_LIST_LIMIT = 50;
+    private static final int MAX_LIST_LIMIT = 100;
+
+    // Seek start for the first page of a newest-first list
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     @Autowired
     private UserRepository userRepository;
 
@@ -29,13 +45,28 @@ public class UserService {
     private FollowRequestRepository followRequestRepository;
 
     @Autowired
-    private ModelMapper modelMapper;
+    private UserFollowRepository userFollowRepository;
+
+    @Autowired
+    private UserMapper userMapper;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserPrincipalCache principalCache;
+
+    @Autowired
+    private CurrentUserContext currentUserContext;
+
+    @Autowired
+    private UserRelationshipAnnotator relationshipAnnotator;
+
+    @Autowired
+    private UserSearchService userSearchService;
+
     public UserDto getCurrentUser() {
-        User user = getCurrentUserEntity();
+        User user = currentUserContext.load();
         return convertToDto(user, user);
     }
 
@@ -43,17 +74,18 @@ public class UserService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
         
-        User currentUser = getCurrentUserEntity();
+        User currentUser = currentUserContext.getReference();
         return convertToDto(user, currentUser);
     }
 
     public UserDto updateProfile(UserDto userDto) {
-        User currentUser = getCurrentUserEntity();
+        User currentUser = currentUserContext.load();
         
         if (userDto.getUsername() != null && !userDto.getUsername().equals(currentUser.getUsername())) {
             if (userRepository.existsByUsername(userDto.getUsername())) {
                 throw new BadRequestException("Username is already taken");
             }
+            principalCache.evict(currentUser.getUsername());
             currentUser.setUsername(userDto.getUsername());
         }
         
@@ -83,11 +115,12 @@ public class UserService {
         currentUser.setPrivate(userDto.isPrivate());
         
         User savedUser = userRepository.save(currentUser);
+        userSearchService.index(savedUser);
         return convertToDto(savedUser, savedUser);
     }
 
     public void changePassword(String currentPassword, String newPassword) {
-        User user = getCurrentUserEntity();
+        User user = currentUserContext.load();
         
         if (!passwordEncoder.matches(currentPassword, user.getPassword())) {
             throw new BadRequestException("Current password is incorrect");
@@ -95,29 +128,28 @@ public class UserService {
         
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        principalCache.evict(user.getUsername());
     }
 
     public Page<UserDto> searchUsers(String query, Pageable pageable) {
-        User currentUser = getCurrentUserEntity();
-        Page<User> users = userRepository.searchUsers(query, pageable);
-        return users.map(user -> convertToDto(user, currentUser));
+        Page<User> users = userSearchService.search(query, pageable);
+        return toDtoPage(users);
     }
 
     public UserDto followUser(String username) {
-        User currentUser = getCurrentUserEntity();
+        User currentUser = currentUserContext.getReference();
         User targetUser = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
 
-        if (currentUser.equals(targetUser)) {
+        if (currentUser.getId().equals(targetUser.getId())) {
             throw new BadRequestException("Cannot follow yourself");
         }
 
-        if (currentUser.getFollowing().contains(targetUser)) {
-            throw new BadRequestException("Already following this user");
-        }
-
         if (targetUser.isPrivate()) {
             // Create follow request for private accounts
+            if (userFollowRepository.isFollowing(currentUser.getId(), targetUser.getId())) {
+                throw new BadRequestException("Already following this user");
+            }
             if (followRequestRepository.existsByRequesterAndRequestee(currentUser, targetUser)) {
                 throw new BadRequestException("Follow request already sent");
             }
@@ -128,30 +160,28 @@ public class UserService {
             return convertToDto(targetUser, currentUser);
         } else {
             // Direct follow for public accounts
-            currentUser.getFollowing().add(targetUser);
-            targetUser.getFollowers().add(currentUser);
-            
-            userRepository.save(currentUser);
-            userRepository.save(targetUser);
+            if (!addFollow(currentUser, targetUser)) {
+                throw new BadRequestException("Already following this user");
+            }
+            targetUser.setFollowerCount(targetUser.getFollowerCount() + 1);
             
             return convertToDto(targetUser, currentUser);
         }
     }
 
     public UserDto unfollowUser(String username) {
-        User currentUser = getCurrentUserEntity();
+        User currentUser = currentUserContext.getReference();
         User targetUser = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
 
-        if (!currentUser.getFollowing().contains(targetUser)) {
+        if (userFollowRepository.deleteFollow(currentUser.getId(), targetUser.getId()) == 0) {
             throw new BadRequestException("Not following this user");
         }
 
-        currentUser.getFollowing().remove(targetUser);
-        targetUser.getFollowers().remove(currentUser);
-
-        userRepository.save(currentUser);
-        userRepository.save(targetUser);
+        userRepository.adjustFollowingCount(currentUser.getId(), -1);
+        userRepository.adjustFollowerCount(targetUser.getId(), -1);
+        userSearchService.adjustFollowerCount(targetUser.getId(), -1);
+        targetUser.setFollowerCount(targetUser.getFollowerCount() - 1);
 
         return convertToDto(targetUser, currentUser);
     }
@@ -160,39 +190,55 @@ public class UserService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
         
-        User currentUser = getCurrentUserEntity();
-        
-        // Convert Set to Page manually or use a different approach
-        return userRepository.findUsersByIds(
-            user.getFollowers().stream().map(User::getId).toList(), 
-            pageable
-        ).map(follower -> convertToDto(follower, currentUser));
+        // Always newest follow first; a client sort on user columns cannot use the index
+        return toDtoPage(userRepository.findFollowers(user.getId(), unsorted(pageable)));
     }
 
     public Page<UserDto> getFollowing(String username, Pageable pageable) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
         
-        User currentUser = getCurrentUserEntity();
-        
-        return userRepository.findUsersByIds(
-            user.getFollowing().stream().map(User::getId).toList(), 
-            pageable
-        ).map(following -> convertToDto(following, currentUser));
+        return toDtoPage(userRepository.findFollowing(user.getId(), unsorted(pageable)));
+    }
+
+    public UserListDto getRecentFollowers(String username, String before, Integer limit) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+        FollowCursor cursor = FollowCursor.decode(before);
+
+        Slice<UserFollow> follows = userFollowRepository.findFollowersBefore(user.getId(),
+                cursor != null ? cursor.getFollowedAt() : LATEST, cursor != null ? cursor.getUserId() : Long.MAX_VALUE,
+                listPage(limit));
+        return toUserList(follows, UserFollow::getFollower);
+    }
+
+    public UserListDto getRecentFollowing(String username, String before, Integer limit) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found: " + username));
+        FollowCursor cursor = FollowCursor.decode(before);
+
+        Slice<UserFollow> follows = userFollowRepository.findFollowingBefore(user.getId(),
+                cursor != null ? cursor.getFollowedAt() : LATEST, cursor != null ? cursor.getUserId() : Long.MAX_VALUE,
+                listPage(limit));
+        return toUserList(follows, UserFollow::getFollowing);
     }
 
     public Page<UserDto> getFollowRequests(Pageable pageable) {
-        User currentUser = getCurrentUserEntity();
+        User currentUser = currentUserContext.getReference();
         Page<FollowRequest> requests = followRequestRepository.findPendingRequestsForUser(currentUser, pageable);
-        return requests.map(request -> convertToDto(request.getRequester(), currentUser));
+        List<User> requesters = new ArrayList<>(requests.getNumberOfElements());
+        for (FollowRequest request : requests) {
+            requesters.add(request.getRequester());
+        }
+        return new PageImpl<>(toDtos(requesters, currentUser.getId()), requests.getPageable(), requests.getTotalElements());
     }
 
     public UserDto acceptFollowRequest(Long requestId) {
-        User currentUser = getCurrentUserEntity();
+        User currentUser = currentUserContext.getReference();
         FollowRequest request = followRequestRepository.findById(requestId)
                 .orElseThrow(() -> new ResourceNotFoundException("Follow request not found"));
 
-        if (!request.getRequestee().equals(currentUser)) {
+        if (!request.getRequestee().getId().equals(currentUser.getId())) {
             throw new BadRequestException("Not authorized to accept this request");
         }
 
@@ -206,21 +252,20 @@ public class UserService {
 
         // Add to followers/following
         User requester = request.getRequester();
-        requester.getFollowing().add(currentUser);
-        currentUser.getFollowers().add(requester);
-
-        userRepository.save(requester);
-        userRepository.save(currentUser);
+        // Read before the count update, which a lazy requester would otherwise load
+        int followingCount = requester.getFollowingCount();
+        if (addFollow(requester, currentUser)) {
+            requester.setFollowingCount(followingCount + 1);
+        }
 
         return convertToDto(requester, currentUser);
     }
 
     public void rejectFollowRequest(Long requestId) {
-        User currentUser = getCurrentUserEntity();
         FollowRequest request = followRequestRepository.findById(requestId)
                 .orElseThrow(() -> new ResourceNotFoundException("Follow request not found"));
 
-        if (!request.getRequestee().equals(currentUser)) {
+        if (!request.getRequestee().getId().equals(currentUserContext.getUserId())) {
             throw new BadRequestException("Not authorized to reject this request");
         }
 
@@ -232,26 +277,69 @@ public class UserService {
         followRequestRepository.save(request);
     }
 
-    private User getCurrentUserEntity() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-        return userRepository.findByUsername(userPrincipal.getUsername())
-                .orElseThrow(() -> new ResourceNotFoundException("Current user not found"));
+    private Pageable unsorted(Pageable pageable) {
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
     }
 
-    private UserDto convertToDto(User user, User currentUser) {
-        UserDto dto = modelMapper.map(user, UserDto.class);
-        dto.setFollowerCount(user.getFollowerCount());
-        dto.setFollowingCount(user.getFollowingCount());
-        
-        if (currentUser != null && !currentUser.equals(user)) {
-            dto.setFollowing(currentUser.getFollowing().contains(user));
-            dto.setFollowedBy(user.getFollowing().contains(currentUser));
-            dto.setHasRequestedFollow(
-                followRequestRepository.existsByRequesterAndRequestee(currentUser, user)
-            );
+    private Pageable listPage(Integer limit) {
+        int size = limit == null ? DEFAULT_LIST_LIMIT : Math.min(Math.max(limit, 1), MAX_LIST_LIMIT);
+        return PageRequest.of(0, size);
+    }
+
+    private UserListDto toUserList(Slice<UserFollow> follows, Function<UserFollow, User> side) {
+        List<User> page = new ArrayList<>(follows.getNumberOfElements());
+        for (UserFollow follow : follows) {
+            page.add(side.apply(follow));
         }
-        
+        List<UserDto> users = toDtos(page, currentUserContext.getUserId());
+
+        String nextCursor = null;
+        if (!follows.isEmpty()) {
+            UserFollow last = follows.getContent().get(follows.getNumberOfElements() - 1);
+            nextCursor = FollowCursor.encode(last.getCreatedAt(), side.apply(last).getId());
+        }
+        return new UserListDto(users, nextCursor, follows.hasNext());
+    }
+
+    /**
+     * Inserts the follow unless it already exists; the counts move only when a
+     * row was inserted, so a follow racing with another one counts once.
+     */
+    private boolean addFollow(User follower, User followed) {
+        if (userFollowRepository.insertFollow(follower.getId(), followed.getId(), LocalDateTime.now()) == 0) {
+            return false;
+        }
+        userRepository.adjustFollowingCount(follower.getId(), 1);
+        userRepository.adjustFollowerCount(followed.getId(), 1);
+        userSearchService.adjustFollowerCount(followed.getId(), 1);
+        return true;
+    }
+
+    private Page<UserDto> toDtoPage(Page<User> users) {
+        List<UserDto> dtos = toDtos(users.getContent(), currentUserContext.getUserId());
+        return new PageImpl<>(dtos, users.getPageable(), users.getTotalElements());
+    }
+
+    /**
+     * Maps a page of users and fills the viewer-relative flags in one batch,
+     * rather than three existence checks per row.
+     */
+    private List<UserDto> toDtos(List<User> users, Long viewerId) {
+        List<UserDto> dtos = new ArrayList<>(users.size());
+        for (User user : users) {
+            dtos.add(mapUser(user));
+        }
+        relationshipAnnotator.annotate(dtos, viewerId);
+        return dtos;
+    }
+
+    private UserDto convertToDto(User user, User currentUser) {
+        UserDto dto = mapUser(user);
+        relationshipAnnotator.annotate(List.of(dto), currentUser.getId());
         return dto;
     }
+
+    private UserDto mapUser(User user) {
+        return userMapper.toDto(user);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.clipnest.messaging.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+
+/**
+ * Keeps the user session registry in step with STOMP connects and disconnects.
+ */
+@Component
+public class UserSessionEventListener {
+
+    @Autowired
+    private UserSessionRegistry sessionRegistry;
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (user != null && sessionId != null) {
+            sessionRegistry.register(user.getName(), sessionId);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Principal user = event.getUser();
+        if (user != null) {
+            sessionRegistry.unregister(user.getName(), event.getSessionId());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.clipnest.messaging.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tracks which node holds each user's WebSocket sessions so user destinations
+ * can be delivered by the owning node instead of being broadcast to all of them.
+ */
+public interface UserSessionRegistry {
+
+    String getLocalNodeId();
+
+    void register(String username, String sessionId);
+
+    void unregister(String username, String sessionId);
+
+    /**
+     * Nodes currently holding at least one session for the user.
+     */
+    default Set<String> getNodeIds(String username) {
+        return getNodeIds(List.of(username)).getOrDefault(username, Set.of());
+    }
+
+    /**
+     * Nodes holding sessions for each of the users, in one lookup; users with
+     * no session are left out.
+     */
+    Map<String, Set<String>> getNodeIds(Collection<String> usernames);
+
+    /**
+     * Whether lookups cover every node. A node-local registry only knows its
+     * own sessions, so an empty lookup does not mean the user is offline.
+     */
+    boolean isClusterWide();
+}
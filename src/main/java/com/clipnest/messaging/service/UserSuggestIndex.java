@@ -0,0 +1,447 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.dto.UserSuggestionDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefix trie for typeahead over usernames, first and last names and the
+ * full "first last" name, answering the best matches for a prefix without
+ * touching the database.
+ *
+ * The trie is path-compressed: each edge carries a label, so a unique suffix
+ * such as the tail of a username costs one node. Users are ranked by follower
+ * count, then shorter username. A node whose subtree holds more than
+ * {@code topK} terms keeps its best {@code topK} users, so a lookup on a
+ * common prefix is a walk plus an array copy; smaller subtrees are simply
+ * collected. The index is thread-safe.
+ */
+public class UserSuggestIndex {
+
+    private static final Doc[] NO_DOCS = new Doc[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    private static final Comparator<Doc> RANKING = Comparator.<Doc>comparingInt(doc -> -doc.rank)
+            .thenComparingInt(doc -> doc.username.length())
+            .thenComparing(doc -> doc.id);
+
+    private final int topK;
+    private final Node root = new Node("");
+    private final Map<Long, Doc> docs = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public UserSuggestIndex(int topK) {
+        this.topK = topK;
+    }
+
+    /**
+     * Adds the user or replaces what was indexed for them.
+     */
+    public void put(Long id, String username, String firstName, String lastName, int rank) {
+        lock.writeLock().lock();
+        try {
+            replace(new Doc(id, username, firstName, lastName, rank));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves an indexed user's rank by {@code delta}, as when they gain or lose
+     * a follower; users not indexed are left out.
+     */
+    public void adjustRank(Long id, int delta) {
+        lock.writeLock().lock();
+        try {
+            Doc doc = docs.get(id);
+            if (doc != null) {
+                replace(new Doc(id, doc.username, doc.firstName, doc.lastName, doc.rank + delta));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the user unless they are already indexed, so a bulk load cannot
+     * overwrite a newer incremental update.
+     */
+    public void putIfAbsent(Long id, String username, String firstName, String lastName, int rank) {
+        Doc doc = new Doc(id, username, firstName, lastName, rank);
+        lock.writeLock().lock();
+        try {
+            if (docs.putIfAbsent(id, doc) == null) {
+                for (String term : doc.terms()) {
+                    insert(root, term, 0, doc);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Doc previous = docs.remove(id);
+            if (previous != null) {
+                for (String term : previous.terms()) {
+                    remove(root, term, 0, previous);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} (at most topK) users with a name or username
+     * starting with the prefix, best ranked first.
+     */
+    public List<UserSuggestionDto> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = find(key);
+            if (node == null) {
+                return Collections.emptyList();
+            }
+            Doc[] best = node.top != null ? node.top : collectTop(node);
+            List<UserSuggestionDto> suggestions = new ArrayList<>(Math.min(limit, best.length));
+            for (int i = 0; i < best.length && i < limit; i++) {
+                Doc doc = best[i];
+                suggestions.add(new UserSuggestionDto(doc.id, doc.username, doc.firstName, doc.lastName));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of nodes below the root, which path compression keeps to at
+     * most two per distinct term.
+     */
+    int nodeCount() {
+        lock.readLock().lock();
+        try {
+            return countNodes(root) - 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int countNodes(Node node) {
+        int count = 1;
+        for (Node child : node.children) {
+            count += countNodes(child);
+        }
+        return count;
+    }
+
+    /**
+     * The node whose subtree holds exactly the terms starting with the key; a
+     * key ending inside an edge label resolves to the node below that edge.
+     */
+    private Node find(String key) {
+        Node node = root;
+        int offset = 0;
+        while (offset < key.length()) {
+            Node child = node.child(key.charAt(offset));
+            if (child == null) {
+                return null;
+            }
+            int remaining = key.length() - offset;
+            if (remaining <= child.label.length()) {
+                return child.label.startsWith(key.substring(offset)) ? child : null;
+            }
+            if (!key.startsWith(child.label, offset)) {
+                return null;
+            }
+            offset += child.label.length();
+            node = child;
+        }
+        return node;
+    }
+
+    private void insert(Node node, String term, int offset, Doc doc) {
+        node.size++;
+        if (offset == term.length()) {
+            node.terminals = insertSorted(node.terminals, doc, Integer.MAX_VALUE);
+        } else {
+            Node child = node.child(term.charAt(offset));
+            if (child == null) {
+                child = new Node(term.substring(offset));
+                node.addChild(child);
+            } else {
+                int common = commonPrefix(child.label, term, offset);
+                if (common < child.label.length()) {
+                    child = split(node, child, common);
+                }
+            }
+            insert(child, term, offset + child.label.length(), doc);
+        }
+
+        if (node.top != null) {
+            node.top = insertSorted(node.top, doc, topK);
+        } else if (node.size > topK) {
+            node.top = collectTop(node);
+        }
+    }
+
+    private void remove(Node node, String term, int offset, Doc doc) {
+        if (offset == term.length()) {
+            node.terminals = removeSorted(node.terminals, doc);
+        } else {
+            Node child = node.child(term.charAt(offset));
+            if (child == null || !term.startsWith(child.label, offset)) {
+                return;
+            }
+            remove(child, term, offset + child.label.length(), doc);
+            if (child.size == 0) {
+                node.removeChild(child);
+            } else if (child.terminals.length == 0 && child.children.length == 1) {
+                node.replaceChild(child, merge(child));
+            }
+        }
+        node.size--;
+
+        if (node.size <= topK) {
+            node.top = null;
+        } else if (indexOf(node.top, doc) >= 0) {
+            node.top = collectTop(node);
+        }
+    }
+
+    /**
+     * Splits the child's edge after {@code at} characters, returning the new
+     * middle node that takes the child's place.
+     */
+    private Node split(Node parent, Node child, int at) {
+        Node middle = new Node(child.label.substring(0, at));
+        middle.size = child.size;
+        middle.top = child.top;
+        middle.children = new Node[] { child };
+        parent.replaceChild(child, middle);
+        child.label = child.label.substring(at);
+        return middle;
+    }
+
+    /**
+     * Folds a node with no terminals into its only child.
+     */
+    private Node merge(Node node) {
+        Node only = node.children[0];
+        only.label = node.label + only.label;
+        return only;
+    }
+
+    /**
+     * Best topK docs in the subtree: its own terminals merged with each
+     * child's best, which for small subtrees means walking them.
+     */
+    private Doc[] collectTop(Node node) {
+        Doc[] best = NO_DOCS;
+        for (Doc doc : node.terminals) {
+            if (best.length == topK && RANKING.compare(doc, best[topK - 1]) >= 0) {
+                break;
+            }
+            best = insertSorted(best, doc, topK);
+        }
+        for (Node child : node.children) {
+            for (Doc doc : child.top != null ? child.top : collectTop(child)) {
+                if (best.length == topK && RANKING.compare(doc, best[topK - 1]) >= 0) {
+                    break;
+                }
+                best = insertSorted(best, doc, topK);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Inserts the doc in rank order, ignoring it if already present, keeping
+     * at most {@code max} entries.
+     */
+    private static Doc[] insertSorted(Doc[] sorted, Doc doc, int max) {
+        int index = Arrays.binarySearch(sorted, doc, RANKING);
+        if (index >= 0) {
+            return sorted;
+        }
+        int at = -index - 1;
+        if (at >= max) {
+            return sorted;
+        }
+        int length = Math.min(sorted.length + 1, max);
+        Doc[] result = new Doc[length];
+        System.arraycopy(sorted, 0, result, 0, at);
+        result[at] = doc;
+        System.arraycopy(sorted, at, result, at + 1, length - at - 1);
+        return result;
+    }
+
+    private static Doc[] removeSorted(Doc[] sorted, Doc doc) {
+        int index = indexOf(sorted, doc);
+        if (index < 0) {
+            return sorted;
+        }
+        if (sorted.length == 1) {
+            return NO_DOCS;
+        }
+        Doc[] result = new Doc[sorted.length - 1];
+        System.arraycopy(sorted, 0, result, 0, index);
+        System.arraycopy(sorted, index + 1, result, index, sorted.length - index - 1);
+        return result;
+    }
+
+    private static int indexOf(Doc[] sorted, Doc doc) {
+        if (sorted == null) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(sorted, doc, RANKING);
+        return index >= 0 && sorted[index] == doc ? index : -1;
+    }
+
+    private static int commonPrefix(String label, String term, int offset) {
+        int length = 0;
+        while (length < label.length() && offset + length < term.length()
+                && label.charAt(length) == term.charAt(offset + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    private void replace(Doc doc) {
+        Doc previous = docs.put(doc.id, doc);
+        if (previous != null) {
+            for (String term : previous.terms()) {
+                remove(root, term, 0, previous);
+            }
+        }
+        for (String term : doc.terms()) {
+            insert(root, term, 0, doc);
+        }
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+
+    private static class Doc {
+
+        private final Long id;
+        private final String username;
+        private final String firstName;
+        private final String lastName;
+        private final int rank;
+
+        Doc(Long id, String username, String firstName, String lastName, int rank) {
+            this.id = id;
+            this.username = username;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.rank = rank;
+        }
+
+        Set<String> terms() {
+            Set<String> terms = new LinkedHashSet<>();
+            terms.add(normalize(username));
+            String first = normalize(firstName);
+            String last = normalize(lastName);
+            if (!first.isEmpty()) {
+                terms.add(first);
+            }
+            if (!last.isEmpty()) {
+                terms.add(last);
+            }
+            if (!first.isEmpty() && !last.isEmpty()) {
+                terms.add(first + " " + last);
+            }
+            return terms;
+        }
+    }
+
+    private static class Node {
+
+        private String label;
+        private Node[] children = NO_NODES;
+        private Doc[] terminals = NO_DOCS;
+        // Best topK in the subtree, kept only once the subtree outgrows topK
+        private Doc[] top;
+        // Terms ending in this subtree
+        private int size;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node child(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char key = children[mid].label.charAt(0);
+                if (key < first) {
+                    low = mid + 1;
+                } else if (key > first) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+            return null;
+        }
+
+        void addChild(Node child) {
+            char first = child.label.charAt(0);
+            int at = 0;
+            while (at < children.length && children[at].label.charAt(0) < first) {
+                at++;
+            }
+            Node[] result = new Node[children.length + 1];
+            System.arraycopy(children, 0, result, 0, at);
+            result[at] = child;
+            System.arraycopy(children, at, result, at + 1, children.length - at);
+            children = result;
+        }
+
+        void removeChild(Node child) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == child) {
+                    Node[] result = new Node[children.length - 1];
+                    System.arraycopy(children, 0, result, 0, i);
+                    System.arraycopy(children, i + 1, result, i, children.length - i - 1);
+                    children = result.length == 0 ? NO_NODES : result;
+                    return;
+                }
+            }
+        }
+
+        void replaceChild(Node previous, Node replacement) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == previous) {
+                    children[i] = replacement;
+                    return;
+                }
+            }
+        }
+    }
+}
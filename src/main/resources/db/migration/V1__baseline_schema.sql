@@ -0,0 +1,168 @@
+-- Baseline: the schema Hibernate generated with ddl-auto: update before
+-- migrations were introduced, constraint names included, so databases created
+-- either way are identical. Existing databases are baselined at this version,
+-- so it must not change: every later table, column and index goes into V2 on.
+
+create table conversation_admins (
+    conversation_id bigint not null,
+    user_id bigint not null,
+    primary key (conversation_id, user_id)
+) engine=InnoDB;
+
+create table conversation_participants (
+    conversation_id bigint not null,
+    user_id bigint not null,
+    primary key (conversation_id, user_id)
+) engine=InnoDB;
+
+create table conversations (
+    created_at datetime(6),
+    created_by bigint,
+    id bigint not null auto_increment,
+    updated_at datetime(6),
+    description varchar(255),
+    name varchar(255),
+    type enum ('DIRECT','GROUP'),
+    primary key (id)
+) engine=InnoDB;
+
+create table follow_requests (
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    requestee_id bigint,
+    requester_id bigint,
+    responded_at datetime(6),
+    status enum ('PENDING','ACCEPTED','REJECTED'),
+    primary key (id)
+) engine=InnoDB;
+
+create table messages (
+    conversation_id bigint,
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    read_at datetime(6),
+    recipient_id bigint,
+    reply_to_id bigint,
+    sender_id bigint,
+    content TEXT,
+    status enum ('SENT','DELIVERED','READ'),
+    type enum ('TEXT','IMAGE','FILE','AUDIO','VIDEO'),
+    primary key (id)
+) engine=InnoDB;
+
+create table refresh_tokens (
+    created_at datetime(6),
+    expiry_date datetime(6) not null,
+    id bigint not null auto_increment,
+    user_id bigint,
+    token varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table user_follows (
+    follower_id bigint not null,
+    following_id bigint not null,
+    primary key (follower_id, following_id)
+) engine=InnoDB;
+
+create table users (
+    email_verified bit not null,
+    is_private bit not null,
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    updated_at datetime(6),
+    bio varchar(255),
+    email varchar(255),
+    first_name varchar(255),
+    last_name varchar(255),
+    password varchar(255),
+    profile_picture_url varchar(255),
+    username varchar(255),
+    role enum ('USER','ADMIN'),
+    primary key (id)
+) engine=InnoDB;
+
+alter table follow_requests 
+   add constraint UKrqklxjvx8dh546sa1t0638tuo unique (requester_id, requestee_id);
+
+alter table refresh_tokens 
+   add constraint UK_7tdcd6ab5wsgoudnvj7xf1b7l unique (user_id);
+
+alter table refresh_tokens 
+   add constraint UK_ghpmfn23vmxfu3spu3lfg4r2d unique (token);
+
+alter table users 
+   add constraint UK_6dotkott2kjsp8vw4d0m25fb7 unique (email);
+
+alter table users 
+   add constraint UK_r43af9ap4edm43mmtq01oddj6 unique (username);
+
+alter table conversation_admins 
+   add constraint FK7l7ljs3apytv248x70vqifcuo 
+   foreign key (user_id) 
+   references users (id);
+
+alter table conversation_admins 
+   add constraint FKajb4iie3u9a7xkv792sx8qai4 
+   foreign key (conversation_id) 
+   references conversations (id);
+
+alter table conversation_participants 
+   add constraint FKjukjgq6uinvvk4307y8u9lixu 
+   foreign key (user_id) 
+   references users (id);
+
+alter table conversation_participants 
+   add constraint FK84npv3fo2vwl7ut63im0p417q 
+   foreign key (conversation_id) 
+   references conversations (id);
+
+alter table conversations 
+   add constraint FK5uxcbsjes7nd38wm1qtsfaw28 
+   foreign key (created_by) 
+   references users (id);
+
+alter table follow_requests 
+   add constraint FKcesppqhwt1b9msx40opkq7wll 
+   foreign key (requestee_id) 
+   references users (id);
+
+alter table follow_requests 
+   add constraint FKdavofo5pfcbxtcbtvbo0tq4v9 
+   foreign key (requester_id) 
+   references users (id);
+
+alter table messages 
+   add constraint FKt492th6wsovh1nush5yl5jj8e 
+   foreign key (conversation_id) 
+   references conversations (id);
+
+alter table messages 
+   add constraint FKhdkwfnspwb3s60j27vpg0rpg6 
+   foreign key (recipient_id) 
+   references users (id);
+
+alter table messages 
+   add constraint FKg23x99if9xk265onv7btb0cg9 
+   foreign key (reply_to_id) 
+   references messages (id);
+
+alter table messages 
+   add constraint FK4ui4nnwntodh6wjvck53dbk9m 
+   foreign key (sender_id) 
+   references users (id);
+
+alter table refresh_tokens 
+   add constraint FK1lih5y2npsf8u5o3vhdb9y0os 
+   foreign key (user_id) 
+   references users (id);
+
+alter table user_follows 
+   add constraint FKqx9mu1fniaua5jfe1cdyspxdt 
+   foreign key (follower_id) 
+   references users (id);
+
+alter table user_follows 
+   add constraint FKp1rxuw1ulwo6mu84qaajuttrk 
+   foreign key (following_id) 
+   references users (id);
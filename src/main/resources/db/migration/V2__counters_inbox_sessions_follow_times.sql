@@ -0,0 +1,86 @@
+-- Objects the application added on top of the V1 baseline: unread counters,
+-- the materialized inbox, the shared session registry, stored follow counts,
+-- follow times and the message and follow indexes. Baselined databases get
+-- them here, with follow times and counts backfilled. Unread counters and
+-- inbox entries start empty and are filled by UnreadCounterReconciler.
+
+create table unread_counters (
+    id bigint not null auto_increment,
+    scope_id bigint not null,
+    unread_count bigint not null,
+    user_id bigint not null,
+    scope enum ('TOTAL','DIRECT','GROUP') not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table unread_counters
+   add constraint UKtnvvqgcyq2gfnduoe4qvqykp8 unique (user_id, scope, scope_id);
+
+create table inbox_entries (
+    id bigint not null auto_increment,
+    last_message_at datetime(6),
+    last_message_id bigint,
+    last_sender_id bigint,
+    peer_id bigint not null,
+    unread_count bigint not null,
+    user_id bigint not null,
+    last_message_snippet varchar(140),
+    kind enum ('DIRECT','GROUP') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_inbox_entries_user_last_message
+   on inbox_entries (user_id, last_message_at);
+
+alter table inbox_entries
+   add constraint UKedxj50u9r0bttq27chm19g641 unique (user_id, kind, peer_id);
+
+create table user_sessions (
+    connected_at datetime(6) not null,
+    id bigint not null auto_increment,
+    last_seen_at datetime(6) not null,
+    node_id varchar(64) not null,
+    session_id varchar(255) not null,
+    username varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_user_sessions_username
+   on user_sessions (username);
+
+create index idx_user_sessions_node
+   on user_sessions (node_id);
+
+-- Session ids are only unique per server (SockJS clients even choose them)
+alter table user_sessions
+   add constraint uk_user_sessions_node_session unique (node_id, session_id);
+
+-- Existing follows have no recorded time; they all get the migration time and
+-- keep a stable order among themselves through the trailing user id of the
+-- follow indexes
+alter table user_follows add column created_at datetime(6);
+
+update user_follows set created_at = current_timestamp(6);
+
+alter table user_follows modify column created_at datetime(6) not null;
+
+create index idx_user_follows_following_created
+   on user_follows (following_id, created_at, follower_id);
+
+create index idx_user_follows_follower_created
+   on user_follows (follower_id, created_at, following_id);
+
+-- Stored follow counts, counted once from the existing follows
+alter table users add column follower_count integer not null default 0;
+
+alter table users add column following_count integer not null default 0;
+
+update users u
+    set follower_count = (select count(*) from user_follows f where f.following_id = u.id),
+        following_count = (select count(*) from user_follows f where f.follower_id = u.id);
+
+create index idx_messages_sender_recipient_id
+   on messages (sender_id, recipient_id, id);
+
+create index idx_messages_conversation_id
+   on messages (conversation_id, id);
@@ -0,0 +1,24 @@
+-- Indexes for the repository queries that V1 and V2 left to full scans or filesorts.
+-- QueryPlanTest checks each query's plan against these.
+
+-- Direct message pages ordered by time: (sender, recipient) pairs, then created_at
+create index idx_messages_sender_recipient_created
+    on messages (sender_id, recipient_id, created_at);
+
+-- Group message pages ordered by time
+create index idx_messages_conversation_created
+    on messages (conversation_id, created_at);
+
+-- Unread counts and bulk mark-as-read: recipient and read_at IS NULL, with the
+-- sender and conversation the statements group or filter by
+create index idx_messages_recipient_unread
+    on messages (recipient_id, read_at, sender_id, conversation_id);
+
+-- A user's conversations; the primary key (conversation_id, user_id) only
+-- serves membership checks
+create index idx_conversation_participants_user
+    on conversation_participants (user_id, conversation_id);
+
+-- Pending requests for a user, newest first
+create index idx_follow_requests_requestee_status
+    on follow_requests (requestee_id, status, created_at);
@@ -0,0 +1,23 @@
+-- One-to-one history by a single key per pair: "lowId:highId" of sender and
+-- recipient, set by Message on insert. Both directions of a thread become one
+-- contiguous range of the thread indexes instead of an OR of two pairs.
+
+alter table messages add column thread_key varchar(41);
+
+-- Backfill in one statement; existing rows keep the key the entity would assign
+update messages
+    set thread_key = concat(least(sender_id, recipient_id), ':', greatest(sender_id, recipient_id));
+
+alter table messages modify column thread_key varchar(41) not null;
+
+-- Keyset pages and latest-message lookups
+create index idx_messages_thread_id
+    on messages (thread_key, id);
+
+-- Offset pages ordered by time
+create index idx_messages_thread_created
+    on messages (thread_key, created_at);
+
+-- Superseded by idx_messages_thread_created; idx_messages_sender_recipient_id
+-- stays as the index behind the sender foreign key
+drop index idx_messages_sender_recipient_created on messages;
@@ -0,0 +1,27 @@
+-- Cold tier for messages older than the hot window, filled by MessageArchiver.
+-- Rows keep their message id, so history cursors work across both tables.
+-- No foreign keys: archived rows outlive the messages they replied to.
+
+create table archived_messages (
+    id bigint not null,
+    sender_id bigint not null,
+    recipient_id bigint not null,
+    conversation_id bigint,
+    thread_key varchar(41) not null,
+    content mediumblob not null,
+    status varchar(16),
+    type varchar(16),
+    created_at datetime(6),
+    read_at datetime(6),
+    reply_to_id bigint,
+    reply_to_sender_id bigint,
+    reply_to_snippet varchar(140),
+    primary key (id)
+) engine=InnoDB;
+
+-- Keyset history reads, as on messages
+create index idx_archived_messages_thread_id
+    on archived_messages (thread_key, id);
+
+create index idx_archived_messages_conversation_id
+    on archived_messages (conversation_id, id);
@@ -0,0 +1,3 @@
+-- The search index refresh reads the users updated since its last run
+create index idx_users_updated_at
+    on users (updated_at);
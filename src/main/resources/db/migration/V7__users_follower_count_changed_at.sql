@@ -0,0 +1,7 @@
+-- Moves with follower_count, so the search index refresh can pick up rank
+-- changes without follow counts touching updated_at
+alter table users
+    add column follower_count_changed_at datetime(6);
+
+create index idx_users_follower_count_changed_at
+    on users (follower_count_changed_at);
@@ -0,0 +1,8 @@
+-- One row per scheduled job that must run on a single node at a time; a node
+-- takes the job while locked_until has passed
+create table scheduler_locks (
+    name varchar(64) not null,
+    locked_until datetime(6) not null,
+    locked_by varchar(64) not null,
+    primary key (name)
+) engine=InnoDB;
@@ -0,0 +1,184 @@
+package com.clipnest.messaging.config;
+
+import com.clipnest.messaging.entity.Conversation;
+import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.repository.ConversationRepository;
+import com.clipnest.messaging.repository.UserRepository;
+import com.clipnest.messaging.security.JwtUtils;
+import com.clipnest.messaging.service.ConversationMembershipCache;
+import com.clipnest.messaging.service.MessageDeliveryService;
+import com.clipnest.messaging.support.EmbeddedStompBroker;
+import com.clipnest.messaging.support.StompTestClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class WebSocketBrokerRelayIntegrationTest {
+
+    private static final EmbeddedStompBroker broker = new EmbeddedStompBroker();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private MessageDeliveryService deliveryService;
+
+    @Autowired
+    private AbstractBrokerMessageHandler stompBrokerRelayMessageHandler;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private ConversationMembershipCache membershipCache;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void startBroker() throws Exception {
+        broker.start();
+    }
+
+    @AfterAll
+    static void stopBroker() throws Exception {
+        broker.stop();
+    }
+
+    @DynamicPropertySource
+    static void relayProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.websocket.broker.mode", () -> "relay");
+        registry.add("spring.jpa.properties.clipnest.message-id-node", () -> "2");
+        registry.add("app.websocket.broker.relay.host", () -> "127.0.0.1");
+        registry.add("app.websocket.broker.relay.port", broker::getPort);
+    }
+
+    @Test
+    void testUserQueueMessage_DeliveredThroughRelay() throws Exception {
+        // Given
+        // The relay opens its system session asynchronously after startup
+        StompTestClient.awaitTrue(stompBrokerRelayMessageHandler::isBrokerAvailable);
+        User user = userRepository.save(new User("relayuser", "relay@example.com", "password123"));
+        StompSession session = StompTestClient.connect(port, jwtUtils.generateJwtToken(user.getUsername()));
+        BlockingQueue<Map<?, ?>> received = StompTestClient.subscribe(session, "/user/queue/messages");
+
+        // When
+        deliveryService.sendToUser(user.getUsername(), "/queue/messages", Map.of("content", "hello"));
+
+        // Then
+        Map<?, ?> message = StompTestClient.onlyEvent(received.poll(10, TimeUnit.SECONDS));
+        assertEquals("hello", message.get("content"));
+        session.disconnect();
+    }
+
+    @Test
+    void testConnectWithoutToken_Rejected() {
+        assertThrows(ExecutionException.class, () -> StompTestClient.connect(port, null));
+    }
+
+    @Test
+    void testConversationTopic_StopsReachingRemovedParticipant() throws Exception {
+        // Given
+        StompTestClient.awaitTrue(stompBrokerRelayMessageHandler::isBrokerAvailable);
+        User owner = userRepository.save(new User("topicowner", "topicowner@example.com", "password123"));
+        User member = userRepository.save(new User("topicmember", "topicmember@example.com", "password123"));
+        Conversation conversation = new Conversation("topic", owner);
+        conversation.addParticipant(member);
+        conversation = conversationRepository.save(conversation);
+        String topic = "/topic/conversations/" + conversation.getId();
+
+        StompSession ownerSession = StompTestClient.connect(port, jwtUtils.generateJwtToken(owner.getUsername()));
+        StompSession memberSession = StompTestClient.connect(port, jwtUtils.generateJwtToken(member.getUsername()));
+        BlockingQueue<Map<?, ?>> ownerReceived = StompTestClient.subscribe(ownerSession, topic);
+        BlockingQueue<Map<?, ?>> memberReceived = StompTestClient.subscribe(memberSession, topic);
+
+        // When the member is removed, as by another node
+        jdbcTemplate.update("DELETE FROM conversation_participants WHERE conversation_id = ? AND user_id = ?",
+                conversation.getId(), member.getId());
+        messagingTemplate.convertAndSend(ConversationMembershipCache.EVICTION_TOPIC, conversation.getId());
+        Long conversationId = conversation.getId();
+        StompTestClient.awaitTrue(() -> !membershipCache.isParticipant(conversationId, member.getId()));
+        deliveryService.sendToTopic(topic, Map.of("content", "after removal"));
+
+        // Then
+        Map<?, ?> message = StompTestClient.onlyEvent(ownerReceived.poll(10, TimeUnit.SECONDS));
+        assertEquals("after removal", message.get("content"));
+        assertNull(memberReceived.poll(1, TimeUnit.SECONDS));
+        ownerSession.disconnect();
+        memberSession.disconnect();
+    }
+
+    @Test
+    void testConversationTopic_ClosedToClientSend() throws Exception {
+        // Given
+        StompTestClient.awaitTrue(stompBrokerRelayMessageHandler::isBrokerAvailable);
+        User owner = userRepository.save(new User("sendowner", "sendowner@example.com", "password123"));
+        User outsider = userRepository.save(new User("sendoutsider", "sendoutsider@example.com", "password123"));
+        Conversation conversation = conversationRepository.save(new Conversation("closed", owner));
+        String topic = "/topic/conversations/" + conversation.getId();
+        StompSession ownerSession = StompTestClient.connect(port, jwtUtils.generateJwtToken(owner.getUsername()));
+        BlockingQueue<Map<?, ?>> received = StompTestClient.subscribe(ownerSession, topic);
+
+        // When - clients publish straight to the topic and to the eviction topic
+        StompSession topicSender = StompTestClient.connect(port, jwtUtils.generateJwtToken(outsider.getUsername()));
+        topicSender.send(topic, Map.of("content", "forged", "sender", Map.of("username", owner.getUsername())));
+        StompSession evictionSender = StompTestClient.connect(port,
+                jwtUtils.generateJwtToken(outsider.getUsername()));
+        evictionSender.send(ConversationMembershipCache.EVICTION_TOPIC, conversation.getId());
+
+        // Then
+        StompTestClient.awaitTrue(() -> !topicSender.isConnected());
+        StompTestClient.awaitTrue(() -> !evictionSender.isConnected());
+        assertNull(received.poll(1, TimeUnit.SECONDS));
+        ownerSession.disconnect();
+    }
+
+    @Test
+    void testChatSendMessage_SentAsTheSessionUser() throws Exception {
+        // Given
+        StompTestClient.awaitTrue(stompBrokerRelayMessageHandler::isBrokerAvailable);
+        User sender = userRepository.save(new User("chatsender", "chatsender@example.com", "password123"));
+        User recipient = userRepository.save(new User("chatrecipient", "chatrecipient@example.com", "password123"));
+        StompSession session = StompTestClient.connect(port, jwtUtils.generateJwtToken(sender.getUsername()));
+        BlockingQueue<Map<?, ?>> received = StompTestClient.subscribe(session, "/topic/public");
+
+        // When
+        session.send("/app/chat.sendMessage", Map.of("recipientId", recipient.getId(), "content", "over stomp"));
+
+        // Then - the handler resolved the sender from the session, and the message was saved
+        Map<?, ?> message = received.poll(10, TimeUnit.SECONDS);
+        assertNotNull(message);
+        assertNotNull(message.get("id"));
+        assertEquals("over stomp", message.get("content"));
+        assertEquals(sender.getUsername(), ((Map<?, ?>) message.get("sender")).get("username"));
+        session.disconnect();
+    }
+}
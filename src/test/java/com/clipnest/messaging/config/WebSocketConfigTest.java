@@ -0,0 +1,26 @@
+package com.clipnest.messaging.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebSocketConfigTest {
+
+    private static WebSocketConfig config(String brokerMode, String messageIdNode) {
+        WebSocketConfig config = new WebSocketConfig();
+        ReflectionTestUtils.setField(config, "brokerMode", brokerMode);
+        ReflectionTestUtils.setField(config, "messageIdNode", messageIdNode);
+        return config;
+    }
+
+    @Test
+    void relayRequiresMessageIdNode() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> config("relay", "").requireMessageIdNode());
+        assertTrue(e.getMessage().contains("MESSAGE_ID_NODE"));
+
+        assertDoesNotThrow(() -> config("relay", "3").requireMessageIdNode());
+        assertDoesNotThrow(() -> config("simple", "").requireMessageIdNode());
+    }
+}
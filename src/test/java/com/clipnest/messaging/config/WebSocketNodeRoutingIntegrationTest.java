@@ -0,0 +1,179 @@
+package com.clipnest.messaging.config;
+
+import com.clipnest.messaging.dto.DeliveryFrameDto;
+import com.clipnest.messaging.dto.RoutedFrameDto;
+import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.entity.UserSession;
+import com.clipnest.messaging.repository.UserRepository;
+import com.clipnest.messaging.repository.UserSessionRepository;
+import com.clipnest.messaging.security.JwtUtils;
+import com.clipnest.messaging.service.MessageDeliveryService;
+import com.clipnest.messaging.service.UserSessionRegistry;
+import com.clipnest.messaging.support.EmbeddedStompBroker;
+import com.clipnest.messaging.support.StompTestClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class WebSocketNodeRoutingIntegrationTest {
+
+    private static final EmbeddedStompBroker broker = new EmbeddedStompBroker();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserSessionRegistry sessionRegistry;
+
+    @Autowired
+    private UserSessionRepository userSessionRepository;
+
+    @Autowired
+    private MessageDeliveryService deliveryService;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private AbstractBrokerMessageHandler stompBrokerRelayMessageHandler;
+
+    @BeforeAll
+    static void startBroker() throws Exception {
+        broker.start();
+    }
+
+    @AfterAll
+    static void stopBroker() throws Exception {
+        broker.stop();
+    }
+
+    @DynamicPropertySource
+    static void relayProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.websocket.broker.mode", () -> "relay");
+        registry.add("spring.jpa.properties.clipnest.message-id-node", () -> "1");
+        registry.add("app.websocket.broker.relay.host", () -> "127.0.0.1");
+        registry.add("app.websocket.broker.relay.port", broker::getPort);
+        registry.add("app.websocket.session-registry.type", () -> "shared");
+    }
+
+    @Test
+    void testSessionRegistry_TracksConnectAndDisconnect() throws Exception {
+        // Given
+        StompTestClient.awaitTrue(stompBrokerRelayMessageHandler::isBrokerAvailable);
+        User user = userRepository.save(new User("routeduser1", "routed1@example.com", "password123"));
+
+        // When
+        StompSession session = StompTestClient.connect(port, jwtUtils.generateJwtToken(user.getUsername()));
+
+        // Then
+        StompTestClient.awaitTrue(() -> sessionRegistry.getNodeIds(user.getUsername())
+                .equals(Set.of(sessionRegistry.getLocalNodeId())));
+        session.disconnect();
+        StompTestClient.awaitTrue(() -> sessionRegistry.getNodeIds(user.getUsername()).isEmpty());
+    }
+
+    @Test
+    void testSessionRegistry_KeepsPeerSessionWithSameId() {
+        // Given - a peer happens to hold a session with the same id
+        userSessionRepository.save(new UserSession("shared-session", "peeruser", "peer-node"));
+        sessionRegistry.register("localuser", "shared-session");
+
+        // When
+        sessionRegistry.unregister("localuser", "shared-session");
+
+        // Then
+        assertEquals(Set.of("peer-node"), sessionRegistry.getNodeIds("peeruser"));
+        assertEquals(Map.of("peeruser", Set.of("peer-node")),
+                sessionRegistry.getNodeIds(List.of("peeruser", "localuser")));
+        userSessionRepository.deleteByNodeId("peer-node");
+    }
+
+    @Test
+    void testFrameRoutedByPeer_DeliveredToLocalSession() throws Exception {
+        // Given
+        StompTestClient.awaitTrue(stompBrokerRelayMessageHandler::isBrokerAvailable);
+        User user = userRepository.save(new User("routeduser2", "routed2@example.com", "password123"));
+        StompSession session = StompTestClient.connect(port, jwtUtils.generateJwtToken(user.getUsername()));
+        BlockingQueue<Map<?, ?>> received = StompTestClient.subscribe(session, "/user/queue/read-receipts");
+
+        // When - a peer node forwards a frame to this node's queue
+        messagingTemplate.convertAndSend(MessageDeliveryService.NODE_QUEUE_PREFIX + sessionRegistry.getLocalNodeId(),
+                new RoutedFrameDto(user.getUsername(), "/queue/read-receipts", 1,
+                        new DeliveryFrameDto(List.of(Map.of("messageCount", 3)))));
+
+        // Then
+        Map<?, ?> receipt = StompTestClient.onlyEvent(received.poll(10, TimeUnit.SECONDS));
+        assertEquals(3, receipt.get("messageCount"));
+        session.disconnect();
+    }
+
+    @Test
+    void testUserQueueMessage_DeliveredToOwningNode() throws Exception {
+        // Given
+        StompTestClient.awaitTrue(stompBrokerRelayMessageHandler::isBrokerAvailable);
+        User user = userRepository.save(new User("routeduser3", "routed3@example.com", "password123"));
+        StompSession session = StompTestClient.connect(port, jwtUtils.generateJwtToken(user.getUsername()));
+        BlockingQueue<Map<?, ?>> received = StompTestClient.subscribe(session, "/user/queue/messages");
+        StompTestClient.awaitTrue(() -> !sessionRegistry.getNodeIds(user.getUsername()).isEmpty());
+
+        // When
+        deliveryService.sendToUser(user.getUsername(), "/queue/messages", Map.of("content", "routed"));
+
+        // Then
+        Map<?, ?> message = StompTestClient.onlyEvent(received.poll(10, TimeUnit.SECONDS));
+        assertEquals("routed", message.get("content"));
+        session.disconnect();
+    }
+
+    @Test
+    void testNodeQueue_ClosedToClients() throws Exception {
+        // Given
+        StompTestClient.awaitTrue(stompBrokerRelayMessageHandler::isBrokerAvailable);
+        User victim = userRepository.save(new User("routedvictim", "routedvictim@example.com", "password123"));
+        User attacker = userRepository.save(new User("routedattacker", "routedattacker@example.com", "password123"));
+        StompSession victimSession = StompTestClient.connect(port, jwtUtils.generateJwtToken(victim.getUsername()));
+        BlockingQueue<Map<?, ?>> received = StompTestClient.subscribe(victimSession, "/user/queue/messages");
+        String nodeQueue = MessageDeliveryService.NODE_QUEUE_PREFIX + sessionRegistry.getLocalNodeId();
+
+        // When - a client forges a routed frame for another user
+        StompSession sender = StompTestClient.connect(port, jwtUtils.generateJwtToken(attacker.getUsername()));
+        sender.send(nodeQueue, new RoutedFrameDto(victim.getUsername(), "/queue/messages", 1,
+                new DeliveryFrameDto(List.of(Map.of("content", "forged")))));
+
+        // and another tries to read the node queue
+        StompSession reader = StompTestClient.connect(port, jwtUtils.generateJwtToken(attacker.getUsername()));
+        reader.subscribe(nodeQueue, new StompSessionHandlerAdapter() {});
+
+        // Then both sessions are closed and nothing reaches the victim
+        StompTestClient.awaitTrue(() -> !sender.isConnected());
+        StompTestClient.awaitTrue(() -> !reader.isConnected());
+        assertNull(received.poll(1, TimeUnit.SECONDS));
+        victimSession.disconnect();
+    }
+}
@@ -0,0 +1,56 @@
+package com.clipnest.messaging.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageIdGeneratorTest {
+
+    private static final long NOW = MessageIdGenerator.EPOCH + 1_000_000L;
+
+    @Test
+    void idsFromOneNodeIncreaseThroughSequenceOverflowAndClockStepsBack() {
+        AtomicLong clock = new AtomicLong(NOW);
+        MessageIdGenerator generator = new MessageIdGenerator(5, clock::get);
+
+        long previous = generator.nextId();
+        for (int i = 0; i < 1000; i++) {
+            if (i == 500) {
+                clock.set(NOW - 10_000L);
+            }
+            long id = generator.nextId();
+            assertTrue(id > previous, id + " after " + previous);
+            assertEquals(5, id >> MessageIdGenerator.SEQUENCE_BITS & MessageIdGenerator.MAX_NODE);
+            previous = id;
+        }
+    }
+
+    @Test
+    void idsFromDifferentNodesFollowTime() {
+        AtomicLong clock = new AtomicLong(NOW);
+        MessageIdGenerator first = new MessageIdGenerator(MessageIdGenerator.MAX_NODE, clock::get);
+        MessageIdGenerator second = new MessageIdGenerator(0, clock::get);
+
+        long earlier = first.nextId();
+        long sameMillis = second.nextId();
+        clock.incrementAndGet();
+        long later = second.nextId();
+
+        assertNotEquals(earlier, sameMillis);
+        assertTrue(later > earlier);
+        assertTrue(later < 1L << 53, "ids stay exact as JavaScript numbers");
+    }
+
+    @Test
+    void rejectsNodeOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new MessageIdGenerator(MessageIdGenerator.MAX_NODE + 1, () -> NOW));
+    }
+
+    @Test
+    void blankNodeMeansZero() {
+        assertEquals(0, MessageIdGenerator.parseNode(""));
+        assertEquals(7, MessageIdGenerator.parseNode(" 7 "));
+    }
+}
@@ -0,0 +1,109 @@
+package com.clipnest.messaging.mapper;
+
+import com.clipnest.messaging.dto.MessageDto;
+import com.clipnest.messaging.entity.Conversation;
+import com.clipnest.messaging.entity.Message;
+import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.repository.MessageView;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.convention.MatchingStrategies;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-message mapping cost: the previous reflective ModelMapper mapping
+ * against the hand-written mapper, from a loaded entity and from a projected
+ * row. Entities are fully initialized here, so this measures mapping alone;
+ * in the service the ModelMapper path also loaded each lazy sender and
+ * recipient. Run with {@code mvn test-compile exec:java
+ * -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.clipnest.messaging.mapper.MessageMapperBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageMapperBenchmark {
+
+    private ModelMapper modelMapper;
+    private MessageMapper messageMapper;
+    private Message message;
+    private MessageView view;
+
+    @Setup
+    public void setUp() {
+        // Configured as the application's ModelMapper bean was
+        modelMapper = new ModelMapper();
+        modelMapper.getConfiguration()
+                .setMatchingStrategy(MatchingStrategies.STRICT)
+                .setFieldMatchingEnabled(true)
+                .setFieldAccessLevel(org.modelmapper.config.Configuration.AccessLevel.PRIVATE);
+
+        messageMapper = new MessageMapper();
+        ReflectionTestUtils.setField(messageMapper, "userMapper", new UserMapper());
+
+        User sender = user(1L, "sender");
+        User recipient = user(2L, "recipient");
+        Conversation conversation = new Conversation("group", sender);
+        conversation.setId(7L);
+
+        message = new Message(sender, recipient, "Hello there, how is it going?");
+        message.setId(100L);
+        message.setConversation(conversation);
+        message.setCreatedAt(LocalDateTime.now());
+
+        view = new MessageView(100L, "Hello there, how is it going?", "SENT", "TEXT", LocalDateTime.now(), null,
+                7L, 1L, "sender", "First", "Last", "https://example.com/1.png",
+                2L, "recipient", "First", "Last", "https://example.com/2.png",
+                null, null, null, null, null, null, null);
+
+        // Mappers build their type maps lazily; do it outside the measurement
+        modelMapper.map(message, MessageDto.class);
+    }
+
+    @Benchmark
+    public MessageDto modelMapper() {
+        MessageDto dto = modelMapper.map(message, MessageDto.class);
+        if (message.getConversation() != null) {
+            dto.setConversationId(message.getConversation().getId());
+        }
+        return dto;
+    }
+
+    @Benchmark
+    public MessageDto handWrittenFromEntity() {
+        return messageMapper.toDto(message);
+    }
+
+    @Benchmark
+    public MessageDto handWrittenFromView() {
+        return messageMapper.toDto(view);
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User(username, username + "@example.com", "password");
+        user.setId(id);
+        user.setFirstName("First");
+        user.setLastName("Last");
+        user.setBio("A short bio");
+        user.setProfilePictureUrl("https://example.com/" + id + ".png");
+        user.setCreatedAt(LocalDateTime.now());
+        return user;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MessageMapperBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
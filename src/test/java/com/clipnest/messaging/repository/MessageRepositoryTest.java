@@ -0,0 +1,164 @@
+package com.clipnest.messaging.repository;
+
+import com.clipnest.messaging.dto.MessageDto;
+import com.clipnest.messaging.entity.Conversation;
+import com.clipnest.messaging.entity.Message;
+import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.mapper.ConversationMapper;
+import com.clipnest.messaging.mapper.MessageMapper;
+import com.clipnest.messaging.mapper.UserMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statement counts for loading and mapping message pages. Each count must not
+ * depend on the page size, so a lazy association touched per row fails here.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({MessageMapper.class, UserMapper.class, ConversationMapper.class})
+class MessageRepositoryTest {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private MessageMapper messageMapper;
+
+    @Autowired
+    private ConversationMapper conversationMapper;
+
+    private Statistics statistics;
+    private User alice;
+    private User bob;
+    private Conversation group;
+    private Message lastReply;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        alice = entityManager.persist(new User("alice", "alice@example.com", "password"));
+        bob = entityManager.persist(new User("bob", "bob@example.com", "password"));
+        User carol = entityManager.persist(new User("carol", "carol@example.com", "password"));
+
+        group = new Conversation("Weekend", alice);
+        group.addParticipant(bob);
+        group.addParticipant(carol);
+        entityManager.persist(group);
+
+        // Every third message replies to the one before it, alternating senders
+        Message previous = null;
+        for (int i = 0; i < 2 * PAGE_SIZE + 20; i++) {
+            boolean fromAlice = i % 2 == 0;
+            Message direct = new Message(fromAlice ? alice : bob, fromAlice ? bob : alice, "direct " + i);
+            Message grouped = new Message(fromAlice ? alice : carol, bob, "group " + i);
+            grouped.setConversation(group);
+            if (previous != null && i % 3 == 0) {
+                direct.setReplyTo(previous);
+                grouped.setReplyTo(previous);
+                lastReply = direct;
+            }
+            previous = entityManager.persist(direct);
+            entityManager.persist(grouped);
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void directHistoryPageIsOneStatement() {
+        assertConstant(1, size -> {
+            List<MessageDto> page = messageRepository.findConversationBetweenUsersBefore(
+                    Message.threadKey(alice.getId(), bob.getId()), Long.MAX_VALUE, PageRequest.of(0, size))
+                    .map(messageMapper::toDto).getContent();
+            assertEquals(size, page.size());
+            return page;
+        });
+    }
+
+    @Test
+    void groupHistoryPageIsOneStatement() {
+        assertConstant(1, size -> messageRepository.findByConversationIdBefore(
+                group.getId(), Long.MAX_VALUE, PageRequest.of(0, size))
+                .map(messageMapper::toDto).getContent());
+    }
+
+    @Test
+    void offsetPagesAreContentPlusCount() {
+        assertConstant(2, size -> messageRepository.findConversationBetweenUsers(
+                Message.threadKey(alice.getId(), bob.getId()), PageRequest.of(1, size))
+                .map(messageMapper::toDto).getContent());
+        assertConstant(2, size -> messageRepository.findByConversationId(
+                group.getId(), PageRequest.of(1, size))
+                .map(messageMapper::toDto).getContent());
+    }
+
+    @Test
+    void singleMessageIsFetchedWithItsUsers() {
+        long statements = statementsFor(() -> {
+            MessageDto dto = messageMapper.toDto(messageRepository.findWithUsersById(lastReply.getId()).orElseThrow());
+            assertEquals(lastReply.getRecipient().getUsername(), dto.getRecipient().getUsername());
+            assertNotNull(dto.getReplyTo().getSender().getUsername());
+        });
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void conversationIsFetchedWithItsMembers() {
+        // Creator and participants are joined; admins are a second collection
+        long statements = statementsFor(() -> assertEquals(3, conversationMapper.toDto(
+                conversationRepository.findWithMembersById(group.getId()).orElseThrow()).getParticipants().size()));
+        assertEquals(2, statements);
+    }
+
+    @Test
+    void conversationPageBatchesItsMembers() {
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Conversation conversation = new Conversation("Group " + i, i % 2 == 0 ? alice : bob);
+            conversation.addParticipant(i % 2 == 0 ? bob : alice);
+            entityManager.persist(conversation);
+        }
+        entityManager.flush();
+
+        // Page, count, then one batch each for creators, participants and admins
+        assertConstant(5, size -> conversationRepository.findByParticipant(bob.getId(), PageRequest.of(0, size))
+                .map(conversationMapper::toDto).getContent());
+    }
+
+    private void assertConstant(long expected, IntFunction<List<?>> loadPage) {
+        assertEquals(expected, statementsFor(() -> loadPage.apply(10)), "statements for a page of 10");
+        assertEquals(expected, statementsFor(() -> loadPage.apply(PAGE_SIZE)),
+                "statements for a page of " + PAGE_SIZE);
+    }
+
+    private long statementsFor(Runnable action) {
+        entityManager.clear();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,281 @@
+package com.clipnest.messaging.repository;
+
+import com.clipnest.messaging.entity.Conversation;
+import com.clipnest.messaging.entity.FollowRequest;
+import com.clipnest.messaging.entity.InboxEntry;
+import com.clipnest.messaging.entity.Message;
+import com.clipnest.messaging.entity.UnreadCounter;
+import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.entity.UserFollow;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * EXPLAIN plans on the migrated test schema for the queries behind message
+ * pages, unread counts, the inbox, conversation lists and follow lists. Every
+ * table a statement reads must be reached through an index lookup rather than
+ * a scan, and where H2 can tell them apart, the index the query was written
+ * for must be the one used.
+ */
+@DataJpaTest(properties = {
+        // Own database, since the fixture is committed by ANALYZE
+        "spring.datasource.url=jdbc:h2:mem:queryplans;MODE=MySQL",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.clipnest.messaging.repository.QueryPlanTest$StatementRecorder"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class QueryPlanTest {
+
+    // H2 prints the access path of each table as /* SCHEMA.INDEX: CONDITION */
+    // or /* SCHEMA.TABLE.tableScan */
+    private static final Pattern ACCESS_PATH = Pattern.compile("/\\* PUBLIC\\.([\\w.]+)(: [^*]*)? ?\\*/");
+
+    private static final List<String> STATEMENTS = new ArrayList<>();
+
+    private static final AtomicInteger FIXTURES = new AtomicInteger();
+    private static final int USERS = 12;
+    private static final int GROUPS = 3;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserFollowRepository userFollowRepository;
+
+    @Autowired
+    private FollowRequestRepository followRequestRepository;
+
+    @Autowired
+    private InboxEntryRepository inboxEntryRepository;
+
+    @Autowired
+    private UnreadCounterRepository unreadCounterRepository;
+
+    private User alice;
+    private User bob;
+    private Conversation group;
+
+    /**
+     * Enough rows that H2 costs the candidate indexes by their selectivity
+     * instead of tying on empty tables. ANALYZE commits, so usernames are
+     * unique per test.
+     */
+    @BeforeEach
+    void setUp() {
+        String fixture = "plan" + FIXTURES.incrementAndGet() + "_";
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(entityManager.persist(new User(fixture + i, fixture + i + "@example.com", "password")));
+        }
+        alice = users.get(0);
+        bob = users.get(1);
+
+        for (int g = 0; g < GROUPS; g++) {
+            Conversation conversation = new Conversation("Plans " + g, alice);
+            users.forEach(conversation::addParticipant);
+            group = entityManager.persist(conversation);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (User sender : users) {
+            for (User recipient : users) {
+                if (sender == recipient) {
+                    continue;
+                }
+                for (int i = 0; i < 3; i++) {
+                    Message message = new Message(sender, recipient, "direct " + i);
+                    if (i > 0) {
+                        message.setReadAt(now);
+                    }
+                    entityManager.persist(message);
+                }
+            }
+            Message grouped = new Message(sender, bob, "group");
+            grouped.setConversation(group);
+            entityManager.persist(grouped);
+        }
+
+        for (int i = 0; i < USERS; i++) {
+            for (int step = 1; step <= 3; step++) {
+                entityManager.persist(new UserFollow(users.get(i), users.get((i + step) % USERS)));
+                entityManager.persist(new FollowRequest(users.get(i), users.get((i + step + 3) % USERS)));
+            }
+            InboxEntry entry = new InboxEntry();
+            entry.setUserId(users.get(i).getId());
+            entry.setKind(InboxEntry.Kind.DIRECT);
+            entry.setPeerId(users.get((i + 1) % USERS).getId());
+            entry.setLastMessageAt(now);
+            entityManager.persist(entry);
+            entityManager.persist(new UnreadCounter(users.get(i).getId(), UnreadCounter.Scope.TOTAL, 0L, 1));
+        }
+        entityManager.flush();
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void directMessagePages() {
+        String thread = Message.threadKey(alice.getId(), bob.getId());
+        // H2 costs the (.., created_at) and (.., id) indexes alike since it does
+        // not weigh the ORDER BY; only that the offset page is indexed is checked
+        assertIndexed(() -> messageRepository.findConversationBetweenUsers(thread, PageRequest.of(1, 20)));
+        assertIndexed(() -> messageRepository.findLatestMessageBetweenUsers(thread, PageRequest.of(0, 1)));
+        assertPlannedOn("idx_messages_thread_id",
+                () -> messageRepository.findConversationBetweenUsersBefore(thread, Long.MAX_VALUE, PageRequest.of(0, 50)));
+        assertPlannedOn("idx_messages_thread_id",
+                () -> messageRepository.findConversationBetweenUsersAfter(thread, 0L, PageRequest.of(0, 50)));
+    }
+
+    @Test
+    void groupMessagePages() {
+        Long id = group.getId();
+        assertIndexed(() -> messageRepository.findByConversationId(id, PageRequest.of(1, 20)));
+        assertPlannedOn("idx_messages_conversation_id",
+                () -> messageRepository.findByConversationIdBefore(id, Long.MAX_VALUE, PageRequest.of(0, 50)));
+        assertPlannedOn("idx_messages_conversation_id",
+                () -> messageRepository.findByConversationIdAfter(id, 0L, PageRequest.of(0, 50)));
+    }
+
+    @Test
+    void unreadMessages() {
+        LocalDateTime now = LocalDateTime.now();
+        assertPlannedOn("idx_messages_recipient_unread",
+                () -> messageRepository.countUnreadGroupMessagesBySender(bob.getId(), group.getId()));
+        assertPlannedOn("idx_messages_recipient_unread",
+                () -> messageRepository.markDirectMessagesAsRead(bob.getId(), alice.getId(), now));
+        assertPlannedOn("idx_messages_recipient_unread",
+                () -> messageRepository.markGroupMessagesAsRead(bob.getId(), group.getId(), now));
+    }
+
+    @Test
+    void inboxAndCounters() {
+        assertPlannedOn("idx_inbox_entries_user_last_message",
+                () -> inboxEntryRepository.findInbox(bob.getId(), PageRequest.of(0, 20)));
+        assertIndexed(() -> unreadCounterRepository.findByUserIdAndScopeAndScopeId(
+                bob.getId(), UnreadCounter.Scope.TOTAL, 0L));
+        assertPlannedOn("idx_messages_recipient_unread", () -> unreadCounterRepository.recount(bob.getId()));
+        assertPlannedOn("idx_messages_recipient_unread", () -> inboxEntryRepository.recountUnread(bob.getId()));
+    }
+
+    @Test
+    void conversations() {
+        assertPlannedOn("idx_conversation_participants_user",
+                () -> conversationRepository.findByParticipant(bob.getId(), PageRequest.of(1, 20)));
+        assertIndexed(() -> conversationRepository.isParticipant(group.getId(), bob.getId()));
+        assertIndexed(() -> conversationRepository.isAdmin(group.getId(), bob.getId()));
+        assertIndexed(() -> conversationRepository.findParticipantIds(group.getId()));
+    }
+
+    @Test
+    void followLists() {
+        Long id = alice.getId();
+        LocalDateTime now = LocalDateTime.now();
+        assertPlannedOn("idx_user_follows_following_created",
+                () -> userFollowRepository.findFollowersBefore(id, now, Long.MAX_VALUE, PageRequest.of(0, 50)));
+        assertPlannedOn("idx_user_follows_follower_created",
+                () -> userFollowRepository.findFollowingBefore(id, now, Long.MAX_VALUE, PageRequest.of(0, 50)));
+        assertPlannedOn("idx_user_follows_following_created",
+                () -> userRepository.findFollowers(id, PageRequest.of(1, 20)));
+        assertPlannedOn("idx_user_follows_follower_created",
+                () -> userRepository.findFollowing(id, PageRequest.of(1, 20)));
+        assertIndexed(() -> userFollowRepository.findFollowingIdsAmong(id, List.of(bob.getId())));
+        assertIndexed(() -> userFollowRepository.findFollowerIdsAmong(id, List.of(bob.getId())));
+        assertPlannedOn("idx_users_updated_at",
+                () -> userRepository.findSearchFieldsUpdatedSince(now.minusMinutes(2)));
+        assertPlannedOn("idx_users_follower_count_changed_at",
+                () -> userRepository.findSearchFieldsWithFollowerCountChangedSince(now.minusMinutes(2)));
+    }
+
+    @Test
+    void followRequests() {
+        assertPlannedOn("idx_follow_requests_requestee_status",
+                () -> followRequestRepository.findPendingRequestsForUser(bob, PageRequest.of(1, 20)));
+        assertPlannedOn("idx_follow_requests_requestee_status",
+                () -> followRequestRepository.countPendingRequestsForUser(bob));
+        assertIndexed(() -> followRequestRepository.findRequesteeIdsAmong(alice.getId(), List.of(bob.getId())));
+    }
+
+    /**
+     * Runs the call, then checks every statement it issued is indexed and at
+     * least one of them uses the given index.
+     */
+    private void assertPlannedOn(String index, Runnable call) {
+        List<String> plans = assertIndexed(call);
+        String expected = "PUBLIC." + index.toUpperCase(Locale.ROOT);
+        assertTrue(plans.stream().anyMatch(plan -> plan.contains(expected + ":")),
+                () -> "Expected " + index + " in:\n" + String.join("\n", plans));
+    }
+
+    private List<String> assertIndexed(Runnable call) {
+        STATEMENTS.clear();
+        call.run();
+        entityManager.flush();
+        assertFalse(STATEMENTS.isEmpty(), "The call issued no statements");
+
+        List<String> plans = new ArrayList<>();
+        for (String sql : new ArrayList<>(STATEMENTS)) {
+            String plan = explain(sql);
+            plans.add(plan);
+            Matcher access = ACCESS_PATH.matcher(plan);
+            int tables = 0;
+            while (access.find()) {
+                tables++;
+                assertNotNull(access.group(2), () -> "Unindexed access " + access.group() + " in:\n" + plan);
+            }
+            assertTrue(tables > 0, () -> "No access path in:\n" + plan);
+        }
+        return plans;
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute("EXPLAIN " + sql, (PreparedStatement statement) -> {
+            try (ResultSet plan = statement.executeQuery()) {
+                plan.next();
+                return plan.getString(1).replaceAll("\\s+", " ");
+            }
+        });
+    }
+
+    /**
+     * Records the SQL Hibernate prepares so the test can EXPLAIN it unchanged.
+     */
+    public static class StatementRecorder implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
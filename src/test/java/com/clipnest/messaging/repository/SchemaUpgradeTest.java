@@ -0,0 +1,49 @@
+package com.clipnest.messaging.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Upgrades a database that holds only the V1 baseline, as a database created
+ * by the former ddl-auto: update does once baselined, with data in it: every
+ * later migration must apply on top and backfill what the new columns hold.
+ */
+class SchemaUpgradeTest {
+
+    @Test
+    void migratesBaselineDatabaseWithData() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:schemaupgrade;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+        Flyway.configure().dataSource(dataSource).target("1").load().migrate();
+        for (long id = 1; id <= 3; id++) {
+            jdbc.update("insert into users (id, username, email, password, email_verified, is_private, role) "
+                    + "values (?, ?, ?, 'password', false, false, 'USER')", id, "user" + id, "user" + id + "@example.com");
+        }
+        jdbc.update("insert into user_follows (follower_id, following_id) values (1, 2), (1, 3), (2, 3)");
+        jdbc.update("insert into messages (id, sender_id, recipient_id, content, status, type) "
+                + "values (1, 1, 2, 'hello', 'SENT', 'TEXT')");
+
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        assertEquals(2, jdbc.queryForObject("select following_count from users where id = 1", Integer.class));
+        assertEquals(0, jdbc.queryForObject("select follower_count from users where id = 1", Integer.class));
+        assertEquals(1, jdbc.queryForObject("select follower_count from users where id = 2", Integer.class));
+        assertEquals(2, jdbc.queryForObject("select follower_count from users where id = 3", Integer.class));
+        assertEquals(0, jdbc.queryForObject(
+                "select count(*) from user_follows where created_at is null", Integer.class));
+        assertNotNull(jdbc.queryForObject(
+                "select max(created_at) from user_follows", LocalDateTime.class));
+        assertEquals("1:2", jdbc.queryForObject("select thread_key from messages where id = 1", String.class));
+        for (String table : new String[] {"unread_counters", "inbox_entries", "user_sessions", "archived_messages"}) {
+            assertEquals(0, jdbc.queryForObject("select count(*) from " + table, Integer.class), table);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.clipnest.messaging.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilsTest {
+
+    private static final String SECRET = "legacySecretKey12345678901234567890123456";
+    private static final String OLD_KEY = "old:oldSecretKey1234567890123456789012345678";
+    private static final String NEW_KEY = "new:newSecretKey1234567890123456789012345678";
+
+    private static JwtUtils jwtUtils(String keys, String activeKid, String legacyAcceptedUntil) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtKeys", keys);
+        ReflectionTestUtils.setField(jwtUtils, "activeKid", activeKid);
+        ReflectionTestUtils.setField(jwtUtils, "legacyAcceptedUntil", legacyAcceptedUntil);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60000);
+        ReflectionTestUtils.setField(jwtUtils, "refreshExpirationMs", 60000);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    @Test
+    void rotatedKeysVerifyUntilRetired() {
+        String oldToken = jwtUtils(OLD_KEY, "old", "").generateJwtToken("alice");
+
+        JwtUtils rotated = jwtUtils(OLD_KEY + "," + NEW_KEY, "new", "");
+        String newToken = rotated.generateJwtToken("bob");
+        assertEquals("alice", rotated.getValidatedUsername(oldToken));
+        assertEquals("bob", rotated.getValidatedUsername(newToken));
+
+        JwtUtils retired = jwtUtils(NEW_KEY, "new", "");
+        assertNull(retired.getValidatedUsername(oldToken));
+        assertEquals("bob", retired.getValidatedUsername(newToken));
+    }
+
+    @Test
+    void tokensWithoutKidRejectedOnceKeysAreSet() {
+        String legacyToken = jwtUtils("", "", "").generateJwtToken("alice");
+
+        assertNull(jwtUtils(NEW_KEY, "new", "").getValidatedUsername(legacyToken));
+    }
+
+    @Test
+    void tokensWithoutKidAcceptedUntilCutoff() {
+        String legacyToken = jwtUtils("", "", "").generateJwtToken("alice");
+        String future = Instant.now().plus(Duration.ofHours(1)).toString();
+        String past = Instant.now().minus(Duration.ofHours(1)).toString();
+
+        assertEquals("alice", jwtUtils(NEW_KEY, "new", future).getValidatedUsername(legacyToken));
+        assertNull(jwtUtils(NEW_KEY, "new", past).getValidatedUsername(legacyToken));
+    }
+
+    @Test
+    void activeKidMustBeConfigured() {
+        assertThrows(IllegalStateException.class, () -> jwtUtils(NEW_KEY, "old", ""));
+    }
+}
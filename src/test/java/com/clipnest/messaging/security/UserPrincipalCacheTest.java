@@ -0,0 +1,126 @@
+package com.clipnest.messaging.security;
+
+import com.clipnest.messaging.dto.UserDto;
+import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.repository.UserRepository;
+import com.clipnest.messaging.service.UserDetailsServiceImpl;
+import com.clipnest.messaging.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class UserPrincipalCacheTest {
+
+    private static final AtomicInteger FIXTURES = new AtomicInteger();
+
+    @Autowired
+    private UserPrincipalCache principalCache;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User alice;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String name = "cache" + FIXTURES.incrementAndGet() + "_alice";
+        alice = userRepository.save(new User(name, name + "@example.com", passwordEncoder.encode("password")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void hitSkipsTheUserLookup() {
+        UserPrincipal loaded = principalCache.get(alice.getUsername());
+
+        statistics.clear();
+        assertSame(loaded, principalCache.get(alice.getUsername()));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void passwordChangeEvicts() {
+        UserPrincipal before = principalCache.get(alice.getUsername());
+
+        signIn(alice);
+        userService.changePassword("password", "new-password");
+
+        UserPrincipal after = principalCache.get(alice.getUsername());
+        assertNotSame(before, after);
+        assertTrue(passwordEncoder.matches("new-password", after.getPassword()));
+    }
+
+    @Test
+    void renameEvictsTheOldUsername() {
+        String oldName = alice.getUsername();
+        principalCache.get(oldName);
+
+        signIn(alice);
+        UserDto profile = new UserDto();
+        profile.setUsername(oldName + "_renamed");
+        userService.updateProfile(profile);
+
+        assertThrows(UsernameNotFoundException.class, () -> principalCache.get(oldName));
+        assertEquals(alice.getId(), principalCache.get(oldName + "_renamed").getId());
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() {
+        AtomicLong nanos = new AtomicLong();
+        UserPrincipalCache cache = new UserPrincipalCache();
+        ReflectionTestUtils.setField(cache, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(cache, "maxSize", 10L);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+        cache.ticker = nanos::get;
+        cache.init();
+
+        UserPrincipal loaded = cache.get(alice.getUsername());
+        nanos.addAndGet(Duration.ofSeconds(299).toNanos());
+        assertSame(loaded, cache.get(alice.getUsername()));
+
+        nanos.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertNotSame(loaded, cache.get(alice.getUsername()));
+    }
+
+    private void signIn(User user) {
+        UserPrincipal principal = UserPrincipal.create(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
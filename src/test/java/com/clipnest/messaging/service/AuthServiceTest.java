@@ -5,6 +5,7 @@ import com.clipnest.messaging.dto.AuthResponse;
 import com.clipnest.messaging.dto.RegisterRequest;
 import com.clipnest.messaging.entity.User;
 import com.clipnest.messaging.exception.BadRequestException;
+import com.clipnest.messaging.mapper.UserMapper;
 import com.clipnest.messaging.repository.RefreshTokenRepository;
 import com.clipnest.messaging.repository.UserRepository;
 import com.clipnest.messaging.security.JwtUtils;
@@ -13,8 +14,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -45,8 +46,11 @@ class AuthServiceTest {
     @Mock
     private JwtUtils jwtUtils;
 
+    @Spy
+    private UserMapper userMapper;
+
     @Mock
-    private ModelMapper modelMapper;
+    private UserSearchService userSearchService;
 
     @Mock
     private Authentication authentication;
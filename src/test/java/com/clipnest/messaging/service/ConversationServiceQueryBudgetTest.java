@@ -0,0 +1,166 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.repository.UserRepository;
+import com.clipnest.messaging.security.UserPrincipal;
+import com.clipnest.messaging.support.StatementBudget;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Map.entry;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Statement budgets for every public {@link ConversationService} method. The
+ * fixture is {@value #CONVERSATIONS} groups created by alice, each with the
+ * same {@value #MEMBERS} members.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class ConversationServiceQueryBudgetTest {
+
+    private static final int CONVERSATIONS = 12;
+    private static final int MEMBERS = 6;
+
+    private static final AtomicInteger FIXTURES = new AtomicInteger();
+
+    // Statements per call against the fixture; raise a budget only for a known reason
+    private static final Map<String, Integer> BUDGETS = Map.ofEntries(
+            entry("createConversation", 11), // includes one insert per participant and admin row
+            entry("getUserConversations", 4),
+            entry("getConversation", 3),
+            entry("addParticipant", 4),
+            entry("removeParticipant", 3),
+            entry("makeAdmin", 3),
+            entry("leaveConversation", 3)
+    );
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ConversationMembershipCache membershipCache;
+
+    private StatementBudget budget;
+    private String fixture;
+    private User alice;
+    private List<User> members;
+    private List<Long> memberIds;
+    private Long conversationId;
+
+    @BeforeEach
+    void setUp() {
+        budget = new StatementBudget(ConversationService.class, BUDGETS, entityManagerFactory);
+
+        fixture = "conv" + FIXTURES.incrementAndGet() + "_";
+        alice = createUser("alice");
+        members = new ArrayList<>();
+        memberIds = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            User member = createUser("member" + i);
+            members.add(member);
+            memberIds.add(member.getId());
+        }
+
+        signIn(alice);
+        for (int i = 0; i < CONVERSATIONS; i++) {
+            conversationId = conversationService.createConversation("Group " + i, null, memberIds).getId();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void everyPublicMethodHasABudget() {
+        budget.assertCoversPublicMethods();
+    }
+
+    @Test
+    void createConversation() {
+        assertEquals(MEMBERS + 1, budget.check("createConversation",
+                () -> conversationService.createConversation("New", "budget", memberIds)).getParticipants().size());
+    }
+
+    @Test
+    void newConversationIsNotHiddenByAnEarlierLookup() {
+        Long nextId = conversationId + 1;
+        assertFalse(membershipCache.isParticipant(nextId, alice.getId()));
+
+        Long createdId = conversationService.createConversation("Later", null, memberIds).getId();
+        assumeTrue(createdId.equals(nextId), "conversation ids are not consecutive");
+        assertTrue(membershipCache.isParticipant(createdId, alice.getId()));
+        assertTrue(membershipCache.isParticipant(createdId, memberIds.get(0)));
+    }
+
+    @Test
+    void getUserConversations() {
+        signIn(members.get(0));
+        assertEquals(CONVERSATIONS, budget.check("getUserConversations",
+                () -> conversationService.getUserConversations(PageRequest.of(0, 20))).getNumberOfElements());
+    }
+
+    @Test
+    void getConversation() {
+        assertEquals(MEMBERS + 1, budget.check("getConversation",
+                () -> conversationService.getConversation(conversationId)).getParticipants().size());
+    }
+
+    @Test
+    void addParticipant() {
+        User newcomer = createUser("newcomer");
+        assertEquals(MEMBERS + 2, budget.check("addParticipant",
+                () -> conversationService.addParticipant(conversationId, newcomer.getId())).getParticipants().size());
+    }
+
+    @Test
+    void removeParticipant() {
+        assertEquals(MEMBERS, budget.check("removeParticipant",
+                () -> conversationService.removeParticipant(conversationId, members.get(0).getId()))
+                .getParticipants().size());
+    }
+
+    @Test
+    void makeAdmin() {
+        assertEquals(2, budget.check("makeAdmin",
+                () -> conversationService.makeAdmin(conversationId, members.get(0).getId())).getAdmins().size());
+    }
+
+    @Test
+    void leaveConversation() {
+        signIn(members.get(0));
+        budget.check("leaveConversation", () -> conversationService.leaveConversation(conversationId));
+    }
+
+    private User createUser(String name) {
+        return userRepository.save(new User(fixture + name, fixture + name + "@example.com", "password"));
+    }
+
+    private void signIn(User user) {
+        UserPrincipal principal = UserPrincipal.create(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
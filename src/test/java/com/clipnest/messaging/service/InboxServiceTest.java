@@ -0,0 +1,123 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.dto.InboxEntryDto;
+import com.clipnest.messaging.dto.SendMessageRequest;
+import com.clipnest.messaging.entity.InboxEntry;
+import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.repository.UserRepository;
+import com.clipnest.messaging.security.UserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class InboxServiceTest {
+
+    private static final AtomicInteger FIXTURES = new AtomicInteger();
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User alice;
+    private User bob;
+    private User carol;
+
+    @BeforeEach
+    void setUp() {
+        String fixture = "inbox" + FIXTURES.incrementAndGet() + "_";
+        alice = userRepository.save(new User(fixture + "alice", fixture + "alice@example.com", "password"));
+        bob = userRepository.save(new User(fixture + "bob", fixture + "bob@example.com", "password"));
+        carol = userRepository.save(new User(fixture + "carol", fixture + "carol@example.com", "password"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void directEntriesShowTheLatestMessageNewestFirst() {
+        send(alice, bob, null, "first");
+        send(bob, alice, null, "second");
+        send(carol, bob, null, "x".repeat(InboxEntry.SNIPPET_LENGTH + 10));
+
+        List<InboxEntryDto> bobInbox = inbox(bob);
+        assertEquals(List.of(carol.getId(), alice.getId()), bobInbox.stream().map(InboxEntryDto::getPeerId).toList());
+        assertEquals("x".repeat(InboxEntry.SNIPPET_LENGTH - 1) + "…", bobInbox.get(0).getLastMessageSnippet());
+        assertEquals(1, bobInbox.get(0).getUnreadCount());
+        assertEquals("second", bobInbox.get(1).getLastMessageSnippet());
+        assertEquals(bob.getId(), bobInbox.get(1).getLastSenderId());
+        assertEquals(1, bobInbox.get(1).getUnreadCount());
+
+        List<InboxEntryDto> aliceInbox = inbox(alice);
+        assertEquals(1, aliceInbox.size());
+        assertEquals(bob.getUsername(), aliceInbox.get(0).getUsername());
+        assertEquals("second", aliceInbox.get(0).getLastMessageSnippet());
+        assertEquals(1, aliceInbox.get(0).getUnreadCount());
+
+        // Replying moves the thread back to the top
+        send(alice, bob, null, "third");
+        assertEquals(List.of(alice.getId(), carol.getId()), inbox(bob).stream().map(InboxEntryDto::getPeerId).toList());
+        assertEquals(2, inbox(bob).get(0).getUnreadCount());
+    }
+
+    @Test
+    void groupEntriesReachEveryParticipant() {
+        send(alice, bob, null, "direct");
+        signIn(alice);
+        Long groupId = conversationService.createConversation("Team", null, List.of(bob.getId(), carol.getId())).getId();
+        send(carol, bob, groupId, "group news");
+
+        for (User user : List.of(alice, bob, carol)) {
+            InboxEntryDto top = inbox(user).get(0);
+            assertEquals("GROUP", top.getType(), user.getUsername());
+            assertEquals(groupId, top.getPeerId());
+            assertEquals("Team", top.getTitle());
+            assertEquals("group news", top.getLastMessageSnippet());
+            assertEquals(carol.getId(), top.getLastSenderId());
+            assertEquals(user == bob ? 1 : 0, top.getUnreadCount(), user.getUsername());
+        }
+        assertEquals("direct", inbox(bob).get(1).getLastMessageSnippet());
+
+        signIn(bob);
+        messageService.markGroupConversationAsRead(groupId);
+        assertEquals(0, inbox(bob).get(0).getUnreadCount());
+        assertEquals(1, inbox(bob).get(1).getUnreadCount());
+    }
+
+    private void send(User sender, User recipient, Long conversationId, String content) {
+        signIn(sender);
+        SendMessageRequest request = new SendMessageRequest(recipient.getId(), content);
+        request.setConversationId(conversationId);
+        messageService.sendMessage(request);
+    }
+
+    private List<InboxEntryDto> inbox(User user) {
+        signIn(user);
+        return messageService.getRecentConversations(PageRequest.of(0, 10));
+    }
+
+    private void signIn(User user) {
+        UserPrincipal principal = UserPrincipal.create(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
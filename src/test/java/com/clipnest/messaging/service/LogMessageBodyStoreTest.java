@@ -0,0 +1,87 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.dto.MessageDto;
+import com.clipnest.messaging.dto.MessageHistoryDto;
+import com.clipnest.messaging.dto.SendMessageRequest;
+import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.repository.UserRepository;
+import com.clipnest.messaging.security.UserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The message paths with bodies in the segment log: the messages row keeps
+ * only metadata and every payload still carries its body and reply snippet.
+ */
+@SpringBootTest(properties = {
+        "app.messaging.body-store.type=log",
+        "app.messaging.body-store.log.directory=target/message-log-test/${random.uuid}"
+})
+@ActiveProfiles("test")
+class LogMessageBodyStoreTest {
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private MessageBodyStore bodyStore;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void bodiesLiveInTheLog() {
+        assertInstanceOf(LogMessageBodyStore.class, bodyStore);
+        User alice = userRepository.save(new User("log_alice", "log_alice@example.com", "password"));
+        User bob = userRepository.save(new User("log_bob", "log_bob@example.com", "password"));
+
+        signIn(alice);
+        MessageDto first = messageService.sendMessage(new SendMessageRequest(bob.getId(), "stored in the log"));
+        assertEquals("stored in the log", first.getContent());
+
+        signIn(bob);
+        SendMessageRequest request = new SendMessageRequest(alice.getId(), "a reply");
+        request.setReplyToId(first.getId());
+        MessageDto reply = messageService.sendMessage(request);
+        assertEquals("stored in the log", reply.getReplyTo().getSnippet());
+
+        assertNull(jdbcTemplate.queryForObject("SELECT content FROM messages WHERE id = ?",
+                String.class, first.getId()));
+
+        MessageHistoryDto history = messageService.getConversationHistory(alice.getId(), null, null, 10);
+        List<String> contents = history.getMessages().stream().map(MessageDto::getContent).toList();
+        assertEquals(List.of("stored in the log", "a reply"), contents);
+        assertEquals("stored in the log", history.getMessages().get(1).getReplyTo().getSnippet());
+
+        assertEquals("stored in the log",
+                messageService.getConversation(alice.getId(), PageRequest.of(0, 10))
+                        .getContent().get(0).getContent());
+
+        messageService.markMessageAsRead(first.getId());
+    }
+
+    private void signIn(User user) {
+        UserPrincipal principal = UserPrincipal.create(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
@@ -0,0 +1,175 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.dto.MessageDto;
+import com.clipnest.messaging.dto.MessageHistoryDto;
+import com.clipnest.messaging.dto.SendMessageRequest;
+import com.clipnest.messaging.entity.Message;
+import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.repository.ArchivedMessageRepository;
+import com.clipnest.messaging.repository.MessageRepository;
+import com.clipnest.messaging.repository.UserRepository;
+import com.clipnest.messaging.security.UserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Moves a backdated thread to the archive and pages its history across both
+ * tiers. Alice sends six messages, the last a reply to the second, which bob
+ * reads, then a seventh he leaves unread.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class MessageArchiverTest {
+
+    private static final AtomicInteger FIXTURES = new AtomicInteger();
+
+    @Autowired
+    private MessageArchiver messageArchiver;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ArchivedMessageRepository archivedMessageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User alice;
+    private User bob;
+    private List<Long> ids;
+
+    @BeforeEach
+    void setUp() {
+        String fixture = "archive" + FIXTURES.incrementAndGet() + "_";
+        alice = userRepository.save(new User(fixture + "alice", fixture + "alice@example.com", "password"));
+        bob = userRepository.save(new User(fixture + "bob", fixture + "bob@example.com", "password"));
+
+        signIn(alice);
+        ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            SendMessageRequest request = new SendMessageRequest(bob.getId(), "direct " + i);
+            if (i == 5) {
+                request.setReplyToId(ids.get(1));
+            }
+            ids.add(messageService.sendMessage(request).getId());
+        }
+        signIn(bob);
+        messageService.markConversationAsRead(alice.getId());
+        signIn(alice);
+        ids.add(messageService.sendMessage(new SendMessageRequest(bob.getId(), "direct 6")).getId());
+
+        jdbcTemplate.update("UPDATE messages SET created_at = ? WHERE thread_key = ?",
+                messageArchiver.hotWindowStart().minusDays(30), Message.threadKey(alice.getId(), bob.getId()));
+        signIn(bob);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void archivesReadMessagesThatNoHotMessageRepliesTo() {
+        messageArchiver.archiveColdMessages();
+
+        // The second stays until the reply to it is gone, the seventh is unread
+        assertTrue(messageRepository.existsById(ids.get(1)));
+        assertTrue(messageRepository.existsById(ids.get(6)));
+        for (int i : new int[] {0, 2, 3, 4, 5}) {
+            assertFalse(messageRepository.existsById(ids.get(i)));
+            assertTrue(archivedMessageRepository.existsById(ids.get(i)));
+        }
+
+        messageArchiver.archiveColdMessages();
+        assertTrue(archivedMessageRepository.existsById(ids.get(1)));
+        assertTrue(messageRepository.existsById(ids.get(6)));
+    }
+
+    @Test
+    void historyMergesBothTiersInOrder() {
+        messageArchiver.archiveColdMessages();
+
+        MessageHistoryDto page = messageService.getConversationHistory(alice.getId(), null, null, 3);
+        assertEquals(List.of(ids.get(4), ids.get(5), ids.get(6)), idsOf(page));
+        assertTrue(page.isHasMore());
+        MessageDto reply = page.getMessages().get(1);
+        assertEquals("direct 5", reply.getContent());
+        assertEquals(alice.getUsername(), reply.getSender().getUsername());
+        assertEquals(ids.get(1), reply.getReplyTo().getId());
+        assertEquals("direct 1", reply.getReplyTo().getSnippet());
+
+        page = messageService.getConversationHistory(alice.getId(), page.getNextCursor(), null, 3);
+        assertEquals(List.of(ids.get(1), ids.get(2), ids.get(3)), idsOf(page));
+        assertTrue(page.isHasMore());
+
+        page = messageService.getConversationHistory(alice.getId(), page.getNextCursor(), null, 3);
+        assertEquals(List.of(ids.get(0)), idsOf(page));
+        assertFalse(page.isHasMore());
+
+        page = messageService.getConversationHistory(alice.getId(), null, page.getNextCursor(), 10);
+        assertEquals(ids.subList(1, 7), idsOf(page));
+    }
+
+    @Test
+    void offsetPagesMergeBothTiersInOrder() {
+        messageArchiver.archiveColdMessages();
+
+        Page<MessageDto> page = messageService.getConversation(alice.getId(), PageRequest.of(0, 3));
+        assertEquals(List.of(ids.get(0), ids.get(1), ids.get(2)), idsOf(page.getContent()));
+        assertEquals(7, page.getTotalElements());
+        assertEquals("direct 0", page.getContent().get(0).getContent());
+
+        page = messageService.getConversation(alice.getId(), PageRequest.of(1, 3));
+        assertEquals(List.of(ids.get(3), ids.get(4), ids.get(5)), idsOf(page.getContent()));
+
+        page = messageService.getConversation(alice.getId(), PageRequest.of(2, 3));
+        assertEquals(List.of(ids.get(6)), idsOf(page.getContent()));
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    void compressionRoundTrips() {
+        String content = "Longer messages compress well. ".repeat(20) + "Ünïcödé ✓";
+        byte[] compressed = MessageArchiver.compress(content);
+        assertTrue(compressed.length < content.length() / 4);
+        assertEquals(content, MessageArchiver.decompress(compressed));
+        assertEquals("", MessageArchiver.decompress(MessageArchiver.compress("")));
+    }
+
+    private List<Long> idsOf(MessageHistoryDto page) {
+        return idsOf(page.getMessages());
+    }
+
+    private List<Long> idsOf(List<MessageDto> messages) {
+        return messages.stream().map(MessageDto::getId).toList();
+    }
+
+    private void signIn(User user) {
+        UserPrincipal principal = UserPrincipal.create(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
@@ -0,0 +1,152 @@
+package com.clipnest.messaging.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Writing one message body and reading a history page of bodies: the
+ * messages table (INSERT with its content column, then SELECT ... WHERE id
+ * IN, on an on-disk H2 database) against {@link MessageSegmentLog}, with and
+ * without an fsync per append. Run with {@code mvn test-compile exec:java
+ * -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.clipnest.messaging.service.MessageBodyStoreBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageBodyStoreBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int SEEDED = 100_000;
+
+    @Param({"true", "false"})
+    private boolean fsync;
+
+    private Path directory;
+    private Connection connection;
+    private PreparedStatement insertStatement;
+    private PreparedStatement pageStatement;
+    private MessageSegmentLog log;
+    private String body;
+    private long nextId;
+    private final Random random = new Random(42);
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("message-body-benchmark");
+        body = "x".repeat(180);
+
+        connection = DriverManager.getConnection(
+                "jdbc:h2:file:" + directory.resolve("db") + ";MODE=MySQL", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE messages (id BIGINT PRIMARY KEY, thread_key VARCHAR(41), " +
+                    "content TEXT, created_at TIMESTAMP)");
+        }
+        log = new MessageSegmentLog(directory.resolve("log"), 64L << 20, fsync);
+
+        insertStatement = connection.prepareStatement(
+                "INSERT INTO messages (id, thread_key, content, created_at) VALUES (?, ?, ?, CURRENT_TIMESTAMP)");
+        for (nextId = 1; nextId <= SEEDED; nextId++) {
+            bind(nextId);
+            insertStatement.addBatch();
+            log.append(nextId, "1:2", body);
+            if (nextId % 10000 == 0) {
+                insertStatement.executeBatch();
+            }
+        }
+        insertStatement.executeBatch();
+
+        pageStatement = connection.prepareStatement("SELECT id, content FROM messages WHERE id IN (" +
+                String.join(", ", Collections.nCopies(PAGE_SIZE, "?")) + ")");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, SQLException {
+        log.close();
+        connection.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public int appendToTable() throws SQLException {
+        bind(nextId++);
+        return insertStatement.executeUpdate();
+    }
+
+    @Benchmark
+    public long appendToLog() throws IOException {
+        long id = nextId++;
+        log.append(id, "1:2", body);
+        return id;
+    }
+
+    @Benchmark
+    public List<String> readPageFromTable() throws SQLException {
+        long first = firstOfPage();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            pageStatement.setLong(i + 1, first + i);
+        }
+        List<String> contents = new ArrayList<>(PAGE_SIZE);
+        try (ResultSet rows = pageStatement.executeQuery()) {
+            while (rows.next()) {
+                contents.add(rows.getString(2));
+            }
+        }
+        return contents;
+    }
+
+    @Benchmark
+    public Collection<String> readPageFromLog() throws IOException {
+        long first = firstOfPage();
+        List<Long> ids = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            ids.add(first + i);
+        }
+        return log.readThread("1:2", ids).values();
+    }
+
+    private void bind(long id) throws SQLException {
+        insertStatement.setLong(1, id);
+        insertStatement.setString(2, "1:2");
+        insertStatement.setString(3, body);
+    }
+
+    private long firstOfPage() {
+        return 1 + random.nextInt(SEEDED - PAGE_SIZE);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MessageBodyStoreBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
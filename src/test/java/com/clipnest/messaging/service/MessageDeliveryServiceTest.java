@@ -0,0 +1,190 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.dto.DeliveryFrameDto;
+import com.clipnest.messaging.dto.ReadReceiptDto;
+import com.clipnest.messaging.dto.SendMessageRequest;
+import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.repository.UserRepository;
+import com.clipnest.messaging.security.UserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.Invocation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+
+/**
+ * What reaches the broker from the delivery pipeline, read off a mocked
+ * messaging template.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class MessageDeliveryServiceTest {
+
+    private static final AtomicInteger FIXTURES = new AtomicInteger();
+
+    @MockBean
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private MessageDeliveryService deliveryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        String fixture = "delivery" + FIXTURES.incrementAndGet() + "_";
+        alice = userRepository.save(new User(fixture + "alice", fixture + "alice@example.com", "password"));
+        bob = userRepository.save(new User(fixture + "bob", fixture + "bob@example.com", "password"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void everyReadPathSendsReadReceipts() throws Exception {
+        signIn(alice);
+        Long first = messageService.sendMessage(new SendMessageRequest(bob.getId(), "one")).getId();
+        messageService.sendMessage(new SendMessageRequest(bob.getId(), "two"));
+        messageService.sendMessage(new SendMessageRequest(bob.getId(), "three"));
+
+        signIn(bob);
+        messageService.markMessageAsRead(first);
+        messageService.markConversationAsRead(alice.getId());
+
+        List<Object> receipts = awaitEvents(alice, "/queue/read-receipts", 2);
+        ReadReceiptDto single = (ReadReceiptDto) receipts.get(0);
+        assertEquals(first, single.getMessageId());
+        assertEquals(1, single.getMessageCount());
+        assertEquals(bob.getId(), single.getReaderId());
+        assertNotNull(single.getReadAt());
+        ReadReceiptDto thread = (ReadReceiptDto) receipts.get(1);
+        assertNull(thread.getMessageId());
+        assertEquals(2, thread.getMessageCount());
+    }
+
+    @Test
+    void eventsLeaveOnlyAfterCommit() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            deliveryService.sendToUser(alice.getUsername(), "/queue/messages", "rolled back");
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            deliveryService.sendToUser(alice.getUsername(), "/queue/messages", "committed");
+            sleep(300);
+            assertTrue(sentEvents(alice, "/queue/messages").isEmpty(), "sent before commit");
+        });
+
+        assertEquals(List.of("committed"), awaitEvents(alice, "/queue/messages", 1));
+        Thread.sleep(300);
+        assertEquals(List.of("committed"), sentEvents(alice, "/queue/messages"));
+    }
+
+    @Test
+    void eventsQueuedTogetherShareAFrame() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Holds the worker inside the first frame while more events queue behind it
+        doAnswer(invocation -> {
+            if (sending.getCount() > 0) {
+                sending.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(messagingTemplate).convertAndSendToUser(eq(bob.getUsername()), eq("/queue/messages"), any(), anyMap());
+
+        deliveryService.sendToUser(bob.getUsername(), "/queue/messages", "first");
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        for (String event : List.of("second", "third", "fourth")) {
+            deliveryService.sendToUser(bob.getUsername(), "/queue/messages", event);
+        }
+        deliveryService.sendToUser(alice.getUsername(), "/queue/messages", "other user");
+        release.countDown();
+
+        assertEquals(List.of("first", "second", "third", "fourth"), awaitEvents(bob, "/queue/messages", 4));
+        verify(messagingTemplate).convertAndSendToUser(eq(bob.getUsername()), eq("/queue/messages"),
+                argThat(frame -> ((DeliveryFrameDto) frame).getEvents().equals(List.of("first"))),
+                eq(Map.of(MessageDeliveryService.BATCH_SIZE_HEADER, 1)));
+        verify(messagingTemplate).convertAndSendToUser(eq(bob.getUsername()), eq("/queue/messages"),
+                argThat(frame -> ((DeliveryFrameDto) frame).getEvents().equals(List.of("second", "third", "fourth"))),
+                eq(Map.of(MessageDeliveryService.BATCH_SIZE_HEADER, 3)));
+        assertEquals(List.of("other user"), awaitEvents(alice, "/queue/messages", 1));
+    }
+
+    /**
+     * Events sent so far to the user destination, in order, across however
+     * many frames they were coalesced into; waits for at least {@code count}.
+     */
+    private List<Object> awaitEvents(User user, String destination, int count) throws InterruptedException {
+        List<Object> events = new ArrayList<>();
+        for (int attempt = 0; attempt < 50; attempt++) {
+            events = sentEvents(user, destination);
+            if (events.size() >= count) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+        assertEquals(count, events.size(), "events for " + destination);
+        return events;
+    }
+
+    private List<Object> sentEvents(User user, String destination) {
+        List<Object> events = new ArrayList<>();
+        for (Invocation invocation : Mockito.mockingDetails(messagingTemplate).getInvocations()) {
+            Object[] arguments = invocation.getArguments();
+            if (invocation.getMethod().getName().equals("convertAndSendToUser")
+                    && user.getUsername().equals(arguments[0]) && destination.equals(arguments[1])) {
+                events.addAll(((DeliveryFrameDto) arguments[2]).getEvents());
+            }
+        }
+        return events;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void signIn(User user) {
+        UserPrincipal principal = UserPrincipal.create(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
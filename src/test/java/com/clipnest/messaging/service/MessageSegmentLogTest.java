@@ -0,0 +1,109 @@
+package com.clipnest.messaging.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageSegmentLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackAcrossSegmentsAndReopens() throws IOException {
+        try (MessageSegmentLog log = new MessageSegmentLog(directory, 256, false)) {
+            for (long id = 1; id <= 20; id++) {
+                log.append(id, "1:2", "body " + id + " ✓");
+            }
+            assertTrue(log.segmentCount() > 1);
+            assertEquals("body 7 ✓", log.read(7));
+            assertNull(log.read(21));
+        }
+
+        try (MessageSegmentLog log = new MessageSegmentLog(directory, 256, false)) {
+            for (long id = 1; id <= 20; id++) {
+                assertEquals("body " + id + " ✓", log.read(id));
+            }
+            log.append(21, "1:2", "");
+            assertEquals("", log.read(21));
+        }
+    }
+
+    @Test
+    void readsThreadsThroughSealedSegmentIndexes() throws IOException {
+        try (MessageSegmentLog log = new MessageSegmentLog(directory, 512, true)) {
+            List<MessageSegmentLog.Record> batch = new ArrayList<>();
+            for (long id = 1; id <= 300; id++) {
+                batch.add(new MessageSegmentLog.Record(id, id % 3 == 0 ? "c:7" : "1:" + (2 + id % 3), "body " + id));
+            }
+            log.append(batch);
+            assertTrue(log.segmentCount() > 10);
+        }
+        assertTrue(Files.exists(directory.resolve("segment-00000000.idx")));
+        Files.delete(directory.resolve("segment-00000003.idx"));
+
+        try (MessageSegmentLog log = new MessageSegmentLog(directory, 512, true)) {
+            assertTrue(Files.exists(directory.resolve("segment-00000003.idx")));
+            List<Long> ids = new ArrayList<>();
+            for (long id = 3; id <= 300; id += 3) {
+                ids.add(id);
+            }
+            ids.add(4L);
+            ids.add(301L);
+            Map<Long, String> bodies = log.readThread("c:7", ids);
+            assertEquals(100, bodies.size());
+            assertEquals("body 3", bodies.get(3L));
+            assertEquals("body 300", bodies.get(300L));
+
+            assertEquals(Map.of(4L, "body 4", 299L, "body 299"), log.read(List.of(4L, 299L, 301L)));
+        }
+    }
+
+    @Test
+    void truncatesARecordCutShortByACrash() throws IOException {
+        try (MessageSegmentLog log = new MessageSegmentLog(directory, 1 << 20, true)) {
+            log.append(1, "1:2", "first");
+            log.append(2, "1:2", "second");
+        }
+        Path segment = directory.resolve("segment-00000000.log");
+        long intact = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(12).putInt(100).putInt(0).putInt(7).flip());
+        }
+
+        try (MessageSegmentLog log = new MessageSegmentLog(directory, 1 << 20, true)) {
+            assertEquals(intact, Files.size(segment));
+            assertEquals("second", log.read(2));
+            log.append(3, "c:9", "third");
+            assertEquals("third", log.read(3));
+        }
+    }
+
+    @Test
+    void stopsAtARecordFailingItsChecksum() throws IOException {
+        try (MessageSegmentLog log = new MessageSegmentLog(directory, 1 << 20, true)) {
+            log.append(1, "1:2", "first");
+            log.append(2, "1:2", "second");
+        }
+        Path segment = directory.resolve("segment-00000000.log");
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), Files.size(segment) - 1);
+        }
+
+        try (MessageSegmentLog log = new MessageSegmentLog(directory, 1 << 20, true)) {
+            assertEquals("first", log.read(1));
+            assertNull(log.read(2));
+        }
+    }
+}
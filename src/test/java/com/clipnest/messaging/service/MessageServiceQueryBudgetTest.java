@@ -0,0 +1,197 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.dto.InboxEntryDto;
+import com.clipnest.messaging.dto.SendMessageRequest;
+import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.repository.UserRepository;
+import com.clipnest.messaging.security.UserPrincipal;
+import com.clipnest.messaging.support.StatementBudget;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Map.entry;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statement budgets for every public {@link MessageService} method, called as
+ * bob against {@value #MESSAGES} direct and {@value #MESSAGES} group messages.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class MessageServiceQueryBudgetTest {
+
+    private static final int MESSAGES = 20;
+
+    private static final AtomicInteger FIXTURES = new AtomicInteger();
+
+    // Statements per call against the fixture; raise a budget only for a known reason
+    private static final Map<String, Integer> BUDGETS = Map.ofEntries(
+            entry("sendMessage", 7),
+            entry("getConversation", 4), // counts the archive before the offset page
+            entry("getConversationMessages", 4),
+            entry("getConversationHistory", 3), // the last hot page also reads the archive
+            entry("getConversationMessageHistory", 3),
+            entry("markMessageAsRead", 5),
+            entry("markConversationAsRead", 5),
+            entry("markGroupConversationAsRead", 6),
+            entry("getUnreadMessageCount", 1),
+            entry("getRecentConversations", 1)
+    );
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private StatementBudget budget;
+    private User alice;
+    private User bob;
+    private Long groupId;
+    private Long lastFromAlice;
+
+    @BeforeEach
+    void setUp() {
+        budget = new StatementBudget(MessageService.class, BUDGETS, entityManagerFactory);
+
+        String fixture = "msg" + FIXTURES.incrementAndGet() + "_";
+        alice = userRepository.save(new User(fixture + "alice", fixture + "alice@example.com", "password"));
+        bob = userRepository.save(new User(fixture + "bob", fixture + "bob@example.com", "password"));
+        User carol = userRepository.save(new User(fixture + "carol", fixture + "carol@example.com", "password"));
+
+        signIn(alice);
+        groupId = conversationService.createConversation("Weekend", null, List.of(bob.getId(), carol.getId())).getId();
+
+        // Alternating senders, every third direct message a reply to the one before
+        Long previous = null;
+        for (int i = 0; i < MESSAGES; i++) {
+            boolean fromAlice = i % 2 == 0;
+            signIn(fromAlice ? alice : bob);
+            SendMessageRequest direct = new SendMessageRequest(fromAlice ? bob.getId() : alice.getId(), "direct " + i);
+            if (previous != null && i % 3 == 0) {
+                direct.setReplyToId(previous);
+            }
+            previous = messageService.sendMessage(direct).getId();
+            if (fromAlice) {
+                lastFromAlice = previous;
+            }
+
+            signIn(fromAlice ? alice : carol);
+            SendMessageRequest grouped = new SendMessageRequest(bob.getId(), "group " + i);
+            grouped.setConversationId(groupId);
+            messageService.sendMessage(grouped);
+        }
+
+        signIn(bob);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void everyPublicMethodHasABudget() {
+        budget.assertCoversPublicMethods();
+    }
+
+    @Test
+    void sendMessage() {
+        SendMessageRequest reply = new SendMessageRequest(alice.getId(), "reply");
+        reply.setReplyToId(lastFromAlice);
+        assertNotNull(budget.check("sendMessage", () -> messageService.sendMessage(reply)).getReplyTo());
+
+        SendMessageRequest grouped = new SendMessageRequest(alice.getId(), "group reply");
+        grouped.setConversationId(groupId);
+        budget.check("sendMessage", () -> messageService.sendMessage(grouped));
+    }
+
+    @Test
+    void getConversation() {
+        assertEquals(MESSAGES, budget.check("getConversation",
+                () -> messageService.getConversation(alice.getId(), PageRequest.of(0, MESSAGES))).getNumberOfElements());
+    }
+
+    @Test
+    void getConversationMessages() {
+        assertEquals(MESSAGES, budget.check("getConversationMessages",
+                () -> messageService.getConversationMessages(groupId, PageRequest.of(0, MESSAGES))).getNumberOfElements());
+    }
+
+    @Test
+    void getConversationHistory() {
+        assertEquals(MESSAGES, budget.check("getConversationHistory",
+                () -> messageService.getConversationHistory(alice.getId(), null, null, MESSAGES)).getMessages().size());
+    }
+
+    @Test
+    void getConversationMessageHistory() {
+        assertEquals(MESSAGES, budget.check("getConversationMessageHistory",
+                () -> messageService.getConversationMessageHistory(groupId, null, null, MESSAGES)).getMessages().size());
+    }
+
+    @Test
+    void markMessageAsRead() {
+        budget.check("markMessageAsRead", () -> messageService.markMessageAsRead(lastFromAlice));
+    }
+
+    @Test
+    void markConversationAsRead() {
+        assertEquals(MESSAGES / 2, budget.check("markConversationAsRead",
+                () -> messageService.markConversationAsRead(alice.getId())));
+    }
+
+    @Test
+    void markGroupConversationAsRead() {
+        assertEquals(MESSAGES, budget.check("markGroupConversationAsRead",
+                () -> messageService.markGroupConversationAsRead(groupId)));
+    }
+
+    @Test
+    void getUnreadMessageCount() {
+        assertEquals(MESSAGES / 2 + MESSAGES, budget.check("getUnreadMessageCount",
+                () -> messageService.getUnreadMessageCount()));
+    }
+
+    @Test
+    void getRecentConversations() {
+        assertEquals(2, budget.check("getRecentConversations",
+                () -> messageService.getRecentConversations(PageRequest.of(0, 10))).size());
+    }
+
+    @Test
+    void groupMessagesUpdateEveryParticipantsInbox() {
+        // The last group message is carol's to bob; alice's entry follows it too
+        signIn(alice);
+        InboxEntryDto group = messageService.getRecentConversations(PageRequest.of(0, 10)).stream()
+                .filter(entry -> entry.getPeerId().equals(groupId))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("group " + (MESSAGES - 1), group.getLastMessageSnippet());
+        assertEquals(0, group.getUnreadCount());
+    }
+
+    private void signIn(User user) {
+        UserPrincipal principal = UserPrincipal.create(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
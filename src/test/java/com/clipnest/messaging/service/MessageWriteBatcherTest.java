@@ -0,0 +1,72 @@
+package com.clipnest.messaging.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageWriteBatcherTest {
+
+    @Test
+    void writesAfterStopAreWrittenAlone() throws Exception {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        MessageWriteBatcher<String> batcher = new MessageWriteBatcher<>(batches::add, 10, 10, 10);
+        batcher.stop();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> batcher.write("late"));
+        assertEquals(List.of(List.of("late")), batches);
+    }
+
+    @Test
+    void stopCommitsWritesStillQueued() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> written = new CopyOnWriteArrayList<>();
+        MessageWriteBatcher<String> batcher = new MessageWriteBatcher<>(items -> {
+            if (items.contains("blocker")) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            written.addAll(items);
+        }, 1, 0, 10);
+
+        ExecutorService senders = Executors.newFixedThreadPool(3);
+        try {
+            Future<?> blocker = senders.submit(() -> batcher.write("blocker"));
+            Thread.sleep(100);
+            Future<?> first = senders.submit(() -> batcher.write("queued-1"));
+            Future<?> second = senders.submit(() -> batcher.write("queued-2"));
+            Thread.sleep(100);
+
+            // The writer thread is stuck on the blocker, so stop() must commit the queue itself
+            Thread stopper = new Thread(() -> {
+                try {
+                    batcher.stop();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            stopper.start();
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+            assertTrue(written.containsAll(List.of("queued-1", "queued-2")));
+
+            release.countDown();
+            blocker.get(10, TimeUnit.SECONDS);
+            stopper.join(10_000);
+            assertEquals(3, written.size());
+        } finally {
+            senders.shutdownNow();
+        }
+    }
+}
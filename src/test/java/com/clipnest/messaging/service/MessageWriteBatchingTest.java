@@ -0,0 +1,136 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.dto.InboxEntryDto;
+import com.clipnest.messaging.dto.MessageDto;
+import com.clipnest.messaging.dto.SendMessageRequest;
+import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.exception.ResourceNotFoundException;
+import com.clipnest.messaging.repository.UserRepository;
+import com.clipnest.messaging.security.UserPrincipal;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrent sends through the group-commit writer: three senders send five
+ * messages each to dave at once, plus one send to a missing recipient that
+ * must fail alone without failing the batch it joined.
+ */
+@SpringBootTest(properties = {
+        "app.messaging.write-batching.enabled=true",
+        "app.messaging.write-batching.max-wait-ms=200",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+class MessageWriteBatchingTest {
+
+    private static final int SENDS_PER_SENDER = 5;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
+    @Autowired
+    private InboxService inboxService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void concurrentSendsShareCommits() throws Exception {
+        User dave = userRepository.save(new User("batch_dave", "batch_dave@example.com", "password"));
+        List<User> senders = new ArrayList<>();
+        for (String name : List.of("batch_alice", "batch_bob", "batch_carol")) {
+            senders.add(userRepository.save(new User(name, name + "@example.com", "password")));
+        }
+
+        List<Callable<MessageDto>> sends = new ArrayList<>();
+        for (User sender : senders) {
+            for (int i = 0; i < SENDS_PER_SENDER; i++) {
+                sends.add(send(sender, new SendMessageRequest(dave.getId(), sender.getUsername() + " " + i)));
+            }
+        }
+        sends.add(send(senders.get(0), new SendMessageRequest(Long.MAX_VALUE, "nobody")));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(sends.size());
+        List<Future<MessageDto>> results = new ArrayList<>();
+        try {
+            for (Callable<MessageDto> send : sends) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return send.call();
+                }));
+            }
+            start.countDown();
+
+            List<MessageDto> sent = new ArrayList<>();
+            for (Future<MessageDto> result : results.subList(0, results.size() - 1)) {
+                sent.add(result.get());
+            }
+            ExecutionException missing = assertThrows(ExecutionException.class, () -> results.get(results.size() - 1).get());
+            assertInstanceOf(ResourceNotFoundException.class, missing.getCause());
+
+            assertEquals(sent.size(), sent.stream().map(MessageDto::getId).collect(Collectors.toCollection(HashSet::new)).size());
+            assertTrue(statistics.getSuccessfulTransactionCount() < sends.size(),
+                    () -> statistics.getSuccessfulTransactionCount() + " transactions for " + sends.size() + " sends");
+
+            assertEquals(sent.size(), unreadCounterService.getTotalUnread(dave.getId()));
+            Map<Long, InboxEntryDto> inbox = inboxService.getInbox(dave.getId(), PageRequest.of(0, 10)).stream()
+                    .collect(Collectors.toMap(InboxEntryDto::getPeerId, entry -> entry));
+            for (User sender : senders) {
+                InboxEntryDto entry = inbox.get(sender.getId());
+                assertEquals(SENDS_PER_SENDER, entry.getUnreadCount());
+                long latest = sent.stream()
+                        .filter(message -> message.getSender().getId().equals(sender.getId()))
+                        .mapToLong(MessageDto::getId)
+                        .max()
+                        .orElseThrow();
+                assertEquals(latest, entry.getLastMessageId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Callable<MessageDto> send(User sender, SendMessageRequest request) {
+        return () -> {
+            UserPrincipal principal = UserPrincipal.create(sender);
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+            try {
+                return messageService.sendMessage(request);
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        };
+    }
+}
@@ -0,0 +1,56 @@
+package com.clipnest.messaging.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SchedulerLockServiceTest {
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void jobIsSkippedWhileItsLockIsHeld() {
+        AtomicBoolean nested = new AtomicBoolean(true);
+        assertTrue(schedulerLockService.runExclusively("test-held",
+                () -> nested.set(schedulerLockService.runExclusively("test-held", () -> fail("ran twice")))));
+        assertFalse(nested.get());
+
+        // Released once the run ends, and other jobs are unaffected meanwhile
+        assertTrue(schedulerLockService.runExclusively("test-held",
+                () -> assertTrue(schedulerLockService.runExclusively("test-other", () -> { }))));
+    }
+
+    @Test
+    void lockOfAnotherNodeIsTakenOnlyOnceExpired() {
+        schedulerLockService.runExclusively("test-expiry", () -> { });
+        jdbcTemplate.update("UPDATE scheduler_locks SET locked_by = 'other', locked_until = ? WHERE name = ?",
+                Timestamp.valueOf(LocalDateTime.now().plusMinutes(5)), "test-expiry");
+        assertFalse(schedulerLockService.runExclusively("test-expiry", () -> fail("lock ignored")));
+
+        jdbcTemplate.update("UPDATE scheduler_locks SET locked_until = ? WHERE name = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(5)), "test-expiry");
+        assertTrue(schedulerLockService.runExclusively("test-expiry", () -> { }));
+    }
+
+    @Test
+    void jobFailureReleasesTheLock() {
+        assertThrows(IllegalStateException.class, () -> schedulerLockService.runExclusively("test-failure", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertTrue(schedulerLockService.runExclusively("test-failure", () -> { }));
+    }
+}
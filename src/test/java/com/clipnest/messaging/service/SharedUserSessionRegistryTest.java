@@ -0,0 +1,18 @@
+package com.clipnest.messaging.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedUserSessionRegistryTest {
+
+    @Test
+    void requiresBrokerRelay() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new SharedUserSessionRegistry("node-1", "simple"));
+        assertTrue(e.getMessage().contains("app.websocket.broker.mode=relay"));
+
+        assertEquals("node-1", new SharedUserSessionRegistry("node-1", "relay").getLocalNodeId());
+        assertFalse(new SharedUserSessionRegistry("", "RELAY").getLocalNodeId().isBlank());
+    }
+}
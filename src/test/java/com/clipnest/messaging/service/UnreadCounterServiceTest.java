@@ -0,0 +1,151 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.dto.SendMessageRequest;
+import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.repository.UserRepository;
+import com.clipnest.messaging.security.UserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bob receives three direct messages from alice, two from carol and one in
+ * a group; the counters must follow every way of reading them.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class UnreadCounterServiceTest {
+
+    private static final AtomicInteger FIXTURES = new AtomicInteger();
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
+    @Autowired
+    private UnreadCounterReconciler unreadCounterReconciler;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User alice;
+    private User bob;
+    private User carol;
+    private Long groupId;
+    private final List<Long> fromAlice = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        String fixture = "unread" + FIXTURES.incrementAndGet() + "_";
+        alice = userRepository.save(new User(fixture + "alice", fixture + "alice@example.com", "password"));
+        bob = userRepository.save(new User(fixture + "bob", fixture + "bob@example.com", "password"));
+        carol = userRepository.save(new User(fixture + "carol", fixture + "carol@example.com", "password"));
+
+        signIn(alice);
+        for (int i = 0; i < 3; i++) {
+            fromAlice.add(messageService.sendMessage(new SendMessageRequest(bob.getId(), "alice " + i)).getId());
+        }
+        groupId = conversationService.createConversation("Team", null, List.of(bob.getId(), carol.getId())).getId();
+        signIn(carol);
+        for (int i = 0; i < 2; i++) {
+            messageService.sendMessage(new SendMessageRequest(bob.getId(), "carol " + i));
+        }
+        SendMessageRequest grouped = new SendMessageRequest(bob.getId(), "group");
+        grouped.setConversationId(groupId);
+        messageService.sendMessage(grouped);
+
+        signIn(bob);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void sendsCountForTheRecipientOnly() {
+        assertEquals(6, messageService.getUnreadMessageCount());
+        assertEquals(0, unreadCounterService.getTotalUnread(alice.getId()));
+        assertEquals(0, unreadCounterService.getTotalUnread(carol.getId()));
+        assertEquals(3, counter(bob, "DIRECT", alice.getId()));
+        assertEquals(2, counter(bob, "DIRECT", carol.getId()));
+        assertEquals(1, counter(bob, "GROUP", groupId));
+    }
+
+    @Test
+    void readingAMessageCountsOnce() {
+        messageService.markMessageAsRead(fromAlice.get(0));
+        messageService.markMessageAsRead(fromAlice.get(0));
+
+        assertEquals(5, messageService.getUnreadMessageCount());
+        assertEquals(2, counter(bob, "DIRECT", alice.getId()));
+    }
+
+    @Test
+    void markAllReadClearsEachScope() {
+        messageService.markMessageAsRead(fromAlice.get(0));
+
+        assertEquals(2, messageService.markConversationAsRead(alice.getId()));
+        assertEquals(3, messageService.getUnreadMessageCount());
+        assertEquals(0, messageService.markConversationAsRead(alice.getId()));
+
+        assertEquals(1, messageService.markGroupConversationAsRead(groupId));
+        assertEquals(2, messageService.getUnreadMessageCount());
+
+        assertEquals(2, messageService.markConversationAsRead(carol.getId()));
+        assertEquals(0, messageService.getUnreadMessageCount());
+        assertEquals(0, counter(bob, "DIRECT", carol.getId()));
+    }
+
+    @Test
+    void reconcilerRepairsDrift() {
+        jdbcTemplate.update("UPDATE unread_counters SET unread_count = 99 WHERE user_id = ?", bob.getId());
+        jdbcTemplate.update("DELETE FROM unread_counters WHERE user_id = ? AND scope = 'GROUP'", bob.getId());
+
+        transactionTemplate.executeWithoutResult(status -> unreadCounterService.reconcileUser(bob.getId()));
+
+        assertEquals(6, messageService.getUnreadMessageCount());
+        assertEquals(3, counter(bob, "DIRECT", alice.getId()));
+        assertEquals(1, counter(bob, "GROUP", groupId));
+
+        // The scheduled run repairs the same way
+        jdbcTemplate.update("UPDATE unread_counters SET unread_count = 99 WHERE user_id = ?", bob.getId());
+        unreadCounterReconciler.reconcileAll();
+        assertEquals(6, messageService.getUnreadMessageCount());
+    }
+
+    private long counter(User user, String scope, Long scopeId) {
+        return jdbcTemplate.queryForObject("SELECT unread_count FROM unread_counters " +
+                "WHERE user_id = ? AND scope = ? AND scope_id = ?", Long.class, user.getId(), scope, scopeId);
+    }
+
+    private void signIn(User user) {
+        UserPrincipal principal = UserPrincipal.create(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
@@ -0,0 +1,135 @@
+package com.clipnest.messaging.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One search page against a synthetic user base: the LIKE %query% query pair
+ * Spring Data issues for {@code UserRepository.searchUsers} (page plus count,
+ * on an in-memory H2 table) against {@link UserSearchIndex}. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.clipnest.messaging.service.UserSearchBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class UserSearchBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final String[] SYLLABLES = {
+            "al", "an", "ar", "be", "ca", "da", "el", "en", "fa", "ga", "ha", "is", "jo", "ka", "la",
+            "li", "ma", "mi", "na", "no", "ol", "pa", "ra", "ri", "sa", "ta", "to", "va", "yo", "ze"
+    };
+
+    @Param({"1000000"})
+    private int users;
+
+    @Param({"ma", "mari", "marti", "mrai"})
+    private String query;
+
+    private UserSearchIndex index;
+    private Connection connection;
+    private PreparedStatement pageStatement;
+    private PreparedStatement countStatement;
+
+    @Setup
+    public void setUp() throws SQLException {
+        index = new UserSearchIndex();
+        connection = DriverManager.getConnection("jdbc:h2:mem:user_search_benchmark;MODE=MySQL", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, username VARCHAR(50), " +
+                    "first_name VARCHAR(50), last_name VARCHAR(50))");
+        }
+
+        Random random = new Random(42);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO users (id, username, first_name, last_name) VALUES (?, ?, ?, ?)")) {
+            for (int id = 1; id <= users; id++) {
+                String firstName = name(random);
+                String lastName = name(random);
+                String username = firstName.toLowerCase() + "_" + id;
+                index.put((long) id, username, firstName, lastName);
+
+                insert.setLong(1, id);
+                insert.setString(2, username);
+                insert.setString(3, firstName);
+                insert.setString(4, lastName);
+                insert.addBatch();
+                if (id % 10000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+
+        pageStatement = connection.prepareStatement("SELECT id, username, first_name, last_name FROM users " +
+                "WHERE username LIKE ? OR first_name LIKE ? OR last_name LIKE ? LIMIT " + PAGE_SIZE);
+        countStatement = connection.prepareStatement("SELECT COUNT(*) FROM users " +
+                "WHERE username LIKE ? OR first_name LIKE ? OR last_name LIKE ?");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public List<Long> likeQuery() throws SQLException {
+        String pattern = "%" + query + "%";
+        List<Long> ids = new ArrayList<>(PAGE_SIZE);
+        for (int i = 1; i <= 3; i++) {
+            pageStatement.setString(i, pattern);
+            countStatement.setString(i, pattern);
+        }
+        try (ResultSet rows = pageStatement.executeQuery()) {
+            while (rows.next()) {
+                ids.add(rows.getLong(1));
+            }
+        }
+        try (ResultSet count = countStatement.executeQuery()) {
+            count.next();
+            ids.add(count.getLong(1));
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public UserSearchIndex.Result searchIndex() {
+        return index.search(query, PAGE_SIZE);
+    }
+
+    private static String name(Random random) {
+        StringBuilder name = new StringBuilder();
+        int syllables = 2 + random.nextInt(3);
+        for (int i = 0; i < syllables; i++) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(UserSearchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
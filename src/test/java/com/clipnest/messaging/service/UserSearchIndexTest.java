@@ -0,0 +1,83 @@
+package com.clipnest.messaging.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSearchIndexTest {
+
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new UserSearchIndex();
+        index.put(1L, "alice", "Alice", "Smith");
+        index.put(2L, "malice_x", "Bob", "Jones");
+        index.put(3L, "bob", "Robert", "Alison");
+        index.put(4L, "martinez", "Maria", "Martinez");
+    }
+
+    @Test
+    void shortQueriesMatchWordStartsOnly() {
+        assertEquals(List.of(1L, 3L), index.search("al", 10).getIds());
+        assertEquals(0, index.search("li", 10).getTotal());
+    }
+
+    @Test
+    void ranksExactThenPrefixThenSubstring() {
+        // alice: exact username; bob: prefix of the last name "alison"; malice_x: substring
+        assertEquals(List.of(1L, 3L, 2L), index.search("ali", 10).getIds());
+        assertEquals(List.of(1L, 2L), index.search("alice", 10).getIds());
+    }
+
+    @Test
+    void typosMatchOnlyWhenExactMatchesDoNotFillTheLimit() {
+        assertEquals(List.of(4L), index.search("martniez", 10).getIds());
+        assertEquals(List.of(1L), index.search("alce", 10).getIds());
+        // Too short for a typo budget
+        assertEquals(0, index.search("alx", 10).getTotal());
+
+        index.put(5L, "alceste", null, null);
+        assertEquals(List.of(5L), index.search("alce", 1).getIds());
+        assertEquals(1, index.search("alce", 1).getTotal());
+    }
+
+    @Test
+    void everyQueryWordMustMatch() {
+        assertEquals(List.of(3L), index.search("rob ali", 10).getIds());
+        assertEquals(0, index.search("rob smith", 10).getTotal());
+    }
+
+    @Test
+    void putReplacesAndRemoveDropsTheUser() {
+        index.put(1L, "zed", "Zed", "Z");
+        assertEquals(List.of(3L, 2L), index.search("ali", 10).getIds());
+        assertEquals(List.of(1L), index.search("zed", 10).getIds());
+
+        index.remove(3L);
+        assertEquals(List.of(2L), index.search("ali", 10).getIds());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void putIfAbsentKeepsTheIndexedFields() {
+        index.putIfAbsent(1L, "zed", null, null);
+        assertEquals(List.of(1L), index.search("smith", 10).getIds());
+        assertEquals(0, index.search("zed", 10).getTotal());
+    }
+
+    @Test
+    void limitKeepsTheBestAndCountsAll() {
+        for (long id = 10; id < 40; id++) {
+            index.put(id, "conn" + id, "Sarah", "Connor");
+        }
+        UserSearchIndex.Result top = index.search("connor", 5);
+        assertEquals(30, top.getTotal());
+        assertEquals(List.of(10L, 11L, 12L, 13L, 14L), top.getIds());
+        assertEquals(top.getIds(), index.search("connor", 30).getIds().subList(0, 5));
+        assertEquals(0, index.search("", 5).getTotal());
+    }
+}
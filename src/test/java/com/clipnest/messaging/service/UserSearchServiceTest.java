@@ -0,0 +1,77 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Users written straight to the table, as another node would, reach the
+ * index only through refresh.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class UserSearchServiceTest {
+
+    @Autowired
+    private UserSearchService userSearchService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User saveUser(String username, String firstName, String lastName) {
+        User user = new User(username, username + "@example.com", "password123");
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        return userRepository.save(user);
+    }
+
+    private List<String> usernames(Page<User> page) {
+        return page.getContent().stream().map(User::getUsername).toList();
+    }
+
+    @Test
+    void refreshPicksUpUsersWrittenElsewhere() {
+        User sarah = saveUser("refresh_sarah", "Sarah", "Quellmark");
+        saveUser("refresh_john", "John", "Quellmark");
+        assertEquals(0, userSearchService.search("quellmark", PageRequest.of(0, 10)).getTotalElements());
+
+        userSearchService.refresh();
+        assertEquals(List.of("refresh_john", "refresh_sarah"),
+                usernames(userSearchService.search("quellmark", PageRequest.of(0, 10))));
+
+        sarah.setLastName("Vantorre");
+        userRepository.save(sarah);
+        userSearchService.refresh();
+        assertEquals(List.of("refresh_john"), usernames(userSearchService.search("quellmark", PageRequest.of(0, 10))));
+        assertEquals(List.of("refresh_sarah"), usernames(userSearchService.search("vantorre", PageRequest.of(0, 10))));
+    }
+
+    @Test
+    void pagesFollowRankOrder() {
+        saveUser("paging_ann", "Ann", "Ostrowick");
+        saveUser("paging_bea", "Bea", "Ostrowick");
+        saveUser("paging_cy", "Cy", "Ostrowick");
+        saveUser("ostrowick", null, null);
+        userSearchService.refresh();
+
+        Page<User> first = userSearchService.search("ostrowick", PageRequest.of(0, 2));
+        Page<User> second = userSearchService.search("ostrowick", PageRequest.of(1, 2));
+        Page<User> past = userSearchService.search("ostrowick", PageRequest.of(2, 2));
+
+        // An exact username outranks exact names; ties go to the shorter username
+        assertEquals(List.of("ostrowick", "paging_cy"), usernames(first));
+        assertEquals(List.of("paging_ann", "paging_bea"), usernames(second));
+        assertTrue(past.getContent().isEmpty());
+        assertEquals(4, first.getTotalElements());
+        assertEquals(2, first.getTotalPages());
+    }
+}
@@ -0,0 +1,388 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.dto.UserDto;
+import com.clipnest.messaging.dto.UserListDto;
+import com.clipnest.messaging.dto.UserSuggestionDto;
+import com.clipnest.messaging.entity.User;
+import com.clipnest.messaging.exception.BadRequestException;
+import com.clipnest.messaging.repository.FollowRequestRepository;
+import com.clipnest.messaging.repository.UserFollowRepository;
+import com.clipnest.messaging.repository.UserRepository;
+import com.clipnest.messaging.security.UserPrincipal;
+import com.clipnest.messaging.support.StatementBudget;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.util.Map.entry;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statement budgets for every public {@link UserService} method, called as
+ * alice. Bob has {@value #FOLLOWERS} followers, all of whom alice follows
+ * back, and dana's private account has {@value #REQUESTS} pending requests.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class UserServiceQueryBudgetTest {
+
+    private static final int FOLLOWERS = 12;
+    private static final int REQUESTS = 5;
+
+    private static final AtomicInteger FIXTURES = new AtomicInteger();
+
+    // Statements per call against the fixture; raise a budget only for a known reason
+    private static final Map<String, Integer> BUDGETS = Map.ofEntries(
+            entry("getCurrentUser", 1),
+            entry("getUserByUsername", 4),
+            entry("updateProfile", 2),
+            entry("changePassword", 2),
+            entry("searchUsers", 4),
+            entry("followUser", 8),
+            entry("unfollowUser", 7),
+            entry("getFollowers", 5),
+            entry("getFollowing", 5),
+            entry("getRecentFollowers", 5),
+            entry("getRecentFollowing", 5),
+            entry("getFollowRequests", 4),
+            entry("acceptFollowRequest", 10),
+            entry("rejectFollowRequest", 2)
+    );
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserSearchService userSearchService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FollowRequestRepository followRequestRepository;
+
+    @Autowired
+    private UserFollowRepository userFollowRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private StatementBudget budget;
+    private String fixture;
+    private User alice;
+    private User bob;
+    private User dana;
+    private List<User> followers;
+
+    @BeforeEach
+    void setUp() {
+        budget = new StatementBudget(UserService.class, BUDGETS, entityManagerFactory);
+
+        fixture = "user" + FIXTURES.incrementAndGet() + "_";
+        alice = createUser("alice", false);
+        bob = createUser("bob", false);
+        dana = createUser("dana", true);
+
+        followers = new ArrayList<>();
+        for (int i = 0; i < FOLLOWERS; i++) {
+            User follower = createUser("follower" + i, false);
+            followers.add(follower);
+            signIn(follower);
+            userService.followUser(bob.getUsername());
+            if (i < REQUESTS) {
+                userService.followUser(dana.getUsername());
+            }
+            signIn(alice);
+            userService.followUser(follower.getUsername());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void everyPublicMethodHasABudget() {
+        budget.assertCoversPublicMethods();
+    }
+
+    @Test
+    void getCurrentUser() {
+        assertEquals(FOLLOWERS, budget.check("getCurrentUser", () -> userService.getCurrentUser()).getFollowingCount());
+    }
+
+    @Test
+    void getUserByUsername() {
+        assertEquals(FOLLOWERS, budget.check("getUserByUsername",
+                () -> userService.getUserByUsername(bob.getUsername())).getFollowerCount());
+    }
+
+    @Test
+    void updateProfile() {
+        UserDto profile = new UserDto();
+        profile.setFirstName("Alice");
+        profile.setBio("Counting statements");
+        assertEquals("Alice", budget.check("updateProfile", () -> userService.updateProfile(profile)).getFirstName());
+    }
+
+    @Test
+    void changePassword() {
+        User user = userRepository.findById(alice.getId()).orElseThrow();
+        user.setPassword(passwordEncoder.encode("password"));
+        userRepository.save(user);
+
+        budget.check("changePassword", () -> userService.changePassword("password", "new-password"));
+    }
+
+    @Test
+    void searchUsers() {
+        // Earlier fixtures' followers are one typo away, so at least this fixture's
+        assertTrue(budget.check("searchUsers",
+                () -> userService.searchUsers(fixture + "follower", PageRequest.of(0, 20))).getNumberOfElements()
+                >= FOLLOWERS);
+    }
+
+    @Test
+    void followUser() {
+        signIn(createUser("newcomer", false));
+        assertTrue(budget.check("followUser", () -> userService.followUser(bob.getUsername())).isFollowing());
+    }
+
+    @Test
+    void followAndUnfollowMoveBothCounts() {
+        User newcomer = createUser("counted", false);
+        signIn(newcomer);
+
+        assertEquals(FOLLOWERS + 1, userService.followUser(bob.getUsername()).getFollowerCount());
+        assertEquals(FOLLOWERS + 1, followerCount(bob));
+        assertEquals(1, followingCount(newcomer));
+
+        assertEquals(FOLLOWERS, userService.unfollowUser(bob.getUsername()).getFollowerCount());
+        assertThrows(BadRequestException.class, () -> userService.unfollowUser(bob.getUsername()));
+        assertEquals(FOLLOWERS, followerCount(bob));
+        assertEquals(0, followingCount(newcomer));
+    }
+
+    @Test
+    void repeatedFollowInsertsAndCountsOnce() {
+        User newcomer = createUser("repeater", false);
+        signIn(newcomer);
+        userService.followUser(bob.getUsername());
+        assertThrows(BadRequestException.class, () -> userService.followUser(bob.getUsername()));
+
+        // A follow racing past the check above inserts nothing, so counts nothing
+        int inserted = transactionTemplate.execute(status ->
+                userFollowRepository.insertFollow(newcomer.getId(), bob.getId(), LocalDateTime.now()));
+        assertEquals(0, inserted);
+
+        assertEquals(FOLLOWERS + 1, followerCount(bob));
+        assertEquals(1, followingCount(newcomer));
+    }
+
+    @Test
+    void acceptedRequestCountsTheFollow() {
+        signIn(dana);
+        Long requestId = pendingRequestIds().get(0);
+
+        // Every requester followed bob in setUp, and now dana
+        UserDto requester = userService.acceptFollowRequest(requestId);
+        assertEquals(2, requester.getFollowingCount());
+        assertEquals(1, followerCount(dana));
+        assertEquals(2, userRepository.findByUsername(requester.getUsername()).orElseThrow().getFollowingCount());
+        assertThrows(BadRequestException.class, () -> userService.acceptFollowRequest(requestId));
+        assertEquals(1, followerCount(dana));
+    }
+
+    @Test
+    void followerCountsMoveSuggestionRanks() {
+        User first = createUser("rank_a", false);
+        User second = createUser("rank_b", false);
+        assertEquals(List.of(first.getId(), second.getId()), suggestedIds("rank_"));
+
+        userService.followUser(second.getUsername());
+        assertEquals(List.of(second.getId(), first.getId()), suggestedIds("rank_"));
+
+        // A follow recorded by another node reaches this one through the refresh,
+        // without passing for a profile edit
+        LocalDateTime updatedAt = userRepository.findById(first.getId()).orElseThrow().getUpdatedAt();
+        transactionTemplate.executeWithoutResult(status -> userRepository.adjustFollowerCount(first.getId(), 2));
+        userSearchService.refresh();
+        assertEquals(List.of(first.getId(), second.getId()), suggestedIds("rank_"));
+        assertEquals(updatedAt, userRepository.findById(first.getId()).orElseThrow().getUpdatedAt());
+    }
+
+    @Test
+    void unfollowUser() {
+        assertFalse(budget.check("unfollowUser",
+                () -> userService.unfollowUser(followers.get(0).getUsername())).isFollowing());
+    }
+
+    @Test
+    void getFollowers() {
+        assertEquals(FOLLOWERS, budget.check("getFollowers",
+                () -> userService.getFollowers(bob.getUsername(), PageRequest.of(0, 20))).getNumberOfElements());
+    }
+
+    @Test
+    void getFollowing() {
+        assertEquals(FOLLOWERS, budget.check("getFollowing",
+                () -> userService.getFollowing(alice.getUsername(), PageRequest.of(0, 20))).getNumberOfElements());
+    }
+
+    @Test
+    void getRecentFollowers() {
+        assertEquals(FOLLOWERS, budget.check("getRecentFollowers",
+                () -> userService.getRecentFollowers(bob.getUsername(), null, 20)).getUsers().size());
+    }
+
+    @Test
+    void getRecentFollowing() {
+        assertEquals(FOLLOWERS, budget.check("getRecentFollowing",
+                () -> userService.getRecentFollowing(alice.getUsername(), null, 20)).getUsers().size());
+    }
+
+    @Test
+    void recentFollowersPageThroughTiesInOrder() {
+        User carol = createUser("carol", false);
+        List<User> fans = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            fans.add(createUser("fan" + i, false));
+        }
+        // Three follows share a timestamp, so the cursor has to break ties on user id
+        LocalDateTime at = LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.SECONDS);
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < fans.size(); i++) {
+                userFollowRepository.insertFollow(fans.get(i).getId(), carol.getId(), at.plusSeconds(Math.max(0, i - 2)));
+            }
+        });
+
+        List<Long> expected = new ArrayList<>();
+        for (int i = fans.size() - 1; i >= 3; i--) {
+            expected.add(fans.get(i).getId());
+        }
+        List.of(2, 1, 0).forEach(i -> expected.add(fans.get(i).getId()));
+
+        assertEquals(expected, pageThrough(
+                before -> userService.getRecentFollowers(carol.getUsername(), before, 3), List.of(3, 3, 1)));
+    }
+
+    @Test
+    void recentFollowingEndsOnAFullLastPage() {
+        User carol = createUser("carol", false);
+        List<User> idols = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            idols.add(createUser("idol" + i, false));
+        }
+        LocalDateTime at = LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.SECONDS);
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < idols.size(); i++) {
+                userFollowRepository.insertFollow(carol.getId(), idols.get(i).getId(), at.plusSeconds(i / 2));
+            }
+        });
+
+        List<Long> expected = new ArrayList<>();
+        for (int i = idols.size() - 1; i >= 0; i--) {
+            expected.add(idols.get(i).getId());
+        }
+
+        assertEquals(expected, pageThrough(
+                before -> userService.getRecentFollowing(carol.getUsername(), before, 3), List.of(3, 3)));
+    }
+
+    @Test
+    void getFollowRequests() {
+        signIn(dana);
+        assertEquals(REQUESTS, budget.check("getFollowRequests",
+                () -> userService.getFollowRequests(PageRequest.of(0, 20))).getNumberOfElements());
+    }
+
+    @Test
+    void acceptFollowRequest() {
+        signIn(dana);
+        Long requestId = pendingRequestIds().get(0);
+        assertTrue(budget.check("acceptFollowRequest",
+                () -> userService.acceptFollowRequest(requestId)).getUsername().startsWith(fixture + "follower"));
+    }
+
+    @Test
+    void rejectFollowRequest() {
+        signIn(dana);
+        Long requestId = pendingRequestIds().get(0);
+        budget.check("rejectFollowRequest", () -> userService.rejectFollowRequest(requestId));
+    }
+
+    /**
+     * Follows next-cursors until a page says there is no more, checking each
+     * page's size, and returns the user ids in the order they were listed.
+     */
+    private List<Long> pageThrough(Function<String, UserListDto> page, List<Integer> sizes) {
+        List<Long> ids = new ArrayList<>();
+        String before = null;
+        for (int i = 0; i < sizes.size(); i++) {
+            UserListDto list = page.apply(before);
+            assertEquals(sizes.get(i), list.getUsers().size(), "page " + i);
+            assertEquals(i < sizes.size() - 1, list.isHasMore(), "page " + i);
+            list.getUsers().forEach(user -> ids.add(user.getId()));
+            before = list.getNextCursor();
+        }
+        assertTrue(page.apply(before).getUsers().isEmpty(), "cursor past the last page");
+        return ids;
+    }
+
+    private int followerCount(User user) {
+        return userRepository.findById(user.getId()).orElseThrow().getFollowerCount();
+    }
+
+    private int followingCount(User user) {
+        return userRepository.findById(user.getId()).orElseThrow().getFollowingCount();
+    }
+
+    private List<Long> pendingRequestIds() {
+        List<Long> ids = new ArrayList<>();
+        followRequestRepository.findPendingRequestsForUser(dana, PageRequest.of(0, REQUESTS))
+                .forEach(request -> ids.add(request.getId()));
+        return ids;
+    }
+
+    private User createUser(String name, boolean isPrivate) {
+        User user = new User(fixture + name, fixture + name + "@example.com", "password");
+        user.setPrivate(isPrivate);
+        user = userRepository.save(user);
+        userSearchService.index(user);
+        return user;
+    }
+
+    private List<Long> suggestedIds(String name) {
+        return userSearchService.suggest(fixture + name, 10).stream().map(UserSuggestionDto::getId).toList();
+    }
+
+    private void signIn(User user) {
+        UserPrincipal principal = UserPrincipal.create(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
@@ -0,0 +1,149 @@
+package com.clipnest.messaging.service;
+
+import com.clipnest.messaging.dto.UserSuggestionDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSuggestIndexTest {
+
+    private static List<Long> ids(List<UserSuggestionDto> suggestions) {
+        return suggestions.stream().map(UserSuggestionDto::getId).toList();
+    }
+
+    @Test
+    void edgesSplitOnInsertAndMergeOnRemove() {
+        UserSuggestIndex index = new UserSuggestIndex(10);
+        index.put(1L, "alan", null, null, 0);
+        assertEquals(1, index.nodeCount());
+
+        // "al" is split off, with "an" and "ice" below it
+        index.put(2L, "alice", null, null, 0);
+        assertEquals(3, index.nodeCount());
+        assertEquals(List.of(1L, 2L), ids(index.suggest("al", 10)));
+        assertEquals(List.of(2L), ids(index.suggest("alic", 10)));
+        assertEquals(List.of(1L), ids(index.suggest("ala", 10)));
+
+        index.remove(2L);
+        assertEquals(1, index.nodeCount());
+        assertEquals(List.of(1L), ids(index.suggest("al", 10)));
+        assertTrue(index.suggest("ali", 10).isEmpty());
+
+        // A term ending mid-edge splits it and stays a terminal
+        index.put(3L, "al", null, null, 0);
+        assertEquals(2, index.nodeCount());
+        assertEquals(List.of(3L, 1L), ids(index.suggest("al", 10)));
+        index.remove(1L);
+        index.remove(3L);
+        assertEquals(0, index.nodeCount());
+    }
+
+    @Test
+    void matchesUsernameFirstLastAndFullName() {
+        UserSuggestIndex index = new UserSuggestIndex(10);
+        index.put(1L, "sconnor", "Sarah", "Connor", 0);
+
+        for (String prefix : List.of("scon", "sar", "con", "Sarah C", "  sarah   connor ")) {
+            assertEquals(List.of(1L), ids(index.suggest(prefix, 10)), prefix);
+        }
+        assertTrue(index.suggest("onnor", 10).isEmpty());
+        assertTrue(index.suggest("sarah x", 10).isEmpty());
+        assertTrue(index.suggest(" ", 10).isEmpty());
+    }
+
+    @Test
+    void returnsTopKByRankThenShorterUsername() {
+        UserSuggestIndex index = new UserSuggestIndex(3);
+        index.put(1L, "maria", null, null, 5);
+        index.put(2L, "mark", null, null, 5);
+        index.put(3L, "marcus", null, null, 9);
+        index.put(4L, "marty", null, null, 1);
+        index.put(5L, "mo", null, null, 0);
+
+        assertEquals(List.of(3L, 2L, 1L), ids(index.suggest("m", 10)));
+        assertEquals(List.of(3L, 2L), ids(index.suggest("mar", 2)));
+
+        index.remove(3L);
+        assertEquals(List.of(2L, 1L, 4L), ids(index.suggest("m", 10)));
+    }
+
+    @Test
+    void adjustRankReordersSuggestions() {
+        UserSuggestIndex index = new UserSuggestIndex(2);
+        index.put(1L, "anna", null, null, 3);
+        index.put(2L, "anne", null, null, 2);
+        index.put(3L, "annika", null, null, 1);
+
+        index.adjustRank(3L, 5);
+        assertEquals(List.of(3L, 1L), ids(index.suggest("ann", 10)));
+
+        index.adjustRank(3L, -5);
+        index.adjustRank(1L, -2);
+        assertEquals(List.of(2L, 1L), ids(index.suggest("ann", 10)));
+
+        // Not indexed: ignored
+        index.adjustRank(99L, 1);
+        assertEquals(List.of(2L, 1L), ids(index.suggest("ann", 10)));
+    }
+
+    @Test
+    void matchesAScanAfterRandomChanges() {
+        String[] syllables = { "al", "an", "ma", "ri", "jo", "jon", "a", "b" };
+        Random random = new Random(7);
+        UserSuggestIndex index = new UserSuggestIndex(3);
+        Map<Long, String[]> users = new HashMap<>();
+
+        for (int step = 0; step < 4000; step++) {
+            long id = 1 + random.nextInt(60);
+            if (random.nextInt(5) == 0) {
+                index.remove(id);
+                users.remove(id);
+                continue;
+            }
+            String username = syllables[random.nextInt(8)] + syllables[random.nextInt(8)]
+                    + (random.nextBoolean() ? "" : syllables[random.nextInt(8)]);
+            String firstName = random.nextBoolean() ? null : syllables[random.nextInt(8)] + syllables[random.nextInt(8)];
+            String lastName = random.nextBoolean() ? null : syllables[random.nextInt(8)];
+            int rank = random.nextInt(4);
+            index.put(id, username, firstName, lastName, rank);
+            users.put(id, new String[] { username, firstName, lastName, String.valueOf(rank) });
+
+            if (step % 10 == 0) {
+                for (String prefix : List.of("a", "al", "ma", "jo", "jon", "b", "ab", "alan", "ma r", "x")) {
+                    assertEquals(scan(users, prefix), ids(index.suggest(prefix, 3)), "step " + step + " " + prefix);
+                }
+            }
+        }
+    }
+
+    private static List<Long> scan(Map<Long, String[]> users, String prefix) {
+        return users.entrySet().stream()
+                .filter(entry -> {
+                    String[] user = entry.getValue();
+                    List<String> terms = new ArrayList<>(List.of(user[0]));
+                    if (user[1] != null) {
+                        terms.add(user[1]);
+                    }
+                    if (user[2] != null) {
+                        terms.add(user[2]);
+                    }
+                    if (user[1] != null && user[2] != null) {
+                        terms.add(user[1] + " " + user[2]);
+                    }
+                    return terms.stream().anyMatch(term -> term.startsWith(prefix));
+                })
+                .sorted(Comparator.<Map.Entry<Long, String[]>>comparingInt(entry -> -Integer.parseInt(entry.getValue()[3]))
+                        .thenComparingInt(entry -> entry.getValue()[0].length())
+                        .thenComparing(Map.Entry::getKey))
+                .limit(3)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+}
@@ -0,0 +1,55 @@
+package com.clipnest.messaging.support;
+
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * In-process STOMP broker for exercising the broker relay without external
+ * services. Destinations under /queue/ are anycast and /topic/ multicast, the
+ * same split a RabbitMQ or ActiveMQ deployment would use.
+ */
+public class EmbeddedStompBroker {
+
+    private EmbeddedActiveMQ server;
+    private int port;
+
+    public void start() throws Exception {
+        port = findFreePort();
+        Path dataDir = Files.createTempDirectory("stomp-broker");
+
+        Configuration configuration = new ConfigurationImpl()
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .setJMXManagementEnabled(false)
+                .addAcceptorConfiguration("stomp", "tcp://127.0.0.1:" + port
+                        + "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/");
+
+        configuration.setBrokerInstance(dataDir.toFile());
+
+        server = new EmbeddedActiveMQ();
+        server.setConfiguration(configuration);
+        server.start();
+    }
+
+    public void stop() throws Exception {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
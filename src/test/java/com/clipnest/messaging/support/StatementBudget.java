@@ -0,0 +1,70 @@
+package com.clipnest.messaging.support;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Per-method query budgets for a service. {@link #check} counts the JDBC
+ * statements Hibernate prepares while one call runs, after-commit work
+ * included, and fails the test when the call goes over its method's budget.
+ * Needs {@code spring.jpa.properties.hibernate.generate_statistics=true}.
+ */
+public class StatementBudget {
+
+    private final Class<?> service;
+    private final Map<String, Integer> budgets;
+    private final Statistics statistics;
+
+    public StatementBudget(Class<?> service, Map<String, Integer> budgets,
+                           EntityManagerFactory entityManagerFactory) {
+        this.service = service;
+        this.budgets = budgets;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public <T> T check(String method, Supplier<T> call) {
+        String name = service.getSimpleName() + "." + method;
+        Integer budget = budgets.get(method);
+        assertNotNull(budget, "No statement budget for " + name);
+
+        statistics.clear();
+        T result = call.get();
+        long statements = statistics.getPrepareStatementCount();
+
+        assertTrue(statements <= budget,
+                () -> name + " prepared " + statements + " statements, budget is " + budget);
+        return result;
+    }
+
+    public void check(String method, Runnable call) {
+        check(method, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Fails when a public method of the service has no budget, so new service
+     * methods cannot skip the suite, or when a budget names a removed method.
+     */
+    public void assertCoversPublicMethods() {
+        Set<String> methods = new TreeSet<>();
+        for (Method method : service.getDeclaredMethods()) {
+            if (Modifier.isPublic(method.getModifiers()) && !method.isSynthetic()) {
+                methods.add(method.getName());
+            }
+        }
+        assertEquals(methods, new TreeSet<>(budgets.keySet()),
+                "Statement budgets for " + service.getSimpleName() + " must match its public methods");
+    }
+}